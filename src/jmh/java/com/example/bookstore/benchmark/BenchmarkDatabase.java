@@ -0,0 +1,77 @@
+package com.example.bookstore.benchmark;
+
+import com.example.bookstore.BookstoreApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Boots the application against target/jmh-db/books-<rows>.db, seeding it on first use so later runs reuse the file
+final class BenchmarkDatabase {
+
+    private static final int SEED_BATCH_SIZE = 10_000;
+
+    private BenchmarkDatabase() {
+    }
+
+    static ConfigurableApplicationContext start(int rows, String... properties) {
+        Path file = Path.of("target", "jmh-db", "books-" + rows + ".db").toAbsolutePath();
+        try {
+            Files.createDirectories(file.getParent());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // As command-line arguments, since default properties lose to application.properties
+        List<String> args = new ArrayList<>(List.of(
+            "--spring.datasource.url=jdbc:sqlite:" + file,
+            "--logging.level.root=WARN"));
+        for (String property : properties) {
+            args.add("--" + property);
+        }
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(BookstoreApplication.class)
+            .web(WebApplicationType.NONE)
+            .run(args.toArray(String[]::new));
+        seed(context.getBean(JdbcTemplate.class), context.getBean(PlatformTransactionManager.class), rows);
+        return context;
+    }
+
+    static String title(long n) {
+        return "Volume " + n + " of the collected works";
+    }
+
+    static String isbn(long n) {
+        return String.format("978%010d", n);
+    }
+
+    private static void seed(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, int rows) {
+        long existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM books", Long.class);
+        if (existing >= rows) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            List<Object[]> batch = new ArrayList<>(SEED_BATCH_SIZE);
+            for (long n = existing + 1; n <= rows; n++) {
+                batch.add(new Object[] {title(n), "Author " + (n % 1000), isbn(n),
+                    new BigDecimal("19.99"), (int) (n % 50), now, now});
+                if (batch.size() == SEED_BATCH_SIZE || n == rows) {
+                    jdbcTemplate.batchUpdate(
+                        "INSERT INTO books (title, author, isbn, price, quantity, created_at, updated_at) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?)", batch);
+                    batch.clear();
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.bookstore.benchmark;
+
+import com.example.bookstore.model.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectReader;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+// Encode and decode cost of a full GET /api/books page per negotiated format; payload sizes are printed at setup
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookEncodingBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private List<Book> page;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper mapper = switch (format) {
+            case "json" -> JsonMapper.builder().build();
+            case "cbor" -> new CBORMapper();
+            case "smile" -> new SmileMapper();
+            default -> throw new IllegalArgumentException("Unknown format: " + format);
+        };
+        writer = mapper.writerFor(mapper.getTypeFactory().constructCollectionType(List.class, Book.class));
+        reader = mapper.readerFor(Book[].class);
+
+        LocalDateTime now = LocalDateTime.now();
+        page = new ArrayList<>();
+        for (long n = 1; n <= 100; n++) {
+            Book book = new Book(BenchmarkDatabase.title(n), "Author " + n, BenchmarkDatabase.isbn(n), new BigDecimal("19.99"), 5);
+            book.setId(n);
+            book.setCreatedAt(now);
+            book.setUpdatedAt(now);
+            page.add(book);
+        }
+        encoded = writer.writeValueAsBytes(page);
+        System.out.printf("%n%s: %d bytes, %d bytes gzipped%n", format, encoded.length, gzip(encoded).length);
+    }
+
+    @Benchmark
+    public byte[] encodePage() {
+        return writer.writeValueAsBytes(page);
+    }
+
+    // What the server pays on top of encoding when the response is compressed
+    @Benchmark
+    public byte[] encodeAndGzipPage() {
+        return gzip(writer.writeValueAsBytes(page));
+    }
+
+    @Benchmark
+    public Book[] decodePage() {
+        return reader.readValue(encoded);
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
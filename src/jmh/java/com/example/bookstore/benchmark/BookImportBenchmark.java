@@ -0,0 +1,100 @@
+package com.example.bookstore.benchmark;
+
+import com.example.bookstore.model.BulkImportResult;
+import com.example.bookstore.service.BookImportService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// Bulk import of a FEED_ROWS-row feed into a seeded catalog, per format and chunk size; rows/s is
+// FEED_ROWS / (ms/op / 1000). mvn -Pjmh -DskipTests verify -Djmh.include=BookImportBenchmark
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class BookImportBenchmark {
+
+    static final int FEED_ROWS = 10_000;
+    private static final String IMPORTED_ISBN_PREFIX = "import-";
+
+    @Param({"100000"})
+    public int rows;
+
+    @Param({"csv", "ndjson"})
+    public String format;
+
+    @Param({"100", "1000", "10000"})
+    public int chunkSize;
+
+    private ConfigurableApplicationContext context;
+    private BookImportService importService;
+    private JdbcTemplate jdbcTemplate;
+    private byte[] feed;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkDatabase.start(rows, "bookstore.import.chunk-size=" + chunkSize);
+        importService = context.getBean(BookImportService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        feed = feed(format);
+    }
+
+    // Every invocation imports the same ISBNs, so each starts from the seeded table
+    @TearDown(Level.Invocation)
+    public void removeImported() {
+        jdbcTemplate.update("DELETE FROM books WHERE isbn LIKE ?", IMPORTED_ISBN_PREFIX + "%");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BulkImportResult importFeed() throws IOException {
+        ByteArrayInputStream input = new ByteArrayInputStream(feed);
+        BulkImportResult result = format.equals("csv") ? importService.importCsv(input) : importService.importNdjson(input);
+        if (result.getInserted() != FEED_ROWS) {
+            throw new IllegalStateException("Imported " + result.getInserted() + " of " + FEED_ROWS + " rows");
+        }
+        return result;
+    }
+
+    private static byte[] feed(String format) {
+        StringBuilder feed = new StringBuilder(FEED_ROWS * 100);
+        if (format.equals("csv")) {
+            feed.append("isbn,title,author,price,quantity\n");
+        }
+        for (int n = 1; n <= FEED_ROWS; n++) {
+            String isbn = IMPORTED_ISBN_PREFIX + n;
+            if (format.equals("csv")) {
+                feed.append(isbn).append(",\"Imported title ").append(n).append(", second edition\",Author ")
+                    .append(n % 500).append(",14.99,").append(n % 20).append('\n');
+            } else {
+                feed.append("{\"isbn\":\"").append(isbn).append("\",\"title\":\"Imported title ").append(n)
+                    .append(", second edition\",\"author\":\"Author ").append(n % 500)
+                    .append("\",\"price\":14.99,\"quantity\":").append(n % 20).append("}\n");
+            }
+        }
+        return feed.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
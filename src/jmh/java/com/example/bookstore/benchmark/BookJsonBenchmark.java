@@ -0,0 +1,87 @@
+package com.example.bookstore.benchmark;
+
+import com.example.bookstore.model.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectReader;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.ValueSerializer;
+import tools.jackson.databind.annotation.JsonSerialize;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookJsonBenchmark {
+
+    private ObjectWriter bookWriter;
+    private ObjectWriter listWriter;
+    private ObjectWriter reflectiveListWriter;
+    private ObjectReader bookReader;
+    private Book book;
+    private List<Book> page;
+    private byte[] bookJson;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = JsonMapper.builder().build();
+        bookWriter = objectMapper.writerFor(Book.class);
+        listWriter = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, Book.class));
+        bookReader = objectMapper.readerFor(Book.class);
+        ObjectMapper reflectiveMapper = JsonMapper.builder().addMixIn(Book.class, ReflectiveBook.class).build();
+        reflectiveListWriter = reflectiveMapper.writerFor(
+            reflectiveMapper.getTypeFactory().constructCollectionType(List.class, Book.class));
+
+        page = new ArrayList<>();
+        for (long n = 1; n <= 100; n++) {
+            Book each = new Book(BenchmarkDatabase.title(n), "Author " + n, BenchmarkDatabase.isbn(n), new BigDecimal("19.99"), 5);
+            each.setId(n);
+            page.add(each);
+        }
+        book = page.get(0);
+        bookJson = bookWriter.writeValueAsBytes(book);
+    }
+
+    @Benchmark
+    public byte[] serializeBook() {
+        return bookWriter.writeValueAsBytes(book);
+    }
+
+    // The default GET /api/books page size
+    @Benchmark
+    public byte[] serializePage() {
+        return listWriter.writeValueAsBytes(page);
+    }
+
+    // Baseline for BookSerializer; compare gc.alloc.rate.norm with -prof gc
+    @Benchmark
+    public byte[] serializePageReflective() {
+        return reflectiveListWriter.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public Book deserializeBook() {
+        return bookReader.readValue(bookJson);
+    }
+
+    @JsonSerialize(using = ValueSerializer.None.class)
+    private abstract static class ReflectiveBook {
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.bookstore.benchmark;
+
+import com.example.bookstore.model.Book;
+import com.example.bookstore.repository.BookRepository;
+import com.example.bookstore.service.BookService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class BookServiceBenchmark {
+
+    private static final String CREATED_ISBN_PREFIX = "bench-";
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private BookRepository bookRepository;
+    private final AtomicLong created = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkDatabase.start(rows);
+        bookService = context.getBean(BookService.class);
+        bookRepository = context.getBean(BookRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        // Keeps the seeded file at its nominal size for the next run
+        context.getBean(JdbcTemplate.class).update("DELETE FROM books WHERE isbn LIKE ?", CREATED_ISBN_PREFIX + "%");
+        context.close();
+    }
+
+    // Random ids over the whole table, so hit rate depends on how much of it the cache holds
+    @Benchmark
+    public Optional<Book> getBookById() {
+        return bookService.getBookById(1L + ThreadLocalRandom.current().nextInt(rows));
+    }
+
+    @Benchmark
+    public Optional<Book> getBookByIsbn() {
+        return bookService.getBookByIsbn(BenchmarkDatabase.isbn(1L + ThreadLocalRandom.current().nextInt(rows)));
+    }
+
+    // A selective phrase that matches a single title, like a customer searching for a known book
+    @Benchmark
+    public List<Book> searchBooksByTitle() {
+        return bookService.searchBooksByTitle(BenchmarkDatabase.title(1L + ThreadLocalRandom.current().nextInt(rows)));
+    }
+
+    // The two plans searchBooksByTitle chooses between, on the same phrase: a scan of every title with LIKE, and
+    // the trigram index it uses for terms of three or more characters
+    @Benchmark
+    public List<Book> searchTitleLike() {
+        return bookRepository.findByTitleContaining(BenchmarkDatabase.title(1L + ThreadLocalRandom.current().nextInt(rows)));
+    }
+
+    @Benchmark
+    public List<Book> searchTitleFullText() {
+        String title = BenchmarkDatabase.title(1L + ThreadLocalRandom.current().nextInt(rows));
+        return bookRepository.searchFullText("title : \"" + title + "\"", -1, 0);
+    }
+
+    @Benchmark
+    public Book createBook() {
+        Book book = new Book("Benchmark title", "Benchmark author",
+            CREATED_ISBN_PREFIX + created.incrementAndGet(), new BigDecimal("9.99"), 1);
+        return bookService.createBook(book);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Book> getAllBooks() {
+        return bookService.getAllBooks();
+    }
+}
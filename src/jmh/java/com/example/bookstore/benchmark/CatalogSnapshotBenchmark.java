@@ -0,0 +1,70 @@
+package com.example.bookstore.benchmark;
+
+import com.example.bookstore.model.Book;
+import com.example.bookstore.service.BookLookupService;
+import com.example.bookstore.service.CatalogSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Single-book reads with the catalog snapshot off (Caffeine cache, then SQLite) and on; the gc profiler's
+// gc.alloc.rate.norm shows allocation per lookup. mvn -Pjmh -DskipTests verify -Djmh.include=CatalogSnapshotBenchmark
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class CatalogSnapshotBenchmark {
+
+    @Param({"100000"})
+    public int rows;
+
+    @Param({"false", "true"})
+    public boolean snapshot;
+
+    private ConfigurableApplicationContext context;
+    private BookLookupService bookLookupService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        context = BenchmarkDatabase.start(rows, "bookstore.catalog-snapshot.enabled=" + snapshot);
+        if (snapshot) {
+            CatalogSnapshot catalogSnapshot = context.getBean(CatalogSnapshot.class);
+            while (!catalogSnapshot.isReady()) {
+                Thread.sleep(10);
+            }
+        }
+        bookLookupService = context.getBean(BookLookupService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<Book> getBookById() {
+        return bookLookupService.getBookById(1L + ThreadLocalRandom.current().nextInt(rows));
+    }
+
+    @Benchmark
+    public Optional<Book> getBookByIsbn() {
+        return bookLookupService.getBookByIsbn(BenchmarkDatabase.isbn(1L + ThreadLocalRandom.current().nextInt(rows)));
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.bookstore.config;
+
+import com.example.bookstore.service.JdbcExecutor;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+@Configuration
+public class AsyncConfig {
+
+    // One thread per pooled connection unless bookstore.async.threads says otherwise. Pools are found behind the
+    // metrics and routing wrappers, and the prod profile's writer and readers count together.
+    @Bean
+    public JdbcExecutor jdbcExecutor(ListableBeanFactory beanFactory,
+                                     @Value("${bookstore.async.threads:0}") int threads,
+                                     @Value("${bookstore.async.queue-capacity:100}") int queueCapacity) {
+        return new JdbcExecutor(threads > 0 ? threads : connectionCount(beanFactory), queueCapacity);
+    }
+
+    private static int connectionCount(ListableBeanFactory beanFactory) {
+        Set<HikariDataSource> pools = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (DataSource dataSource : beanFactory.getBeansOfType(DataSource.class).values()) {
+            try {
+                if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                    pools.add(dataSource.unwrap(HikariDataSource.class));
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException("Cannot inspect DataSource " + dataSource, e);
+            }
+        }
+        return Math.max(1, pools.stream().mapToInt(HikariDataSource::getMaximumPoolSize).sum());
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.bookstore.config;
+
+import com.example.bookstore.controller.VaryInterceptor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class ContentNegotiationConfig implements WebMvcConfigurer {
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new VaryInterceptor()).addPathPatterns("/api/**");
+    }
+}
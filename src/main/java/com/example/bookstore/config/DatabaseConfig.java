@@ -1,15 +1,103 @@
 package com.example.bookstore.config;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
 import org.springframework.data.jdbc.core.dialect.JdbcDialect;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.sqlite.SQLiteConfig;
+
+import javax.sql.DataSource;
 
 @Configuration
 public class DatabaseConfig {
-    
+
     @Bean
     public JdbcDialect jdbcDialect() {
         return new SqliteDialect();
     }
-}
 
+    @Configuration
+    @Profile("prod")
+    static class PooledSqliteConfig {
+
+        private final String url;
+        private final int busyTimeout;
+        private final int cacheSize;
+        private final long mmapSize;
+
+        PooledSqliteConfig(@Value("${spring.datasource.url}") String url,
+                           @Value("${bookstore.datasource.busy-timeout:5000}") int busyTimeout,
+                           @Value("${bookstore.datasource.cache-size:-65536}") int cacheSize,
+                           @Value("${bookstore.datasource.mmap-size:268435456}") long mmapSize) {
+            this.url = url;
+            this.busyTimeout = busyTimeout;
+            this.cacheSize = cacheSize;
+            this.mmapSize = mmapSize;
+        }
+
+        // SQLite allows one writer at a time; a single connection queues writers in the pool instead of on SQLITE_BUSY
+        @Bean(destroyMethod = "close", defaultCandidate = false)
+        public HikariDataSource writerDataSource() {
+            SQLiteConfig sqlite = pragmas();
+            // Take the write lock at BEGIN so a transaction never fails upgrading from a read lock
+            sqlite.setTransactionMode(SQLiteConfig.TransactionMode.IMMEDIATE);
+            return pool("bookstore-writer", 1, sqlite, false);
+        }
+
+        // WAL lets these readers run concurrently with the writer
+        @Bean(destroyMethod = "close", defaultCandidate = false)
+        public HikariDataSource readerDataSource(@Value("${bookstore.datasource.reader-pool-size:4}") int size,
+                                                 @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+            if (virtualThreads) {
+                // The driver's native calls are synchronized and pin the calling virtual thread's carrier;
+                // leaving one carrier free keeps requests that do not touch the database moving
+                size = Math.min(size, Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+            }
+            SQLiteConfig sqlite = pragmas();
+            // Turns Connection.setReadOnly into PRAGMA query_only, so a stray write on this pool fails fast
+            sqlite.setExplicitReadOnly(true);
+            return pool("bookstore-reader", size, sqlite, true);
+        }
+
+        // Statements run on the writer unless the surrounding transaction is @Transactional(readOnly = true);
+        // the lazy proxy defers choosing a pool until the read-only flag is known
+        @Bean
+        @Primary
+        public DataSource dataSource(@Qualifier("writerDataSource") DataSource writer,
+                                     @Qualifier("readerDataSource") DataSource reader) {
+            LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(writer);
+            dataSource.setReadOnlyDataSource(reader);
+            return dataSource;
+        }
+
+        private SQLiteConfig pragmas() {
+            SQLiteConfig sqlite = new SQLiteConfig();
+            sqlite.setJournalMode(SQLiteConfig.JournalMode.WAL);
+            // Durable across application crashes in WAL mode; only an OS crash can lose the last commits
+            sqlite.setSynchronous(SQLiteConfig.SynchronousMode.NORMAL);
+            sqlite.setBusyTimeout(busyTimeout);
+            sqlite.setCacheSize(cacheSize);
+            sqlite.setPragma(SQLiteConfig.Pragma.MMAP_SIZE, String.valueOf(mmapSize));
+            return sqlite;
+        }
+
+        private HikariDataSource pool(String name, int size, SQLiteConfig sqlite, boolean readOnly) {
+            HikariConfig config = new HikariConfig();
+            config.setPoolName(name);
+            config.setDriverClassName("org.sqlite.JDBC");
+            config.setJdbcUrl(url);
+            config.setMaximumPoolSize(size);
+            config.setMinimumIdle(size);
+            config.setReadOnly(readOnly);
+            // Applied by the driver on every new connection, so each one gets the same pragmas
+            config.setDataSourceProperties(sqlite.toProperties());
+            return new HikariDataSource(config);
+        }
+    }
+}
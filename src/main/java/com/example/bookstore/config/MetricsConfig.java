@@ -0,0 +1,42 @@
+package com.example.bookstore.config;
+
+import com.example.bookstore.metrics.BookstoreMetrics;
+import com.example.bookstore.metrics.RequestTimingInterceptor;
+import com.example.bookstore.metrics.TimedDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class MetricsConfig implements WebMvcConfigurer {
+
+    private final BookstoreMetrics metrics;
+
+    public MetricsConfig(BookstoreMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new RequestTimingInterceptor(metrics)).addPathPatterns("/api/**");
+    }
+
+    // Wraps the pools rather than the primary DataSource, so pool wait is measured under the prod routing proxy too
+    @Bean
+    static BeanPostProcessor timedDataSourcePostProcessor(ObjectProvider<BookstoreMetrics> metrics) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource pool) {
+                    String poolName = pool.getPoolName() != null ? pool.getPoolName() : beanName;
+                    return new TimedDataSource(pool, poolName, metrics.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.bookstore.config;
+
+import com.example.bookstore.controller.FollowerInterceptor;
+import com.example.bookstore.service.ReplicationFollower;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+@Configuration
+public class ReplicationConfig implements WebMvcConfigurer {
+
+    private final ReplicationFollower follower;
+    private final Duration maxStaleness;
+
+    public ReplicationConfig(ReplicationFollower follower,
+                             @Value("${bookstore.replication.max-staleness:30s}") Duration maxStaleness) {
+        this.follower = follower;
+        this.maxStaleness = maxStaleness;
+    }
+
+    // Only the API is replicated; /replication, /metrics and the stats endpoints describe this node itself
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (follower.isEnabled()) {
+            registry.addInterceptor(new FollowerInterceptor(follower, maxStaleness)).addPathPatterns("/api/**");
+        }
+    }
+}
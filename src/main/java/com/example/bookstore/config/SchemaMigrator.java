@@ -0,0 +1,109 @@
+package com.example.bookstore.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Applies classpath:db/migration/V<n>__<description>.sql after schema.sql, each script once and in version order.
+// The applied version is kept in PRAGMA user_version, which commits or rolls back with the script's transaction.
+// With bookstore.schema.bootstrap the migrator runs schema.sql itself, and only while the database is behind the
+// newest migration, so a restart against a current database costs one PRAGMA read instead of the whole script.
+// Eager even under lazy initialization: nothing depends on it, yet the schema must be in place before traffic.
+@Component
+@Lazy(false)
+@DependsOnDatabaseInitialization
+public class SchemaMigrator implements InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaMigrator.class);
+    private static final Pattern MIGRATION_NAME = Pattern.compile("V(\\d+)__.+\\.sql");
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final String initMode;
+    private final String separator;
+    private final boolean bootstrap;
+    private final Resource schema;
+
+    public SchemaMigrator(DataSource dataSource, PlatformTransactionManager transactionManager,
+                          @Value("${spring.sql.init.mode:embedded}") String initMode,
+                          @Value("${spring.sql.init.separator:;}") String separator,
+                          @Value("${bookstore.schema.bootstrap:false}") boolean bootstrap,
+                          @Value("${spring.sql.init.schema-locations:classpath:schema.sql}") Resource schema) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.initMode = initMode;
+        this.separator = separator;
+        this.bootstrap = bootstrap;
+        this.schema = schema;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        // Migrations build on schema.sql, so they are skipped wherever it is
+        if (!bootstrap && "never".equalsIgnoreCase(initMode)) {
+            return;
+        }
+        int current = jdbcTemplate.queryForObject("PRAGMA user_version", Integer.class);
+        TreeMap<Integer, Resource> migrations = migrations();
+        if (bootstrap) {
+            int latest = migrations.isEmpty() ? 0 : migrations.lastKey();
+            // Schema changes ship as migrations, so a database at the newest version already has all of schema.sql
+            if (current >= latest && latest > 0) {
+                return;
+            }
+            log.info("Applying {} to a database at schema version {}", schema.getFilename(), current);
+            ResourceDatabasePopulator populator = new ResourceDatabasePopulator(schema);
+            populator.setSeparator(separator);
+            DatabasePopulatorUtils.execute(populator, dataSource);
+        }
+        migrations.forEach((version, script) -> {
+            if (version > current) {
+                log.info("Applying schema migration {}", script.getFilename());
+                transactionTemplate.executeWithoutResult(status -> {
+                    ResourceDatabasePopulator populator = new ResourceDatabasePopulator(script);
+                    populator.setSeparator(separator);
+                    DatabasePopulatorUtils.execute(populator, dataSource);
+                    jdbcTemplate.execute("PRAGMA user_version = " + version);
+                });
+            }
+        });
+    }
+
+    static TreeMap<Integer, Resource> migrations() {
+        TreeMap<Integer, Resource> migrations = new TreeMap<>();
+        try {
+            for (Resource resource : new PathMatchingResourcePatternResolver().getResources("classpath:db/migration/*.sql")) {
+                Matcher matcher = MIGRATION_NAME.matcher(resource.getFilename());
+                if (!matcher.matches()) {
+                    throw new IllegalStateException("Migration " + resource.getFilename() + " is not named V<n>__<description>.sql");
+                }
+                if (migrations.put(Integer.parseInt(matcher.group(1)), resource) != null) {
+                    throw new IllegalStateException("Duplicate migration version in " + resource.getFilename());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return migrations;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.bookstore.config;
+
+import com.example.bookstore.controller.ShardedRequestInterceptor;
+import com.example.bookstore.repository.ShardedBookRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.nio.file.Path;
+
+// Replaces the Spring Data BookRepository with one over the shard files in bookstore.sharding.directory. Book
+// reads, writes and versions go to the shards. The catalog snapshot and replication replay the primary
+// database's change log, so they are refused at startup; the API features that only exist on the primary
+// database answer 501 (see ShardedRequestInterceptor).
+@Configuration
+@ConditionalOnProperty(name = "bookstore.sharding.enabled", havingValue = "true")
+public class ShardingConfig implements WebMvcConfigurer {
+
+    @Bean(destroyMethod = "close")
+    @Primary
+    public ShardedBookRepository shardedBookRepository(
+            @Value("${bookstore.sharding.directory:shards}") Path directory,
+            @Value("${bookstore.sharding.initial-shards:4}") int initialShards,
+            @Value("${bookstore.sharding.reader-pool-size:2}") int readerPoolSize,
+            @Value("${bookstore.catalog-snapshot.enabled:false}") boolean catalogSnapshot,
+            @Value("${bookstore.replication.role:standalone}") String replicationRole) {
+        if (catalogSnapshot || !replicationRole.equals("standalone")) {
+            throw new IllegalStateException("Sharding does not support the catalog snapshot or replication");
+        }
+        return ShardedBookRepository.open(directory, initialShards, readerPoolSize);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ShardedRequestInterceptor()).addPathPatterns("/api/**");
+    }
+}
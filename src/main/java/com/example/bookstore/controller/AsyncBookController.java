@@ -0,0 +1,227 @@
+package com.example.bookstore.controller;
+
+import com.example.bookstore.model.Book;
+import com.example.bookstore.service.BookLookupService;
+import com.example.bookstore.service.BookService;
+import com.example.bookstore.service.InsufficientStockException;
+import com.example.bookstore.service.JdbcExecutor;
+import com.example.bookstore.service.StillRunningException;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+// Non-blocking variant of the core BookController routes. Each handler hands its BookService call to the
+// JdbcExecutor and returns, releasing the request thread; Spring MVC writes the response when the future
+// completes. A full executor queue, or a call still queued when its route's timeout passes, answers 503 with
+// Retry-After: the call never ran. A read that times out while running also answers 503, since retrying it is
+// harmless. A write that times out while running keeps going and may commit, so it answers 504 without
+// Retry-After. Timeouts are bookstore.async.timeout.<route>, falling back to bookstore.async.timeout.default.
+// Conditional GETs, projections, streaming and bulk import stay on the blocking controller.
+@RestController
+@RequestMapping("/api/async/books")
+public class AsyncBookController {
+
+    static final List<String> ROUTES = List.of("list", "get", "search", "create", "update", "delete", "stock");
+    static final Set<String> WRITE_ROUTES = Set.of("create", "update", "delete", "stock");
+    static final String RETRY_AFTER_SECONDS = "1";
+
+    private final BookService bookService;
+    private final BookLookupService bookLookupService;
+    private final JdbcExecutor jdbcExecutor;
+    private final Map<String, Duration> timeouts = new LinkedHashMap<>();
+
+    public AsyncBookController(BookService bookService, BookLookupService bookLookupService, JdbcExecutor jdbcExecutor,
+                               Environment environment) {
+        this.bookService = bookService;
+        this.bookLookupService = bookLookupService;
+        this.jdbcExecutor = jdbcExecutor;
+        String fallback = environment.getProperty("bookstore.async.timeout.default", "5s");
+        for (String route : ROUTES) {
+            timeouts.put(route, DurationStyle.detectAndParse(
+                environment.getProperty("bookstore.async.timeout." + route, fallback)));
+        }
+    }
+
+    @GetMapping
+    public CompletableFuture<ResponseEntity<?>> getAllBooks(@RequestParam(required = false) Integer limit,
+                                                            @RequestParam(required = false) String after) {
+        return async("list", () -> {
+            try {
+                if (limit == null && after == null) {
+                    return ResponseEntity.ok(bookService.getAllBooks());
+                }
+                return ResponseEntity.ok(bookService.getBooksPage(after, limit));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+            }
+        });
+    }
+
+    @GetMapping("/{id}")
+    public CompletableFuture<ResponseEntity<?>> getBookById(@PathVariable Long id) {
+        return async("get", () -> bookLookupService.getBookById(id)
+            .<ResponseEntity<?>>map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build()));
+    }
+
+    @GetMapping("/isbn/{isbn}")
+    public CompletableFuture<ResponseEntity<?>> getBookByIsbn(@PathVariable String isbn) {
+        return async("get", () -> bookLookupService.getBookByIsbn(isbn)
+            .<ResponseEntity<?>>map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build()));
+    }
+
+    @GetMapping("/search")
+    public CompletableFuture<ResponseEntity<?>> searchBooksByTitle(@RequestParam String title) {
+        return async("search", () -> ResponseEntity.ok(bookService.searchBooksByTitle(title)));
+    }
+
+    @GetMapping(value = "/search", params = "q")
+    public CompletableFuture<ResponseEntity<?>> searchBooks(@RequestParam String q,
+                                                            @RequestParam(defaultValue = "0") int page,
+                                                            @RequestParam(defaultValue = "20") int size) {
+        return async("search", () -> {
+            try {
+                return ResponseEntity.ok(bookService.searchBooks(q, page, size));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+            }
+        });
+    }
+
+    @PostMapping
+    public CompletableFuture<ResponseEntity<?>> createBook(@RequestBody Book book) {
+        return async("create", () -> {
+            try {
+                return ResponseEntity.status(HttpStatus.CREATED).body(bookService.createBook(book));
+            } catch (DuplicateKeyException e) {
+                // Another writer claimed the ISBN between the service's check and the write
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", e.getMessage()));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+            }
+        });
+    }
+
+    @PutMapping("/{id}")
+    public CompletableFuture<ResponseEntity<?>> updateBook(@PathVariable Long id, @RequestBody Book bookDetails) {
+        return async("update", () -> {
+            try {
+                return ResponseEntity.ok(bookService.updateBook(id, bookDetails));
+            } catch (DuplicateKeyException e) {
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", e.getMessage()));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", e.getMessage()));
+            }
+        });
+    }
+
+    @PatchMapping("/{id}")
+    public CompletableFuture<ResponseEntity<?>> patchBook(@PathVariable Long id, @RequestBody Book bookDetails) {
+        return async("update", () -> {
+            try {
+                return ResponseEntity.ok(bookService.patchBook(id, bookDetails));
+            } catch (DuplicateKeyException e) {
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", e.getMessage()));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", e.getMessage()));
+            }
+        });
+    }
+
+    @DeleteMapping("/{id}")
+    public CompletableFuture<ResponseEntity<?>> deleteBook(@PathVariable Long id) {
+        return async("delete", () -> {
+            try {
+                bookService.deleteBook(id);
+                return ResponseEntity.noContent().build();
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", e.getMessage()));
+            }
+        });
+    }
+
+    @PostMapping("/{id}/stock/decrement")
+    public CompletableFuture<ResponseEntity<?>> decrementStock(@PathVariable Long id,
+                                                               @RequestParam(defaultValue = "1") int quantity) {
+        return async("stock", () -> {
+            try {
+                return ResponseEntity.ok(bookService.decrementStock(id, quantity));
+            } catch (InsufficientStockException e) {
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", e.getMessage()));
+            } catch (IllegalArgumentException e) {
+                return stockError(id, e);
+            }
+        });
+    }
+
+    @PostMapping("/{id}/stock/increment")
+    public CompletableFuture<ResponseEntity<?>> incrementStock(@PathVariable Long id,
+                                                               @RequestParam(defaultValue = "1") int quantity) {
+        return async("stock", () -> {
+            try {
+                return ResponseEntity.ok(bookService.incrementStock(id, quantity));
+            } catch (IllegalArgumentException e) {
+                return stockError(id, e);
+            }
+        });
+    }
+
+    private ResponseEntity<?> stockError(Long id, IllegalArgumentException e) {
+        HttpStatus status = bookService.bookExists(id) ? HttpStatus.BAD_REQUEST : HttpStatus.NOT_FOUND;
+        return ResponseEntity.status(status).body(Map.of("error", e.getMessage()));
+    }
+
+    private CompletableFuture<ResponseEntity<?>> async(String route, Supplier<ResponseEntity<?>> handler) {
+        Duration timeout = timeouts.get(route);
+        return jdbcExecutor.submit(handler, timeout).exceptionally(error -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof RejectedExecutionException) {
+                return unavailable("Too many requests waiting for the database");
+            }
+            if (cause instanceof StillRunningException && WRITE_ROUTES.contains(route)) {
+                return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT)
+                    .body(Map.of("error", "The write did not finish within " + timeout.toMillis()
+                        + " ms and may still commit"));
+            }
+            if (cause instanceof TimeoutException) {
+                return unavailable("No response from the database within " + timeout.toMillis() + " ms");
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new CompletionException(cause);
+        });
+    }
+
+    private static ResponseEntity<?> unavailable(String message) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+            .body(Map.of("error", message));
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.bookstore.controller;
+
+import com.example.bookstore.model.AuthorSummary;
+import com.example.bookstore.model.BookVersion;
+import com.example.bookstore.service.BookService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.List;
+
+// Per-author book counts, stock totals and price ranges; the books themselves are at /api/books/author/{author}
+@RestController
+@RequestMapping("/api/authors")
+public class AuthorController {
+
+    private final BookService bookService;
+
+    public AuthorController(BookService bookService) {
+        this.bookService = bookService;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<AuthorSummary>> getAuthors(WebRequest request) {
+        if (notModified(request, bookService.getCatalogVersion())) {
+            return null;
+        }
+        return ResponseEntity.ok(bookService.getAuthors());
+    }
+
+    @GetMapping("/{author}")
+    public ResponseEntity<AuthorSummary> getAuthor(@PathVariable String author, WebRequest request) {
+        if (notModified(request, bookService.getCatalogVersion())) {
+            return null;
+        }
+        return bookService.getAuthor(author)
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Aggregates change with any book, so they share the catalog-wide version
+    private static boolean notModified(WebRequest request, BookVersion version) {
+        String etag = version.etag(Representations.variant(request, "authors"));
+        return request.checkNotModified(etag, version.lastModified());
+    }
+}
@@ -1,54 +1,285 @@
 package com.example.bookstore.controller;
 
+import com.example.bookstore.model.BatchGetRequest;
 import com.example.bookstore.model.Book;
+import com.example.bookstore.model.BookPage;
+import com.example.bookstore.model.BookVersion;
+import com.example.bookstore.model.BulkImportResult;
+import com.example.bookstore.model.StockAdjustment;
+import com.example.bookstore.repository.BookProjection;
+import com.example.bookstore.repository.BookQuery;
+import com.example.bookstore.service.BookImportService;
+import com.example.bookstore.service.BookLookupService;
 import com.example.bookstore.service.BookService;
+import com.example.bookstore.service.InsufficientStockException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.core.StreamWriteFeature;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.SequenceWriter;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.ZoneId;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/books")
 public class BookController {
     
+    private static final String TEXT_CSV_VALUE = "text/csv";
+    
     private final BookService bookService;
+    private final BookLookupService bookLookupService;
+    private final BookImportService bookImportService;
+    private final ObjectMapper objectMapper;
     
-    public BookController(BookService bookService) {
+    public BookController(BookService bookService, BookLookupService bookLookupService,
+                          BookImportService bookImportService, ObjectMapper objectMapper) {
         this.bookService = bookService;
+        this.bookLookupService = bookLookupService;
+        this.bookImportService = bookImportService;
+        this.objectMapper = objectMapper;
     }
     
+    // fields=title,price narrows list and search results to those properties plus id
     @GetMapping
-    public ResponseEntity<List<Book>> getAllBooks() {
-        List<Book> books = bookService.getAllBooks();
-        return ResponseEntity.ok(books);
+    public ResponseEntity<?> getAllBooks(@RequestParam(required = false) Integer limit,
+                                         @RequestParam(required = false) String after,
+                                         @RequestParam(required = false) String fields,
+                                         WebRequest request) {
+        if (catalogNotModified(request, Representations.variant(request, "books"))) {
+            return null;
+        }
+        try {
+            if (fields != null) {
+                BookProjection projection = BookProjection.parse(fields);
+                return limit == null && after == null
+                    ? ResponseEntity.ok(bookService.getAllBooks(projection))
+                    : ResponseEntity.ok(bookService.getBooksPage(after, limit, projection));
+            }
+            if (limit == null && after == null) {
+                List<Book> books = bookService.getAllBooks();
+                return ok(request, books, books);
+            }
+            BookPage<Book> page = bookService.getBooksPage(after, limit);
+            return ok(request, page, page.getItems());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    // Range filters with keyset paging, e.g. ?maxQuantity=5&sort=quantity or ?minPrice=10&maxPrice=20&sort=price&direction=desc
+    @GetMapping("/filter")
+    public ResponseEntity<?> filterBooks(@RequestParam(required = false) BigDecimal minPrice,
+                                         @RequestParam(required = false) BigDecimal maxPrice,
+                                         @RequestParam(required = false) Integer minQuantity,
+                                         @RequestParam(required = false) Integer maxQuantity,
+                                         @RequestParam(required = false) String author,
+                                         @RequestParam(defaultValue = "id") String sort,
+                                         @RequestParam(defaultValue = "asc") String direction,
+                                         @RequestParam(required = false) Integer limit,
+                                         @RequestParam(required = false) String after,
+                                         WebRequest request) {
+        if (catalogNotModified(request, Representations.variant(request, "books"))) {
+            return null;
+        }
+        try {
+            if (!direction.equalsIgnoreCase("asc") && !direction.equalsIgnoreCase("desc")) {
+                throw new IllegalArgumentException("direction must be asc or desc");
+            }
+            BookQuery query = new BookQuery(minPrice, maxPrice, minQuantity, maxQuantity, author,
+                BookQuery.Sort.parse(sort), direction.equalsIgnoreCase("desc"));
+            BookPage<Book> page = bookService.queryBooks(query, after, limit);
+            return ok(request, page, page.getItems());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    // Incremental sync: start without since, then keep passing back nextCursor
+    @GetMapping("/changes")
+    public ResponseEntity<?> getChanges(@RequestParam(required = false) String since,
+                                        @RequestParam(required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(bookService.getChanges(since, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllBooksAsNdjson(WebRequest request) {
+        if (catalogNotModified(request, "books-ndjson")) {
+            return null;
+        }
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .body(streamBooks(false));
+    }
+    
+    @GetMapping(params = "stream=true", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllBooksAsJsonArray(WebRequest request) {
+        if (catalogNotModified(request, "books-json")) {
+            return null;
+        }
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(streamBooks(true));
+    }
+    
+    // Rows are written as they are read from the cursor, so memory stays flat regardless of table size
+    private StreamingResponseBody streamBooks(boolean asArray) {
+        ObjectWriter writer = objectMapper.writer()
+            .without(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .withRootValueSeparator("\n");
+        return out -> {
+            try (SequenceWriter sequence = asArray ? writer.writeValuesAsArray(out) : writer.writeValues(out)) {
+                bookService.streamAllBooks(sequence::write);
+            }
+        };
     }
     
     @GetMapping("/{id}")
-    public ResponseEntity<Book> getBookById(@PathVariable Long id) {
-        return bookService.getBookById(id)
-            .map(ResponseEntity::ok)
+    public ResponseEntity<Book> getBookById(@PathVariable Long id, WebRequest request) {
+        if (isConditional(request)) {
+            Optional<BookVersion> version = bookLookupService.getBookVersion(id);
+            if (version.isPresent() && notModified(request, version.get(), Representations.variant(request, "book"))) {
+                return null;
+            }
+        }
+        return bookLookupService.getBookById(id)
+            .map(book -> ok(request, book, List.of(book)))
             .orElse(ResponseEntity.notFound().build());
     }
     
     @GetMapping("/isbn/{isbn}")
-    public ResponseEntity<Book> getBookByIsbn(@PathVariable String isbn) {
-        return bookService.getBookByIsbn(isbn)
-            .map(ResponseEntity::ok)
+    public ResponseEntity<Book> getBookByIsbn(@PathVariable String isbn, WebRequest request) {
+        if (isConditional(request)) {
+            Optional<BookVersion> version = bookLookupService.getBookVersionByIsbn(isbn);
+            if (version.isPresent() && notModified(request, version.get(), Representations.variant(request, "book"))) {
+                return null;
+            }
+        }
+        return bookLookupService.getBookByIsbn(isbn)
+            .map(book -> ok(request, book, List.of(book)))
             .orElse(ResponseEntity.notFound().build());
     }
     
+    // Only a request carrying a validator can be answered 304, so only those pay for the version probe
+    private static boolean isConditional(WebRequest request) {
+        return request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+               || request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null;
+    }
+    
+    private boolean catalogNotModified(WebRequest request, String variant) {
+        return isConditional(request) && notModified(request, bookService.getCatalogVersion(), variant);
+    }
+    
+    // Answers 304 from the version probe alone, before any book is loaded or serialized. Also sets the
+    // ETag and Last-Modified headers that the full response carries.
+    private static boolean notModified(WebRequest request, BookVersion version, String variant) {
+        return request.checkNotModified(version.etag(variant), version.lastModified());
+    }
+    
+    // A conditional request already has the probe's validators. A plain one gets Last-Modified from the newest
+    // updatedAt it returns: never later than the change that produced it, so revalidating against the probe
+    // cannot answer 304 for a book changed since.
+    private static <T> ResponseEntity<T> ok(WebRequest request, T body, List<Book> books) {
+        if (isConditional(request)) {
+            return ResponseEntity.ok(body);
+        }
+        return books.stream()
+            .map(Book::getUpdatedAt)
+            .filter(Objects::nonNull)
+            .max(Comparator.naturalOrder())
+            .map(updatedAt -> ResponseEntity.ok().lastModified(updatedAt.atZone(ZoneId.systemDefault())).body(body))
+            .orElseGet(() -> ResponseEntity.ok(body));
+    }
+    
+    // A POST only because the key list can exceed URL limits; it reads and changes nothing
+    @PostMapping("/batch-get")
+    public ResponseEntity<?> batchGetBooks(@RequestBody BatchGetRequest request) {
+        try {
+            return ResponseEntity.ok(bookService.getBooks(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("error", e.getMessage()));
+        }
+    }
+    
     @GetMapping("/author/{author}")
-    public ResponseEntity<List<Book>> getBooksByAuthor(@PathVariable String author) {
-        List<Book> books = bookService.getBooksByAuthor(author);
-        return ResponseEntity.ok(books);
+    public ResponseEntity<?> getBooksByAuthor(@PathVariable String author,
+                                              @RequestParam(required = false) String fields,
+                                              WebRequest request) {
+        if (catalogNotModified(request, Representations.variant(request, "books"))) {
+            return null;
+        }
+        try {
+            if (fields != null) {
+                return ResponseEntity.ok(bookService.getBooksByAuthor(author, BookProjection.parse(fields)));
+            }
+            List<Book> books = bookService.getBooksByAuthor(author);
+            return ok(request, books, books);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("error", e.getMessage()));
+        }
     }
     
     @GetMapping("/search")
-    public ResponseEntity<List<Book>> searchBooksByTitle(@RequestParam String title) {
-        List<Book> books = bookService.searchBooksByTitle(title);
-        return ResponseEntity.ok(books);
+    public ResponseEntity<?> searchBooksByTitle(@RequestParam String title,
+                                                @RequestParam(required = false) String fields,
+                                                WebRequest request) {
+        if (catalogNotModified(request, Representations.variant(request, "books"))) {
+            return null;
+        }
+        try {
+            if (fields != null) {
+                return ResponseEntity.ok(bookService.searchBooksByTitle(title, BookProjection.parse(fields)));
+            }
+            List<Book> books = bookService.searchBooksByTitle(title);
+            return ok(request, books, books);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @GetMapping(value = "/search", params = "q")
+    public ResponseEntity<?> searchBooks(@RequestParam String q,
+                                         @RequestParam(defaultValue = "0") int page,
+                                         @RequestParam(defaultValue = "20") int size,
+                                         @RequestParam(required = false) String fields,
+                                         WebRequest request) {
+        if (catalogNotModified(request, Representations.variant(request, "books"))) {
+            return null;
+        }
+        try {
+            if (fields != null) {
+                return ResponseEntity.ok(bookService.searchBooks(q, page, size, BookProjection.parse(fields)));
+            }
+            List<Book> books = bookService.searchBooks(q, page, size);
+            return ok(request, books, books);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("error", e.getMessage()));
+        }
     }
     
     @PostMapping
@@ -56,17 +287,89 @@ public class BookController {
         try {
             Book createdBook = bookService.createBook(book);
             return ResponseEntity.status(HttpStatus.CREATED).body(createdBook);
+        } catch (DuplicateKeyException e) {
+            // Another writer claimed the ISBN between the service's check and the write
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BulkImportResult> bulkImportJson(InputStream body) {
+        return ResponseEntity.ok(bookImportService.importJson(body));
+    }
+    
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<BulkImportResult> bulkImportNdjson(InputStream body) throws IOException {
+        return ResponseEntity.ok(bookImportService.importNdjson(body));
+    }
+    
+    @PostMapping(value = "/bulk", consumes = TEXT_CSV_VALUE)
+    public ResponseEntity<BulkImportResult> bulkImportCsv(InputStream body) throws IOException {
+        return ResponseEntity.ok(bookImportService.importCsv(body));
+    }
+    
+    @PostMapping("/{id}/stock/decrement")
+    public ResponseEntity<?> decrementStock(@PathVariable Long id, @RequestParam(defaultValue = "1") int quantity) {
+        try {
+            return ResponseEntity.ok(bookService.decrementStock(id, quantity));
+        } catch (InsufficientStockException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return stockError(id, e);
+        }
+    }
+    
+    @PostMapping("/{id}/stock/increment")
+    public ResponseEntity<?> incrementStock(@PathVariable Long id, @RequestParam(defaultValue = "1") int quantity) {
+        try {
+            return ResponseEntity.ok(bookService.incrementStock(id, quantity));
+        } catch (IllegalArgumentException e) {
+            return stockError(id, e);
+        }
+    }
+    
+    @PostMapping("/stock/decrement")
+    public ResponseEntity<?> decrementStock(@RequestBody List<StockAdjustment> adjustments) {
+        try {
+            return ResponseEntity.ok(bookService.decrementStock(adjustments));
+        } catch (InsufficientStockException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error", e.getMessage(), "bookId", e.getBookId()));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                 .body(Map.of("error", e.getMessage()));
         }
     }
     
+    @PostMapping("/stock/increment")
+    public ResponseEntity<?> incrementStock(@RequestBody List<StockAdjustment> adjustments) {
+        try {
+            return ResponseEntity.ok(bookService.incrementStock(adjustments));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    // Only looks the book up on the error path, to tell an unknown id from a bad quantity
+    private ResponseEntity<Map<String, String>> stockError(Long id, IllegalArgumentException e) {
+        HttpStatus status = bookService.bookExists(id) ? HttpStatus.BAD_REQUEST : HttpStatus.NOT_FOUND;
+        return ResponseEntity.status(status).body(Map.of("error", e.getMessage()));
+    }
+    
     @PutMapping("/{id}")
     public ResponseEntity<?> updateBook(@PathVariable Long id, @RequestBody Book bookDetails) {
         try {
             Book updatedBook = bookService.updateBook(id, bookDetails);
             return ResponseEntity.ok(updatedBook);
+        } catch (DuplicateKeyException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error", e.getMessage()));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                 .body(Map.of("error", e.getMessage()));
@@ -78,6 +381,9 @@ public class BookController {
         try {
             Book updatedBook = bookService.patchBook(id, bookDetails);
             return ResponseEntity.ok(updatedBook);
+        } catch (DuplicateKeyException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error", e.getMessage()));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                 .body(Map.of("error", e.getMessage()));
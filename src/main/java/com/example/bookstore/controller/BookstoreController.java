@@ -1,5 +1,11 @@
 package com.example.bookstore.controller;
 
+import com.example.bookstore.metrics.BookstoreMetrics;
+import com.example.bookstore.service.BookCache;
+import com.example.bookstore.service.BookReadCoalescer;
+import com.example.bookstore.service.BookWriteQueue;
+import com.example.bookstore.service.CatalogSnapshot;
+import com.example.bookstore.service.JdbcExecutor;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -9,6 +15,23 @@ import java.util.Map;
 @RestController
 public class BookstoreController {
 
+    private final BookCache bookCache;
+    private final BookWriteQueue writeQueue;
+    private final CatalogSnapshot catalogSnapshot;
+    private final BookReadCoalescer readCoalescer;
+    private final JdbcExecutor jdbcExecutor;
+    private final BookstoreMetrics metrics;
+
+    public BookstoreController(BookCache bookCache, BookWriteQueue writeQueue, CatalogSnapshot catalogSnapshot,
+                               BookReadCoalescer readCoalescer, JdbcExecutor jdbcExecutor, BookstoreMetrics metrics) {
+        this.bookCache = bookCache;
+        this.writeQueue = writeQueue;
+        this.catalogSnapshot = catalogSnapshot;
+        this.readCoalescer = readCoalescer;
+        this.jdbcExecutor = jdbcExecutor;
+        this.metrics = metrics;
+    }
+
     @GetMapping("/")
     public Map<String, Object> home() {
         Map<String, Object> response = new HashMap<>();
@@ -24,7 +47,36 @@ public class BookstoreController {
         response.put("status", "UP");
         return response;
     }
-}
 
+    // Cumulative since startup: request latency per route, SQL latency and rows per statement, pool checkout wait
+    @GetMapping("/metrics")
+    public Map<String, Object> metrics() {
+        return metrics.snapshot();
+    }
+
+    @GetMapping("/cache/stats")
+    public Map<String, Object> cacheStats() {
+        return bookCache.stats();
+    }
+
+    @GetMapping("/write-queue/stats")
+    public Map<String, Object> writeQueueStats() {
+        return writeQueue.stats();
+    }
 
+    @GetMapping("/catalog/stats")
+    public Map<String, Object> catalogStats() {
+        return catalogSnapshot.stats();
+    }
 
+    // Per read operation: queries run against the database, and calls that shared a query already in flight
+    @GetMapping("/coalescing/stats")
+    public Map<String, Object> coalescingStats() {
+        return readCoalescer.stats();
+    }
+
+    @GetMapping("/async/stats")
+    public Map<String, Object> asyncStats() {
+        return jdbcExecutor.stats();
+    }
+}
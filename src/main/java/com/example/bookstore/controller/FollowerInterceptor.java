@@ -0,0 +1,56 @@
+package com.example.bookstore.controller;
+
+import com.example.bookstore.service.ReplicationFollower;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+
+// On a follower: writes are redirected to the leader with 307, which keeps method and body, and reads are served
+// locally with the replication lag in X-Replication-Lag-Millis. A follower further behind than max-staleness, or
+// still waiting for its first snapshot, turns reads away with 503 so callers retry or go to the leader.
+public class FollowerInterceptor implements HandlerInterceptor {
+
+    public static final String LAG_HEADER = "X-Replication-Lag-Millis";
+    public static final String SEQ_HEADER = "X-Replication-Seq";
+
+    private final ReplicationFollower follower;
+    private final Duration maxStaleness;
+
+    public FollowerInterceptor(ReplicationFollower follower, Duration maxStaleness) {
+        this.follower = follower;
+        this.maxStaleness = maxStaleness;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        String method = request.getMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            String query = request.getQueryString();
+            response.setStatus(HttpStatus.TEMPORARY_REDIRECT.value());
+            response.setHeader(HttpHeaders.LOCATION,
+                follower.getLeaderUrl() + request.getRequestURI() + (query != null ? "?" + query : ""));
+            return false;
+        }
+        Optional<Duration> lag = follower.getLag();
+        if (lag.isEmpty() || lag.get().compareTo(maxStaleness) > 0) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            lag.ifPresent(value -> response.setHeader(LAG_HEADER, Long.toString(value.toMillis())));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getOutputStream().write("{\"error\":\"Replica is behind the leader beyond its staleness bound\"}"
+                .getBytes(StandardCharsets.UTF_8));
+            return false;
+        }
+        response.setHeader(LAG_HEADER, Long.toString(lag.get().toMillis()));
+        response.setHeader(SEQ_HEADER, Long.toString(follower.getAppliedSeq()));
+        return true;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.bookstore.controller;
+
+import com.example.bookstore.service.ReplicationFollower;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+// Every node reports its replication state; only the leader serves snapshots (see SnapshotController)
+@RestController
+@RequestMapping("/replication")
+public class ReplicationController {
+
+    private final ReplicationFollower follower;
+
+    public ReplicationController(ReplicationFollower follower) {
+        this.follower = follower;
+    }
+
+    @GetMapping("/status")
+    public Map<String, Object> getStatus() {
+        return follower.stats();
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.bookstore.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// The encodings the Jackson converters negotiate for API bodies, in converter order. ETags carry the one a request
+// will get, because a cache that stored the CBOR body must not revalidate it into a JSON request.
+final class Representations {
+
+    static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    private static final Map<String, MediaType> ENCODINGS = new LinkedHashMap<>();
+
+    static {
+        ENCODINGS.put("json", MediaType.APPLICATION_JSON);
+        ENCODINGS.put("smile", SMILE);
+        ENCODINGS.put("cbor", MediaType.APPLICATION_CBOR);
+    }
+
+    private Representations() {
+    }
+
+    // e.g. books-cbor; mirrors content negotiation: the most specific, highest-quality Accept type that a converter
+    // produces wins, and a missing or unparseable Accept header gets JSON
+    static String variant(WebRequest request, String resource) {
+        return resource + "-" + encoding(request.getHeader(HttpHeaders.ACCEPT));
+    }
+
+    private static String encoding(String accept) {
+        if (accept == null) {
+            return "json";
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException e) {
+            return "json";
+        }
+        MimeTypeUtils.sortBySpecificity(accepted);
+        for (MediaType type : accepted) {
+            if (type.getQualityValue() == 0) {
+                continue;
+            }
+            for (Map.Entry<String, MediaType> encoding : ENCODINGS.entrySet()) {
+                if (type.isCompatibleWith(encoding.getValue())) {
+                    return encoding.getKey();
+                }
+            }
+        }
+        return "json";
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.bookstore.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+// With sharding on, books live in the shard files and the primary database's books, book_changes and
+// author_stats tables no longer describe the catalog. Features that still read or write them answer 501
+// instead of serving those tables: the change feed, filters, fields= projections, author stats and bulk import.
+public class ShardedRequestInterceptor implements HandlerInterceptor {
+
+    private static final Set<String> PRIMARY_ONLY_PATHS = Set.of(
+        "/api/books/changes", "/api/books/filter", "/api/books/bulk", "/api/authors");
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        if (!readsPrimaryTables(request)) {
+            return true;
+        }
+        response.setStatus(HttpStatus.NOT_IMPLEMENTED.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getOutputStream().write("{\"error\":\"Not available while the catalog is sharded\"}"
+            .getBytes(StandardCharsets.UTF_8));
+        return false;
+    }
+
+    static boolean readsPrimaryTables(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return PRIMARY_ONLY_PATHS.contains(path)
+            || path.startsWith("/api/authors/")
+            || request.getParameter("fields") != null;
+    }
+}
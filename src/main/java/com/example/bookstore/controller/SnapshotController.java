@@ -0,0 +1,69 @@
+package com.example.bookstore.controller;
+
+import com.example.bookstore.repository.DatabaseBackup;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Semaphore;
+
+// Followers bootstrap from /replication/snapshot and then poll /api/books/changes. Each snapshot is a full backup
+// into a temp file, so it is only registered on the leader and only one backup runs at a time; a request arriving
+// during another's backup answers 503 with Retry-After, which the follower's retry loop absorbs.
+@RestController
+@RequestMapping("/replication")
+@ConditionalOnProperty(name = "bookstore.replication.role", havingValue = "leader")
+public class SnapshotController {
+
+    private static final MediaType SQLITE = MediaType.parseMediaType("application/vnd.sqlite3");
+    static final String RETRY_AFTER_SECONDS = "5";
+
+    private final DatabaseBackup databaseBackup;
+    private final Semaphore backups = new Semaphore(1);
+
+    public SnapshotController(DatabaseBackup databaseBackup) {
+        this.databaseBackup = databaseBackup;
+    }
+
+    // The backup is taken before the response starts, so a failure is still a clean 500
+    @GetMapping("/snapshot")
+    public ResponseEntity<StreamingResponseBody> getSnapshot() throws IOException {
+        if (!backups.tryAcquire()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .build();
+        }
+        Path file;
+        try {
+            file = Files.createTempFile("bookstore-backup-", ".db");
+            try {
+                databaseBackup.backupTo(file);
+            } catch (RuntimeException e) {
+                Files.deleteIfExists(file);
+                throw e;
+            }
+        } finally {
+            backups.release();
+        }
+        StreamingResponseBody body = out -> {
+            try {
+                Files.copy(file, out);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        };
+        return ResponseEntity.ok()
+            .contentType(SQLITE)
+            .contentLength(Files.size(file))
+            .body(body);
+    }
+}
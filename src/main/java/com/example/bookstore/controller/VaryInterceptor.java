@@ -0,0 +1,20 @@
+package com.example.bookstore.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+// API bodies are negotiated on Accept (JSON, CBOR or Smile) and on Accept-Encoding (gzip), so shared caches must key
+// on both. Set before the handler runs, so 304s from the version probes carry it too. Tomcat's compression keeps an
+// existing Vary and only adds Accept-Encoding when it is missing.
+public class VaryInterceptor implements HandlerInterceptor {
+
+    static final String VARY = "Accept, Accept-Encoding";
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        response.setHeader(HttpHeaders.VARY, VARY);
+        return true;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.bookstore.metrics;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+@Component
+public class BookstoreMetrics {
+
+    // Statements are keyed by their text; IN lists of varying length would otherwise grow the map without bound
+    static final int MAX_STATEMENTS = 500;
+    static final String OTHER_STATEMENTS = "(other)";
+    static final int MAX_SQL_STRINGS = 4 * MAX_STATEMENTS;
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final ConcurrentMap<String, LatencyHistogram> requests = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LatencyHistogram> statements = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LatencyHistogram> statementsBySql = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LatencyHistogram> poolWaits = new ConcurrentHashMap<>();
+
+    public void recordRequest(String route, long nanos) {
+        requests.computeIfAbsent(route, key -> new LatencyHistogram()).record(nanos);
+    }
+
+    public void recordStatement(String sql, long nanos, long rows) {
+        statement(sql).record(nanos, rows);
+    }
+
+    // The histogram for a statement's text. Normalizing whitespace costs a regex pass, so each distinct SQL string
+    // is resolved once and then found by a plain lookup; past MAX_SQL_STRINGS new strings are normalized per call.
+    LatencyHistogram statement(String sql) {
+        LatencyHistogram histogram = statementsBySql.get(sql);
+        if (histogram != null) {
+            return histogram;
+        }
+        String key = WHITESPACE.matcher(sql).replaceAll(" ").trim();
+        histogram = statements.get(key);
+        if (histogram == null) {
+            if (statements.size() >= MAX_STATEMENTS) {
+                key = OTHER_STATEMENTS;
+            }
+            histogram = statements.computeIfAbsent(key, k -> new LatencyHistogram());
+        }
+        if (statementsBySql.size() < MAX_SQL_STRINGS) {
+            statementsBySql.putIfAbsent(sql, histogram);
+        }
+        return histogram;
+    }
+
+    public void recordPoolWait(String pool, long nanos) {
+        poolWaits.computeIfAbsent(pool, key -> new LatencyHistogram()).record(nanos);
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new TreeMap<>();
+        snapshot.put("requests", describe(requests, false));
+        snapshot.put("statements", describe(statements, true));
+        snapshot.put("poolWaits", describe(poolWaits, false));
+        return snapshot;
+    }
+
+    private static Map<String, Object> describe(Map<String, LatencyHistogram> histograms, boolean includeRows) {
+        Map<String, Object> descriptions = new TreeMap<>();
+        histograms.forEach((name, histogram) -> descriptions.put(name, histogram.describe(includeRows)));
+        return descriptions;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.bookstore.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Recording is wait-free so it can stay on in production; readers fold the interval into a running total
+class LatencyHistogram {
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final Recorder recorder = new Recorder(3);
+    private final Histogram total = new Histogram(3);
+    private final LongAdder rows = new LongAdder();
+    private Histogram interval;
+
+    void record(long nanos) {
+        recorder.recordValue(Math.max(nanos, 0));
+    }
+
+    void record(long nanos, long rowCount) {
+        record(nanos);
+        rows.add(rowCount);
+    }
+
+    synchronized Map<String, Object> describe(boolean includeRows) {
+        interval = recorder.getIntervalHistogram(interval);
+        total.add(interval);
+
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("count", total.getTotalCount());
+        if (includeRows) {
+            description.put("rows", rows.sum());
+        }
+        description.put("p50Ms", total.getValueAtPercentile(50) / NANOS_PER_MILLI);
+        description.put("p99Ms", total.getValueAtPercentile(99) / NANOS_PER_MILLI);
+        description.put("p999Ms", total.getValueAtPercentile(99.9) / NANOS_PER_MILLI);
+        description.put("maxMs", total.getMaxValue() / NANOS_PER_MILLI);
+        return description;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.bookstore.metrics;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+// Keyed by method, route pattern and handler, so e.g. the NDJSON and array forms of GET /api/books stay apart
+public class RequestTimingInterceptor implements HandlerInterceptor {
+
+    private static final String START_ATTRIBUTE = RequestTimingInterceptor.class.getName() + ".start";
+
+    private final BookstoreMetrics metrics;
+
+    public RequestTimingInterceptor(BookstoreMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // Async dispatches of a streaming response pass through here again; keep the original start
+        if (request.getAttribute(START_ATTRIBUTE) == null) {
+            request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        }
+        return true;
+    }
+
+    // Not called for the initial dispatch of an async request, only once its response is complete
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object start = request.getAttribute(START_ATTRIBUTE);
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (!(start instanceof Long startNanos) || pattern == null) {
+            return;
+        }
+        String route = request.getMethod() + " " + pattern;
+        if (handler instanceof HandlerMethod handlerMethod) {
+            route += " (" + handlerMethod.getMethod().getName() + ")";
+        }
+        metrics.recordRequest(route, System.nanoTime() - startNanos);
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.bookstore.metrics;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// Records connection checkout as pool wait, and each statement from execute until its rows have been read, since
+// SQLite does most of a query's work while rows are being stepped through. Rows are those read or written.
+public class TimedDataSource extends DelegatingDataSource implements Closeable {
+
+    private final String poolName;
+    private final BookstoreMetrics metrics;
+
+    public TimedDataSource(DataSource target, String poolName, BookstoreMetrics metrics) {
+        super(target);
+        this.poolName = poolName;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = super.getConnection();
+        metrics.recordPoolWait(poolName, System.nanoTime() - start);
+        return proxy(Connection.class, new ConnectionHandler(connection));
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = super.getConnection(username, password);
+        metrics.recordPoolWait(poolName, System.nanoTime() - start);
+        return proxy(Connection.class, new ConnectionHandler(connection));
+    }
+
+    // Lets the pool's destroy method still run when this wrapper is the registered bean
+    @Override
+    public void close() throws IOException {
+        if (obtainTargetDataSource() instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(TimedDataSource.class.getClassLoader(), new Class<?>[] {type}, handler));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+
+        ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = TimedDataSource.invoke(target, method, args);
+            if (result instanceof PreparedStatement statement && method.getName().equals("prepareStatement")) {
+                return proxy(PreparedStatement.class, new StatementHandler(statement, (String) args[0]));
+            }
+            if (result instanceof Statement statement && method.getName().equals("createStatement")) {
+                return proxy(Statement.class, new StatementHandler(statement, null));
+            }
+            return result;
+        }
+    }
+
+    // A query is timed from execute until its ResultSet is exhausted or closed, or failing that until its statement
+    // is closed or executed again. The ResultSet is a plain delegate rather than a proxy, which would cost a
+    // reflective call per next() and per column. Statement text resolves to its histogram once per prepared statement.
+    private final class StatementHandler implements InvocationHandler {
+
+        private final Statement target;
+        private final LatencyHistogram preparedHistogram;
+        private TimedResultSet resultSet;
+
+        StatementHandler(Statement target, String sql) {
+            this.target = target;
+            this.preparedHistogram = sql != null ? metrics.statement(sql) : null;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("close")) {
+                finishQuery();
+                return TimedDataSource.invoke(target, method, args);
+            }
+            if (!name.startsWith("execute")) {
+                return TimedDataSource.invoke(target, method, args);
+            }
+            finishQuery();
+            LatencyHistogram histogram = args != null && args.length > 0 && args[0] instanceof String text
+                ? metrics.statement(text)
+                : preparedHistogram != null ? preparedHistogram : metrics.statement("(unknown)");
+            long start = System.nanoTime();
+            Object result = TimedDataSource.invoke(target, method, args);
+            if (result instanceof ResultSet rows) {
+                resultSet = new TimedResultSet(rows, histogram, start);
+                return resultSet;
+            } else {
+                histogram.record(System.nanoTime() - start, affectedRows(result));
+            }
+            return result;
+        }
+
+        private void finishQuery() {
+            if (resultSet != null) {
+                resultSet.finish();
+                resultSet = null;
+            }
+        }
+
+        private long affectedRows(Object result) {
+            if (result instanceof Number count) {
+                return Math.max(count.longValue(), 0);
+            }
+            long total = 0;
+            if (result instanceof int[] counts) {
+                for (int count : counts) {
+                    total += Math.max(count, 0);
+                }
+            } else if (result instanceof long[] counts) {
+                for (long count : counts) {
+                    total += Math.max(count, 0);
+                }
+            }
+            return total;
+        }
+    }
+}
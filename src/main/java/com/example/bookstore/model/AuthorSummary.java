@@ -0,0 +1,42 @@
+package com.example.bookstore.model;
+
+import java.math.BigDecimal;
+
+public class AuthorSummary {
+
+    private final String author;
+    private final long bookCount;
+    private final long totalQuantity;
+    private final BigDecimal minPrice;
+    private final BigDecimal maxPrice;
+
+    public AuthorSummary(String author, long bookCount, long totalQuantity, BigDecimal minPrice, BigDecimal maxPrice) {
+        this.author = author;
+        this.bookCount = bookCount;
+        this.totalQuantity = totalQuantity;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+    }
+
+    // Spelled as on the first book stored for the author; lookups ignore case
+    public String getAuthor() {
+        return author;
+    }
+
+    public long getBookCount() {
+        return bookCount;
+    }
+
+    public long getTotalQuantity() {
+        return totalQuantity;
+    }
+
+    // Price bounds are null when none of the author's books has a price
+    public BigDecimal getMinPrice() {
+        return minPrice;
+    }
+
+    public BigDecimal getMaxPrice() {
+        return maxPrice;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.bookstore.model;
+
+import java.util.List;
+
+public class BatchGetRequest {
+
+    private List<Long> ids;
+    private List<String> isbns;
+
+    public BatchGetRequest() {
+    }
+
+    public BatchGetRequest(List<Long> ids, List<String> isbns) {
+        this.ids = ids;
+        this.isbns = isbns;
+    }
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+
+    public List<String> getIsbns() {
+        return isbns;
+    }
+
+    public void setIsbns(List<String> isbns) {
+        this.isbns = isbns;
+    }
+}
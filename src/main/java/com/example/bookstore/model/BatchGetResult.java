@@ -0,0 +1,47 @@
+package com.example.bookstore.model;
+
+import java.util.List;
+
+// Lookups in the order they were requested, one per requested key including duplicates
+public class BatchGetResult {
+
+    private final List<Lookup<Long>> ids;
+    private final List<Lookup<String>> isbns;
+
+    public BatchGetResult(List<Lookup<Long>> ids, List<Lookup<String>> isbns) {
+        this.ids = ids;
+        this.isbns = isbns;
+    }
+
+    public List<Lookup<Long>> getIds() {
+        return ids;
+    }
+
+    public List<Lookup<String>> getIsbns() {
+        return isbns;
+    }
+
+    public static class Lookup<K> {
+
+        private final K key;
+        private final Book book;
+
+        public Lookup(K key, Book book) {
+            this.key = key;
+            this.book = book;
+        }
+
+        public K getKey() {
+            return key;
+        }
+
+        public boolean isFound() {
+            return book != null;
+        }
+
+        // Null when no book matches the key
+        public Book getBook() {
+            return book;
+        }
+    }
+}
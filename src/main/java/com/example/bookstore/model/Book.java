@@ -2,11 +2,13 @@ package com.example.bookstore.model;
 
 import org.springframework.data.annotation.Id;
 import org.springframework.data.relational.core.mapping.Table;
+import tools.jackson.databind.annotation.JsonSerialize;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Table("books")
+@JsonSerialize(using = BookSerializer.class)
 public class Book {
     
     @Id
@@ -32,6 +34,17 @@ public class Book {
         this.updatedAt = LocalDateTime.now();
     }
 
+    public Book(Book other) {
+        this.id = other.id;
+        this.title = other.title;
+        this.author = other.author;
+        this.isbn = other.isbn;
+        this.price = other.price;
+        this.quantity = other.quantity;
+        this.createdAt = other.createdAt;
+        this.updatedAt = other.updatedAt;
+    }
+
     public Long getId() {
         return id;
     }
@@ -0,0 +1,33 @@
+package com.example.bookstore.model;
+
+public class BookChange {
+
+    private final long seq;
+    private final Long bookId;
+    private final boolean deleted;
+    private final Book book;
+
+    public BookChange(long seq, Long bookId, boolean deleted, Book book) {
+        this.seq = seq;
+        this.bookId = bookId;
+        this.deleted = deleted;
+        this.book = book;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    // Current state of the book, or null for a deletion tombstone
+    public Book getBook() {
+        return book;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.bookstore.model;
+
+import java.util.List;
+
+public class BookChangePage {
+
+    private final List<BookChange> changes;
+    private final String nextCursor;
+    private final boolean hasMore;
+
+    public BookChangePage(List<BookChange> changes, String nextCursor, boolean hasMore) {
+        this.changes = changes;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    public List<BookChange> getChanges() {
+        return changes;
+    }
+
+    // Always present: pass it back as since= on the next poll, even when this page was empty
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.bookstore.model;
+
+import java.util.List;
+
+// Items are books, or projected rows when the request selects fields
+public class BookPage<T> {
+
+    private final List<T> items;
+    private final String nextCursor;
+
+    public BookPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    // Opaque token for the next page, or null when this is the last page
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
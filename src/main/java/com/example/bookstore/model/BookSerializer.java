@@ -0,0 +1,127 @@
+package com.example.bookstore.model;
+
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.SerializableString;
+import tools.jackson.core.io.SerializedString;
+import tools.jackson.databind.SerializationContext;
+import tools.jackson.databind.cfg.DateTimeFeature;
+import tools.jackson.databind.ser.std.StdSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Writes books without bean introspection: property names are encoded once and timestamps are
+// formatted straight into a char buffer. Output matches the reflective serializer property for property.
+public class BookSerializer extends StdSerializer<Book> {
+
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString TITLE = new SerializedString("title");
+    private static final SerializableString AUTHOR = new SerializedString("author");
+    private static final SerializableString ISBN = new SerializedString("isbn");
+    private static final SerializableString PRICE = new SerializedString("price");
+    private static final SerializableString QUANTITY = new SerializedString("quantity");
+    private static final SerializableString CREATED_AT = new SerializedString("createdAt");
+    private static final SerializableString UPDATED_AT = new SerializedString("updatedAt");
+
+    // yyyy-MM-ddTHH:mm:ss.nnnnnnnnn
+    private static final int MAX_TIMESTAMP_LENGTH = 29;
+
+    public BookSerializer() {
+        super(Book.class);
+    }
+
+    @Override
+    public void serialize(Book book, JsonGenerator g, SerializationContext ctxt) {
+        g.writeStartObject(book);
+        // Alphabetical, as Jackson 3 orders bean properties by default (MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+        g.writeName(AUTHOR);
+        g.writeString(book.getAuthor());
+        g.writeName(CREATED_AT);
+        writeTimestamp(g, ctxt, book.getCreatedAt());
+        g.writeName(ID);
+        writeLong(g, book.getId());
+        g.writeName(ISBN);
+        g.writeString(book.getIsbn());
+        g.writeName(PRICE);
+        writeDecimal(g, book.getPrice());
+        g.writeName(QUANTITY);
+        writeInteger(g, book.getQuantity());
+        g.writeName(TITLE);
+        g.writeString(book.getTitle());
+        g.writeName(UPDATED_AT);
+        writeTimestamp(g, ctxt, book.getUpdatedAt());
+        g.writeEndObject();
+    }
+
+    private static void writeLong(JsonGenerator g, Long value) {
+        if (value == null) {
+            g.writeNull();
+        } else {
+            g.writeNumber(value.longValue());
+        }
+    }
+
+    private static void writeInteger(JsonGenerator g, Integer value) {
+        if (value == null) {
+            g.writeNull();
+        } else {
+            g.writeNumber(value.intValue());
+        }
+    }
+
+    private static void writeDecimal(JsonGenerator g, BigDecimal value) {
+        if (value == null) {
+            g.writeNull();
+        } else {
+            g.writeNumber(value);
+        }
+    }
+
+    private static void writeTimestamp(JsonGenerator g, SerializationContext ctxt, LocalDateTime value) {
+        if (value == null) {
+            g.writeNull();
+        } else if (value.getYear() < 0 || value.getYear() > 9999
+                   || ctxt.isEnabled(DateTimeFeature.WRITE_DATES_AS_TIMESTAMPS)) {
+            // Signed years and numeric timestamps are rare; leave them to the standard serializer
+            ctxt.writeValue(g, value);
+        } else {
+            char[] buffer = new char[MAX_TIMESTAMP_LENGTH];
+            g.writeString(buffer, 0, formatIsoLocalDateTime(value, buffer));
+        }
+    }
+
+    // Same text as DateTimeFormatter.ISO_LOCAL_DATE_TIME for years 0-9999: seconds always present and
+    // the fraction, when non-zero, trimmed of trailing zeros
+    private static int formatIsoLocalDateTime(LocalDateTime value, char[] buffer) {
+        int pos = writeDigits(buffer, 0, value.getYear(), 4);
+        buffer[pos++] = '-';
+        pos = writeDigits(buffer, pos, value.getMonthValue(), 2);
+        buffer[pos++] = '-';
+        pos = writeDigits(buffer, pos, value.getDayOfMonth(), 2);
+        buffer[pos++] = 'T';
+        pos = writeDigits(buffer, pos, value.getHour(), 2);
+        buffer[pos++] = ':';
+        pos = writeDigits(buffer, pos, value.getMinute(), 2);
+        buffer[pos++] = ':';
+        pos = writeDigits(buffer, pos, value.getSecond(), 2);
+        int nano = value.getNano();
+        if (nano != 0) {
+            int digits = 9;
+            while (nano % 10 == 0) {
+                nano /= 10;
+                digits--;
+            }
+            buffer[pos++] = '.';
+            pos = writeDigits(buffer, pos, nano, digits);
+        }
+        return pos;
+    }
+
+    private static int writeDigits(char[] buffer, int pos, int value, int width) {
+        for (int i = pos + width - 1; i >= pos; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return pos + width;
+    }
+}
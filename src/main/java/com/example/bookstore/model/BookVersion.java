@@ -0,0 +1,19 @@
+package com.example.bookstore.model;
+
+import java.time.Instant;
+
+// Change-log position of a book, or of the whole catalog; changedAt is null when nothing has changed yet
+public record BookVersion(long seq, Instant changedAt) {
+
+    public static final BookVersion EMPTY = new BookVersion(0, null);
+
+    // Weak validator, since Tomcat only gzips responses whose ETag is weak. The variant keeps different resource
+    // shapes and body encodings apart, e.g. books-json and books-cbor.
+    public String etag(String variant) {
+        return "W/\"" + variant + "-" + seq + "\"";
+    }
+
+    public long lastModified() {
+        return changedAt != null ? changedAt.toEpochMilli() : -1;
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.bookstore.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BulkImportResult {
+
+    // Keeps the response bounded when a whole feed is bad
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    private long received;
+    private long inserted;
+    private long failed;
+    private boolean errorsTruncated;
+    private final List<RowError> errors = new ArrayList<>();
+
+    public void recordReceived() {
+        received++;
+    }
+
+    public void recordInserted(int count) {
+        inserted += count;
+    }
+
+    public void recordError(long row, String isbn, String message) {
+        failed++;
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(new RowError(row, isbn, message));
+        } else {
+            errorsTruncated = true;
+        }
+    }
+
+    public long getReceived() {
+        return received;
+    }
+
+    public long getInserted() {
+        return inserted;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public boolean isErrorsTruncated() {
+        return errorsTruncated;
+    }
+
+    public List<RowError> getErrors() {
+        return errors;
+    }
+
+    public static class RowError {
+
+        private final long row;
+        private final String isbn;
+        private final String message;
+
+        public RowError(long row, String isbn, String message) {
+            this.row = row;
+            this.isbn = isbn;
+            this.message = message;
+        }
+
+        // 1-based position of the record in the submitted feed
+        public long getRow() {
+            return row;
+        }
+
+        public String getIsbn() {
+            return isbn;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.bookstore.model;
+
+// One line of a cart: how many copies of a book to take out of or put back into stock
+public class StockAdjustment {
+
+    private Long bookId;
+    private Integer quantity;
+
+    public StockAdjustment() {
+    }
+
+    public StockAdjustment(Long bookId, Integer quantity) {
+        this.bookId = bookId;
+        this.quantity = quantity;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(Long bookId) {
+        this.bookId = bookId;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.bookstore.repository;
+
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// A subset of book columns, selected in SQL and returned as a map keyed by the Book JSON property names
+public final class BookProjection {
+
+    private static final Map<String, Column> COLUMNS = new LinkedHashMap<>();
+
+    static {
+        COLUMNS.put("id", new Column("id", ResultSet::getLong));
+        COLUMNS.put("title", new Column("title", ResultSet::getString));
+        COLUMNS.put("author", new Column("author", ResultSet::getString));
+        COLUMNS.put("isbn", new Column("isbn", ResultSet::getString));
+        COLUMNS.put("price", new Column("price", ResultSet::getBigDecimal));
+        COLUMNS.put("quantity", new Column("quantity", (rs, column) -> rs.getObject(column, Integer.class)));
+        COLUMNS.put("createdAt", new Column("created_at", BookProjection::getTimestamp));
+        COLUMNS.put("updatedAt", new Column("updated_at", BookProjection::getTimestamp));
+    }
+
+    private final List<String> fields;
+    private final String selectList;
+
+    private BookProjection(List<String> fields) {
+        this.fields = fields;
+        this.selectList = fields.stream()
+            .map(field -> "books." + COLUMNS.get(field).name())
+            .collect(Collectors.joining(", "));
+    }
+
+    // Parses a comma-separated list such as "title,price"; id is always included so results can be paged and linked
+    public static BookProjection parse(String fields) {
+        List<String> selected = new ArrayList<>();
+        selected.add("id");
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty() || selected.contains(name)) {
+                continue;
+            }
+            if (!COLUMNS.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown field: " + name + "; expected any of " + COLUMNS.keySet());
+            }
+            selected.add(name);
+        }
+        return new BookProjection(List.copyOf(selected));
+    }
+
+    public List<String> getFields() {
+        return fields;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof BookProjection other && fields.equals(other.fields);
+    }
+
+    @Override
+    public int hashCode() {
+        return fields.hashCode();
+    }
+
+    String selectList() {
+        return selectList;
+    }
+
+    RowMapper<Map<String, Object>> rowMapper() {
+        return (rs, rowNum) -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (String field : fields) {
+                Column column = COLUMNS.get(field);
+                row.put(field, column.reader().read(rs, column.name()));
+            }
+            return row;
+        };
+    }
+
+    // Rows written by the application store ISO text, rows from the column default use a space separator
+    static LocalDateTime getTimestamp(ResultSet rs, String column) throws SQLException {
+        String value = rs.getString(column);
+        return value != null ? LocalDateTime.parse(value.replace(' ', 'T')) : null;
+    }
+
+    @FunctionalInterface
+    private interface ColumnReader {
+        Object read(ResultSet rs, String column) throws SQLException;
+    }
+
+    private record Column(String name, ColumnReader reader) {
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.bookstore.repository;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Map;
+
+// Projected counterparts of the BookRepository list queries; each mirrors its WHERE/ORDER BY so the same indexes apply
+@Repository
+public class BookProjectionRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public BookProjectionRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<Map<String, Object>> findAll(BookProjection projection) {
+        return query(projection, "FROM books", new MapSqlParameterSource());
+    }
+
+    public List<Map<String, Object>> findPageAfter(BookProjection projection, long afterId, int limit) {
+        return query(projection, "FROM books WHERE id > :afterId ORDER BY id LIMIT :limit",
+            new MapSqlParameterSource().addValue("afterId", afterId).addValue("limit", limit));
+    }
+
+    public List<Map<String, Object>> findByAuthor(BookProjection projection, String author) {
+        return query(projection, "FROM books WHERE author = :author COLLATE NOCASE",
+            new MapSqlParameterSource("author", author));
+    }
+
+    public List<Map<String, Object>> findByTitleContaining(BookProjection projection, String title) {
+        return query(projection, "FROM books WHERE title LIKE '%' || :title || '%'",
+            new MapSqlParameterSource("title", title));
+    }
+
+    public List<Map<String, Object>> searchFullText(BookProjection projection, String match, int limit, int offset) {
+        return query(projection, "FROM books_fts JOIN books ON books.id = books_fts.rowid " +
+                "WHERE books_fts MATCH :match ORDER BY bm25(books_fts) LIMIT :limit OFFSET :offset",
+            new MapSqlParameterSource().addValue("match", match).addValue("limit", limit).addValue("offset", offset));
+    }
+
+    public List<Map<String, Object>> findByIsbnRange(BookProjection projection, String from, String to,
+                                                     int limit, int offset) {
+        return query(projection, "FROM books WHERE isbn >= :from AND isbn < :to ORDER BY isbn LIMIT :limit OFFSET :offset",
+            new MapSqlParameterSource().addValue("from", from).addValue("to", to)
+                .addValue("limit", limit).addValue("offset", offset));
+    }
+
+    private List<Map<String, Object>> query(BookProjection projection, String from, MapSqlParameterSource parameters) {
+        return jdbcTemplate.query("SELECT " + projection.selectList() + " " + from, parameters, projection.rowMapper());
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.bookstore.repository;
+
+import com.example.bookstore.model.Book;
+
+import java.math.BigDecimal;
+import java.util.Locale;
+
+// Filters and ordering for GET /api/books/filter; null bounds and a null author leave that filter off
+public record BookQuery(BigDecimal minPrice, BigDecimal maxPrice,
+                        Integer minQuantity, Integer maxQuantity,
+                        String author, Sort sort, boolean descending) {
+
+    public BookQuery {
+        if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
+            throw new IllegalArgumentException("minPrice must not exceed maxPrice");
+        }
+        if (minQuantity != null && maxQuantity != null && minQuantity > maxQuantity) {
+            throw new IllegalArgumentException("minQuantity must not exceed maxQuantity");
+        }
+        if (sort == null) {
+            sort = Sort.ID;
+        }
+    }
+
+    // Each key is served in order by its index (idx_books_price, idx_books_quantity, or the rowid), whose entries
+    // SQLite keeps sorted by (key, id), so the id tie-break needs no extra sort
+    public enum Sort {
+        ID("id"),
+        PRICE("price"),
+        QUANTITY("quantity");
+
+        private final String column;
+
+        Sort(String column) {
+            this.column = column;
+        }
+
+        public static Sort parse(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown sort: " + value + "; expected id, price or quantity");
+            }
+        }
+
+        String column() {
+            return column;
+        }
+
+        // Keyset position as stored in a cursor, and parsed back to the column's type for binding
+        public String keyOf(Book book) {
+            return switch (this) {
+                case ID -> book.getId().toString();
+                case PRICE -> book.getPrice().toPlainString();
+                case QUANTITY -> book.getQuantity().toString();
+            };
+        }
+
+        public Object parseKey(String value) {
+            return switch (this) {
+                case ID -> Long.parseLong(value);
+                case PRICE -> new BigDecimal(value);
+                case QUANTITY -> Integer.parseInt(value);
+            };
+        }
+    }
+}
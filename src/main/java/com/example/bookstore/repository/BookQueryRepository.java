@@ -0,0 +1,98 @@
+package com.example.bookstore.repository;
+
+import com.example.bookstore.model.Book;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Filtered, sorted keyset pages over books. Only the filters a query sets reach the WHERE clause, so SQLite
+// plans each combination against idx_books_price, idx_books_quantity or idx_books_author.
+@Repository
+public class BookQueryRepository {
+
+    // Also maps rows for ShardedBookRepository, whose shards have the same books table
+    static final RowMapper<Book> BOOK_MAPPER = (rs, rowNum) -> {
+        Book book = new Book();
+        book.setId(rs.getLong("id"));
+        book.setTitle(rs.getString("title"));
+        book.setAuthor(rs.getString("author"));
+        book.setIsbn(rs.getString("isbn"));
+        book.setPrice(rs.getBigDecimal("price"));
+        book.setQuantity(rs.getObject("quantity", Integer.class));
+        book.setCreatedAt(BookProjection.getTimestamp(rs, "created_at"));
+        book.setUpdatedAt(BookProjection.getTimestamp(rs, "updated_at"));
+        return book;
+    };
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public BookQueryRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // afterValue and afterId are the sort key and id of the last row of the previous page, or null for the first page
+    public List<Book> find(BookQuery query, Object afterValue, Long afterId, int limit) {
+        Statement statement = statement(query, afterValue, afterId, limit);
+        return jdbcTemplate.query(statement.sql(), statement.parameters(), BOOK_MAPPER);
+    }
+
+    static Statement statement(BookQuery query, Object afterValue, Long afterId, int limit) {
+        List<String> conditions = new ArrayList<>();
+        MapSqlParameterSource parameters = new MapSqlParameterSource("limit", limit);
+        if (query.minPrice() != null) {
+            conditions.add("price >= :minPrice");
+            parameters.addValue("minPrice", query.minPrice());
+        }
+        if (query.maxPrice() != null) {
+            conditions.add("price <= :maxPrice");
+            parameters.addValue("maxPrice", query.maxPrice());
+        }
+        if (query.minQuantity() != null) {
+            conditions.add("quantity >= :minQuantity");
+            parameters.addValue("minQuantity", query.minQuantity());
+        }
+        if (query.maxQuantity() != null) {
+            conditions.add("quantity <= :maxQuantity");
+            parameters.addValue("maxQuantity", query.maxQuantity());
+        }
+        if (query.author() != null) {
+            conditions.add("author = :author COLLATE NOCASE");
+            parameters.addValue("author", query.author());
+        }
+
+        String column = query.sort().column();
+        String direction = query.descending() ? "DESC" : "ASC";
+        String comparison = query.descending() ? "<" : ">";
+        if (query.sort() == BookQuery.Sort.ID) {
+            if (afterId != null) {
+                conditions.add("id " + comparison + " :afterId");
+                parameters.addValue("afterId", afterId);
+            }
+        } else {
+            // NULL keys have no place in the keyset order, so books without one are left out
+            conditions.add(column + " IS NOT NULL");
+            if (afterId != null) {
+                conditions.add("(" + column + ", id) " + comparison + " (:afterValue, :afterId)");
+                parameters.addValue("afterValue", afterValue).addValue("afterId", afterId);
+            }
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT * FROM books");
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        sql.append(" ORDER BY ");
+        if (query.sort() != BookQuery.Sort.ID) {
+            sql.append(column).append(' ').append(direction).append(", ");
+        }
+        sql.append("id ").append(direction).append(" LIMIT :limit");
+        return new Statement(sql.toString(), parameters);
+    }
+
+    record Statement(String sql, MapSqlParameterSource parameters) {
+    }
+}
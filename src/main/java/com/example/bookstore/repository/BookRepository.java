@@ -6,25 +6,57 @@ import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface BookRepository extends CrudRepository<Book, Long> {
+public interface BookRepository extends CrudRepository<Book, Long>, BookTableOperations {
     
     List<Book> findAll();
     
+    @Query("SELECT * FROM books WHERE id > :afterId ORDER BY id LIMIT :limit")
+    List<Book> findPageAfter(@Param("afterId") long afterId, @Param("limit") int limit);
+    
+    // Forward-only cursor over the whole table; callers must close the stream
+    @Query("SELECT * FROM books ORDER BY id")
+    Stream<Book> streamAll();
+    
     Optional<Book> findById(Long id);
     
     @Query("SELECT * FROM books WHERE isbn = :isbn")
     Optional<Book> findByIsbn(@Param("isbn") String isbn);
     
-    @Query("SELECT * FROM books WHERE author = :author")
+    @Query("SELECT * FROM books WHERE isbn IN (:isbns)")
+    List<Book> findByIsbnIn(@Param("isbns") Collection<String> isbns);
+    
+    // Case-insensitive; the COLLATE must match idx_books_author for the index to be used
+    @Query("SELECT * FROM books WHERE author = :author COLLATE NOCASE")
     List<Book> findByAuthor(@Param("author") String author);
     
     @Query("SELECT * FROM books WHERE title LIKE '%' || :title || '%'")
     List<Book> findByTitleContaining(@Param("title") String title);
     
+    // Ranked full-text lookup through the books_fts trigram index; a negative limit means no limit
+    @Query("SELECT books.* FROM books_fts JOIN books ON books.id = books_fts.rowid " +
+           "WHERE books_fts MATCH :match ORDER BY bm25(books_fts) LIMIT :limit OFFSET :offset")
+    List<Book> searchFullText(@Param("match") String match, @Param("limit") int limit, @Param("offset") int offset);
+    
+    // Half-open range instead of LIKE 'prefix%' so the UNIQUE index on isbn is used
+    @Query("SELECT * FROM books WHERE isbn >= :from AND isbn < :to ORDER BY isbn LIMIT :limit OFFSET :offset")
+    List<Book> findByIsbnRange(@Param("from") String from, @Param("to") String to,
+                               @Param("limit") int limit, @Param("offset") int offset);
+    
+    // Conditional decrement: matches no row when stock is short, so oversell is rejected without a prior read or lock
+    @Query("UPDATE books SET quantity = quantity - :amount, updated_at = :now " +
+           "WHERE id = :id AND quantity >= :amount RETURNING *")
+    Optional<Book> decrementStock(@Param("id") Long id, @Param("amount") int amount, @Param("now") LocalDateTime now);
+    
+    @Query("UPDATE books SET quantity = COALESCE(quantity, 0) + :amount, updated_at = :now WHERE id = :id RETURNING *")
+    Optional<Book> incrementStock(@Param("id") Long id, @Param("amount") int amount, @Param("now") LocalDateTime now);
+    
     boolean existsById(Long id);
     
     void deleteById(Long id);
@@ -0,0 +1,94 @@
+package com.example.bookstore.repository;
+
+import com.example.bookstore.config.SchemaMigrator;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.sqlite.SQLiteConfig;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+
+// One shard file with the pool layout of the prod profile: a single writer connection that takes the write
+// lock at BEGIN, and query_only readers that run beside it in WAL mode. Every shard has a writer of its own.
+final class BookShard implements AutoCloseable {
+
+    private static final String SEPARATOR = "^;";
+
+    final ShardMap.Shard range;
+    final NamedParameterJdbcTemplate writer;
+    final NamedParameterJdbcTemplate reader;
+    final TransactionTemplate writeTransaction;
+    private final HikariDataSource writerDataSource;
+    private final HikariDataSource readerDataSource;
+
+    private BookShard(ShardMap.Shard range, HikariDataSource writerDataSource, HikariDataSource readerDataSource) {
+        this.range = range;
+        this.writerDataSource = writerDataSource;
+        this.readerDataSource = readerDataSource;
+        this.writer = new NamedParameterJdbcTemplate(writerDataSource);
+        this.reader = new NamedParameterJdbcTemplate(readerDataSource);
+        this.writeTransaction = new TransactionTemplate(new DataSourceTransactionManager(writerDataSource));
+    }
+
+    // Creates the file if needed and brings it to the current schema plus the shard's own tables
+    static BookShard open(Path directory, ShardMap.Shard range, int readers) {
+        String url = "jdbc:sqlite:" + directory.resolve(range.file()).toAbsolutePath();
+        SQLiteConfig writerPragmas = pragmas();
+        writerPragmas.setTransactionMode(SQLiteConfig.TransactionMode.IMMEDIATE);
+        HikariDataSource writer = pool(url, range.file() + "-writer", 1, writerPragmas, false);
+        try {
+            migrate(writer);
+            SQLiteConfig readerPragmas = pragmas();
+            readerPragmas.setExplicitReadOnly(true);
+            return new BookShard(range, writer, pool(url, range.file() + "-reader", readers, readerPragmas, true));
+        } catch (RuntimeException e) {
+            writer.close();
+            throw e;
+        }
+    }
+
+    static void migrate(DataSource dataSource) {
+        new SchemaMigrator(dataSource, new DataSourceTransactionManager(dataSource), "never", SEPARATOR, true,
+            new ClassPathResource("schema.sql")).afterPropertiesSet();
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource("db/shard.sql"));
+        populator.setSeparator(SEPARATOR);
+        DatabasePopulatorUtils.execute(populator, dataSource);
+    }
+
+    // Whether the id falls in one of this shard's buckets
+    boolean holds(long id) {
+        return id >= range.firstId() && id < range.endId();
+    }
+
+    @Override
+    public void close() {
+        readerDataSource.close();
+        writerDataSource.close();
+    }
+
+    private static SQLiteConfig pragmas() {
+        SQLiteConfig sqlite = new SQLiteConfig();
+        sqlite.setJournalMode(SQLiteConfig.JournalMode.WAL);
+        sqlite.setSynchronous(SQLiteConfig.SynchronousMode.NORMAL);
+        sqlite.setBusyTimeout(5000);
+        return sqlite;
+    }
+
+    private static HikariDataSource pool(String url, String name, int size, SQLiteConfig sqlite, boolean readOnly) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(name);
+        config.setDriverClassName("org.sqlite.JDBC");
+        config.setJdbcUrl(url);
+        config.setMaximumPoolSize(size);
+        config.setMinimumIdle(1);
+        config.setReadOnly(readOnly);
+        config.setDataSourceProperties(sqlite.toProperties());
+        return new HikariDataSource(config);
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.bookstore.repository;
+
+import com.example.bookstore.model.Book;
+import com.example.bookstore.model.BookVersion;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+// Statements on the books table that derived and @Query methods cannot express. Part of BookRepository,
+// so a different storage layout can replace them along with the rest of the repository.
+public interface BookTableOperations {
+
+    // Inserts a book without an id and returns the id it was stored under
+    long insert(Book book);
+
+    // Every insert, update and delete moves the newest seq, so it versions any list over the catalog
+    BookVersion findCatalogVersion();
+
+    // Version of a live book from its book_changes row, without loading the book
+    Optional<BookVersion> findVersion(long id);
+
+    Optional<BookVersion> findVersionByIsbn(String isbn);
+
+    // Runs a multi-line stock adjustment on the given books so that its lines commit or roll back together
+    <T> T adjustStockAtomically(Collection<Long> bookIds, Supplier<T> adjustment);
+}
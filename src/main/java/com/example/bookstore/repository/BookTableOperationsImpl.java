@@ -0,0 +1,74 @@
+package com.example.bookstore.repository;
+
+import com.example.bookstore.model.Book;
+import com.example.bookstore.model.BookVersion;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+// Picked up by Spring Data as the implementation of the BookTableOperations fragment of BookRepository
+public class BookTableOperationsImpl implements BookTableOperations {
+
+    static final RowMapper<BookVersion> VERSION_MAPPER = (rs, rowNum) -> {
+        String changedAt = rs.getString("changed_at");
+        return new BookVersion(rs.getLong("seq"), changedAt != null ? Instant.parse(changedAt) : null);
+    };
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public BookTableOperationsImpl(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Custom insert with SQLite's last_insert_rowid() to avoid the getGeneratedKeys() issue
+    @Override
+    public long insert(Book book) {
+        String insertSql = "INSERT INTO books (title, author, isbn, price, quantity, created_at, updated_at) " +
+                          "VALUES (:title, :author, :isbn, :price, :quantity, :createdAt, :updatedAt)";
+
+        SqlParameterSource parameters = new MapSqlParameterSource()
+            .addValue("title", book.getTitle())
+            .addValue("author", book.getAuthor())
+            .addValue("isbn", book.getIsbn())
+            .addValue("price", book.getPrice())
+            .addValue("quantity", book.getQuantity())
+            .addValue("createdAt", book.getCreatedAt())
+            .addValue("updatedAt", book.getUpdatedAt());
+
+        jdbcTemplate.update(insertSql, parameters);
+
+        return jdbcTemplate.getJdbcOperations().queryForObject("SELECT last_insert_rowid()", Long.class);
+    }
+
+    @Override
+    public BookVersion findCatalogVersion() {
+        return jdbcTemplate.query("SELECT seq, changed_at FROM book_changes ORDER BY seq DESC LIMIT 1",
+            Map.of(), VERSION_MAPPER).stream().findFirst().orElse(BookVersion.EMPTY);
+    }
+
+    @Override
+    public Optional<BookVersion> findVersion(long id) {
+        return jdbcTemplate.query("SELECT seq, changed_at FROM book_changes WHERE book_id = :id AND deleted = 0",
+            Map.of("id", id), VERSION_MAPPER).stream().findFirst();
+    }
+
+    @Override
+    public Optional<BookVersion> findVersionByIsbn(String isbn) {
+        return jdbcTemplate.query(
+            "SELECT c.seq, c.changed_at FROM books b JOIN book_changes c ON c.book_id = b.id WHERE b.isbn = :isbn",
+            Map.of("isbn", isbn), VERSION_MAPPER).stream().findFirst();
+    }
+
+    // One database, so the caller's transaction already spans every line
+    @Override
+    public <T> T adjustStockAtomically(Collection<Long> bookIds, Supplier<T> adjustment) {
+        return adjustment.get();
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.bookstore.repository;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.file.Path;
+import java.sql.Statement;
+
+// Whole-database copies through SQLite's online backup API, which sqlite-jdbc exposes as the
+// "backup to" and "restore from" statements. Both copy page by page without blocking readers.
+@Repository
+public class DatabaseBackup {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DatabaseBackup(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // The copy is this read-only transaction's consistent view, and is taken on a reader connection
+    @Transactional(readOnly = true)
+    public void backupTo(Path file) {
+        execute("backup to " + file.toAbsolutePath());
+    }
+
+    // Replaces the whole database, schema and user_version included, in one write transaction. Must run outside
+    // any transaction, since the destination connection cannot have one open.
+    public void restoreFrom(Path file) {
+        execute("restore from " + file.toAbsolutePath());
+    }
+
+    private void execute(String sql) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate(sql);
+            }
+            return null;
+        });
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.bookstore.repository;
+
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+// Assigns each shard file a contiguous range of the fixed virtual buckets. A book's bucket is the hash of its
+// ISBN when it is created, or a random one without an ISBN, and is kept in the high bits of its id, so both
+// an id and an ISBN name the shard to ask. Splitting a shard only moves a range boundary; ids never change.
+public record ShardMap(List<Shard> shards) {
+
+    public static final String FILE_NAME = "shard-map.json";
+    public static final int BUCKETS = 1024;
+    // Per-bucket sequence bits below the bucket; ids stay under 2^50, which JSON clients read exactly
+    public static final int SEQUENCE_BITS = 40;
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    // Buckets [from, to) live in file, relative to the shard map
+    public record Shard(String file, int from, int to) {
+
+        public long firstId() {
+            return (long) from << SEQUENCE_BITS;
+        }
+
+        public long endId() {
+            return (long) to << SEQUENCE_BITS;
+        }
+    }
+
+    public ShardMap {
+        shards = List.copyOf(shards);
+        int next = 0;
+        for (Shard shard : shards) {
+            if (shard.from() != next || shard.to() <= shard.from()) {
+                throw new IllegalArgumentException("Shards must cover buckets 0-" + BUCKETS + " in order, found " + shard);
+            }
+            next = shard.to();
+        }
+        if (next != BUCKETS) {
+            throw new IllegalArgumentException("Shards must cover buckets 0-" + BUCKETS + ", found 0-" + next);
+        }
+    }
+
+    // Equal bucket ranges in shard-0.db, shard-1.db, ...
+    public static ShardMap initial(int count) {
+        if (count < 1 || count > BUCKETS) {
+            throw new IllegalArgumentException("Shard count must be between 1 and " + BUCKETS);
+        }
+        List<Shard> shards = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            shards.add(new Shard("shard-" + i + ".db", i * BUCKETS / count, (i + 1) * BUCKETS / count));
+        }
+        return new ShardMap(shards);
+    }
+
+    public static ShardMap read(Path file) {
+        try {
+            return JSON.readValue(file.toFile(), ShardMap.class);
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("Unreadable shard map " + file, e);
+        }
+    }
+
+    // Through a temporary file and an atomic rename, so readers see the old map or the new one, never a torn one
+    public void write(Path file) {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            JSON.writerWithDefaultPrettyPrinter().writeValue(temporary.toFile(), this);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // The shard keeps the lower half of its buckets and a new shard in file takes the upper half
+    public ShardMap split(int index, String file) {
+        Shard shard = shards.get(index);
+        if (shard.to() - shard.from() < 2) {
+            throw new IllegalArgumentException("Shard " + shard.file() + " holds a single bucket and cannot be split");
+        }
+        if (shards.stream().anyMatch(existing -> existing.file().equals(file))) {
+            throw new IllegalArgumentException("Shard file " + file + " is already mapped");
+        }
+        int middle = (shard.from() + shard.to()) >>> 1;
+        List<Shard> split = new ArrayList<>(shards);
+        split.set(index, new Shard(shard.file(), shard.from(), middle));
+        split.add(index + 1, new Shard(file, middle, shard.to()));
+        return new ShardMap(split);
+    }
+
+    // Index of the shard holding the bucket
+    public int shardOf(int bucket) {
+        int low = 0;
+        int high = shards.size() - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (shards.get(middle).from() <= bucket) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    // Fixed by String.hashCode's specification, so every process and every release agrees on it. The
+    // finalizer spreads ISBNs that differ in their last digits across the whole bucket range.
+    public static int bucketOf(String isbn) {
+        int hash = isbn.hashCode();
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return Math.floorMod(hash, BUCKETS);
+    }
+
+    // -1 for ids no shard can hold
+    public static int bucketOfId(long id) {
+        long bucket = id >>> SEQUENCE_BITS;
+        return id > 0 && bucket < BUCKETS ? (int) bucket : -1;
+    }
+}
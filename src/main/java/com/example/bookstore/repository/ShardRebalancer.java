@@ -0,0 +1,119 @@
+package com.example.bookstore.repository;
+
+import org.sqlite.Function;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+// Offline shard maintenance; the application must be stopped while it runs.
+//   split <directory> <shard file>  copies the shard to a new file, hands the new file the upper half of the
+//                                    shard's buckets in the map, then drops from each file what it no longer owns
+//   prune <directory>               drops from every shard the rows outside its buckets, which finishes a split
+//                                    that was interrupted after the map was written
+public final class ShardRebalancer {
+
+    private ShardRebalancer() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 3 && args[0].equals("split")) {
+            ShardMap map = split(Path.of(args[1]), args[2]);
+            System.out.println("Shard map is now " + map.shards());
+        } else if (args.length == 2 && args[0].equals("prune")) {
+            prune(Path.of(args[1]));
+        } else {
+            System.err.println("Usage: ShardRebalancer split <directory> <shard file> | prune <directory>");
+            System.exit(2);
+        }
+    }
+
+    // Until the map is rewritten the copy is not referenced, so a failure before that leaves only a stray file
+    public static ShardMap split(Path directory, String file) {
+        Path mapFile = directory.resolve(ShardMap.FILE_NAME);
+        ShardMap map = ShardMap.read(mapFile);
+        int index = indexOf(map, file);
+        String newFile = nextFile(directory, map);
+        ShardMap split = map.split(index, newFile);
+
+        Path copy = directory.resolve(newFile);
+        execute(directory.resolve(file), "backup to " + copy.toAbsolutePath());
+        prune(directory, split.shards().get(index + 1));
+        split.write(mapFile);
+        prune(directory, split.shards().get(index));
+        return split;
+    }
+
+    public static void prune(Path directory) {
+        ShardMap.read(directory.resolve(ShardMap.FILE_NAME)).shards().forEach(shard -> prune(directory, shard));
+    }
+
+    // Deleting through the books triggers keeps the full-text index and author_stats right; the change-log
+    // tombstones those deletes leave behind are dropped with the rest of the moved ids' change rows
+    static void prune(Path directory, ShardMap.Shard shard) {
+        try (Connection connection = connect(directory.resolve(shard.file()))) {
+            Function.create(connection, "isbn_bucket", new Function() {
+                @Override
+                protected void xFunc() throws SQLException {
+                    result(ShardMap.bucketOf(value_text(0)));
+                }
+            });
+            connection.setAutoCommit(false);
+            for (String sql : List.of(
+                "DELETE FROM books WHERE id < ? OR id >= ?",
+                "DELETE FROM book_changes WHERE book_id < ? OR book_id >= ?")) {
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    statement.setLong(1, shard.firstId());
+                    statement.setLong(2, shard.endId());
+                    statement.executeUpdate();
+                }
+            }
+            try (PreparedStatement statement = connection.prepareStatement(
+                "DELETE FROM isbn_owners WHERE isbn_bucket(isbn) < ? OR isbn_bucket(isbn) >= ?")) {
+                statement.setInt(1, shard.from());
+                statement.setInt(2, shard.to());
+                statement.executeUpdate();
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not prune " + shard.file(), e);
+        }
+    }
+
+    private static int indexOf(ShardMap map, String file) {
+        for (int i = 0; i < map.shards().size(); i++) {
+            if (map.shards().get(i).file().equals(file)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Shard file " + file + " is not in the shard map");
+    }
+
+    // The first shard-<n>.db that neither the map nor the directory has, so a leftover copy is never reused
+    private static String nextFile(Path directory, ShardMap map) {
+        for (int n = map.shards().size(); ; n++) {
+            String file = "shard-" + n + ".db";
+            boolean mapped = map.shards().stream().anyMatch(shard -> shard.file().equals(file));
+            if (!mapped && !Files.exists(directory.resolve(file))) {
+                return file;
+            }
+        }
+    }
+
+    private static void execute(Path database, String sql) {
+        try (Connection connection = connect(database); Statement statement = connection.createStatement()) {
+            statement.executeUpdate(sql);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not run '" + sql + "' on " + database, e);
+        }
+    }
+
+    private static Connection connect(Path database) throws SQLException {
+        return DriverManager.getConnection("jdbc:sqlite:" + database.toAbsolutePath());
+    }
+}
@@ -0,0 +1,512 @@
+package com.example.bookstore.repository;
+
+import com.example.bookstore.model.Book;
+import com.example.bookstore.model.BookVersion;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.IncorrectUpdateSemanticsDataAccessException;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+// BookRepository over the shard files named in a ShardMap. Id and ISBN lookups go to the one shard their
+// bucket maps to; lists and searches run on every shard in parallel and merge the shards' sorted results.
+// An ISBN is claimed in isbn_owners on the shard its hash maps to, which keeps ISBNs unique across shards.
+public class ShardedBookRepository implements BookRepository, AutoCloseable {
+
+    private static final String COLUMNS = "title, author, isbn, price, quantity, created_at, updated_at";
+    private static final RowMapper<Book> BOOK_MAPPER = BookQueryRepository.BOOK_MAPPER;
+    // bm25 is lower for better matches; each shard scores against its own term statistics
+    private static final RowMapper<Ranked> RANKED_MAPPER =
+        (rs, rowNum) -> new Ranked(BOOK_MAPPER.mapRow(rs, rowNum), rs.getDouble("rank"));
+    private static final Comparator<Book> BY_ID = Comparator.comparing(Book::getId);
+    private static final Comparator<Book> BY_ISBN = Comparator.comparing(Book::getIsbn).thenComparing(BY_ID);
+
+    private final ShardMap map;
+    private final List<BookShard> shards;
+    private final ExecutorService executor;
+
+    ShardedBookRepository(ShardMap map, List<BookShard> shards) {
+        this.map = map;
+        this.shards = shards;
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(shards.size(), task -> {
+            Thread thread = new Thread(task, "shard-query-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Reads the directory's shard map, or writes one with initialShards equal shards when there is none yet
+    public static ShardedBookRepository open(Path directory, int initialShards, int readersPerShard) {
+        Path mapFile = directory.resolve(ShardMap.FILE_NAME);
+        ShardMap map;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (Files.exists(mapFile)) {
+            map = ShardMap.read(mapFile);
+        } else {
+            map = ShardMap.initial(initialShards);
+            map.write(mapFile);
+        }
+        List<BookShard> shards = new ArrayList<>(map.shards().size());
+        try {
+            for (ShardMap.Shard range : map.shards()) {
+                shards.add(BookShard.open(directory, range, readersPerShard));
+            }
+        } catch (RuntimeException e) {
+            shards.forEach(BookShard::close);
+            throw e;
+        }
+        return new ShardedBookRepository(map, shards);
+    }
+
+    public ShardMap getShardMap() {
+        return map;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        shards.forEach(BookShard::close);
+    }
+
+    // Writes
+
+    // The id is allocated on the ISBN's home shard, so the claim and the row commit in one transaction there
+    @Override
+    public long insert(Book book) {
+        String isbn = book.getIsbn();
+        int bucket = isbn != null ? ShardMap.bucketOf(isbn) : ThreadLocalRandom.current().nextInt(ShardMap.BUCKETS);
+        BookShard shard = shardOf(bucket);
+        return shard.writeTransaction.execute(status -> {
+            long sequence = shard.writer.getJdbcOperations().queryForObject(
+                "UPDATE shard_sequence SET next = next + 1 WHERE id = 1 RETURNING next", Long.class);
+            long id = ((long) bucket << ShardMap.SEQUENCE_BITS) | sequence;
+            if (isbn != null) {
+                claim(shard, isbn, id);
+            }
+            shard.writer.update("INSERT INTO books (id, " + COLUMNS + ") " +
+                "VALUES (:id, :title, :author, :isbn, :price, :quantity, :createdAt, :updatedAt)", parameters(book, id));
+            return id;
+        });
+    }
+
+    // A new ISBN is claimed and the row updated under the write transactions of both the book's shard and the
+    // ISBN's home shard, so a failed update rolls the claim back with it and no competing claimant sees the claim
+    // before the row holds the ISBN. The old claim is released once both have committed.
+    @Override
+    public <S extends Book> S save(S book) {
+        if (book.getId() == null) {
+            book.setId(insert(book));
+            return book;
+        }
+        long id = book.getId();
+        BookShard shard = shardOfId(id)
+            .orElseThrow(() -> new IncorrectUpdateSemanticsDataAccessException("No shard holds book " + id));
+        String isbn = book.getIsbn();
+        BookShard home = isbn != null ? shardOf(ShardMap.bucketOf(isbn)) : shard;
+        String previous = inWriteTransactions(shard, home, () -> {
+            List<String> current = shard.writer.queryForList(
+                "SELECT isbn FROM books WHERE id = :id", Map.of("id", id), String.class);
+            if (current.isEmpty()) {
+                throw new IncorrectUpdateSemanticsDataAccessException("Book " + id + " does not exist");
+            }
+            if (isbn != null && !isbn.equals(current.get(0))) {
+                claim(home, isbn, id);
+            }
+            update(shard, book);
+            return current.get(0);
+        });
+        if (previous != null && !previous.equals(isbn)) {
+            release(previous, id);
+        }
+        return book;
+    }
+
+    @Override
+    public <S extends Book> Iterable<S> saveAll(Iterable<S> books) {
+        List<S> saved = new ArrayList<>();
+        books.forEach(book -> saved.add(save(book)));
+        return saved;
+    }
+
+    @Override
+    public Optional<Book> decrementStock(Long id, int amount, LocalDateTime now) {
+        return shardOfId(id).flatMap(shard -> shard.writer.query(
+            "UPDATE books SET quantity = quantity - :amount, updated_at = :now " +
+            "WHERE id = :id AND quantity >= :amount RETURNING *",
+            stockParameters(id, amount, now), BOOK_MAPPER).stream().findFirst());
+    }
+
+    @Override
+    public Optional<Book> incrementStock(Long id, int amount, LocalDateTime now) {
+        return shardOfId(id).flatMap(shard -> shard.writer.query(
+            "UPDATE books SET quantity = COALESCE(quantity, 0) + :amount, updated_at = :now WHERE id = :id RETURNING *",
+            stockParameters(id, amount, now), BOOK_MAPPER).stream().findFirst());
+    }
+
+    // Shards commit independently, so a cart must stay on one shard to apply all or nothing
+    @Override
+    public <T> T adjustStockAtomically(Collection<Long> bookIds, Supplier<T> adjustment) {
+        Set<BookShard> targets = new HashSet<>();
+        for (Long id : bookIds) {
+            shardOfId(id).ifPresent(targets::add);
+        }
+        if (targets.size() > 1) {
+            throw new IllegalArgumentException("Stock adjustments must be for books on one shard; these span "
+                + targets.size() + " shards");
+        }
+        if (targets.isEmpty()) {
+            return adjustment.get();
+        }
+        BookShard shard = targets.iterator().next();
+        return shard.writeTransaction.execute(status -> adjustment.get());
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        shardOfId(id).ifPresent(shard -> shard.writer.queryForList(
+                "DELETE FROM books WHERE id = :id RETURNING isbn", Map.of("id", id), String.class).stream()
+            .filter(Objects::nonNull)
+            .forEach(isbn -> release(isbn, id)));
+    }
+
+    @Override
+    public void delete(Book book) {
+        deleteById(book.getId());
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends Long> ids) {
+        ids.forEach(this::deleteById);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends Book> books) {
+        books.forEach(this::delete);
+    }
+
+    @Override
+    public void deleteAll() {
+        scatter(shards, shard -> shard.writeTransaction.execute(status -> {
+            shard.writer.getJdbcOperations().update("DELETE FROM books");
+            return shard.writer.getJdbcOperations().update("DELETE FROM isbn_owners");
+        }));
+    }
+
+    // Single-shard reads
+
+    @Override
+    public Optional<Book> findById(Long id) {
+        return shardOfId(id).flatMap(shard ->
+            shard.reader.query("SELECT * FROM books WHERE id = :id", Map.of("id", id), BOOK_MAPPER).stream().findFirst());
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return findById(id).isPresent();
+    }
+
+    // One query when the book lives on the ISBN's home shard, which is the case unless its ISBN changed
+    @Override
+    public Optional<Book> findByIsbn(String isbn) {
+        BookShard home = shardOf(ShardMap.bucketOf(isbn));
+        Optional<Book> local = home.reader.query(
+            "SELECT b.* FROM isbn_owners o JOIN books b ON b.id = o.book_id WHERE o.isbn = :isbn AND b.isbn = :isbn",
+            Map.of("isbn", isbn), BOOK_MAPPER).stream().findFirst();
+        if (local.isPresent()) {
+            return local;
+        }
+        return owner(home, isbn)
+            .filter(owner -> !home.holds(owner))
+            .flatMap(this::findById)
+            .filter(book -> isbn.equals(book.getIsbn()));
+    }
+
+    @Override
+    public List<Book> findByIsbnIn(Collection<String> isbns) {
+        Map<BookShard, List<String>> byHome = new LinkedHashMap<>();
+        for (String isbn : new HashSet<>(isbns)) {
+            byHome.computeIfAbsent(shardOf(ShardMap.bucketOf(isbn)), shard -> new ArrayList<>()).add(isbn);
+        }
+        List<Long> owners = scatter(List.copyOf(byHome.keySet()), shard -> shard.reader.queryForList(
+                "SELECT book_id FROM isbn_owners WHERE isbn IN (:isbns)", Map.of("isbns", byHome.get(shard)), Long.class))
+            .stream().flatMap(List::stream).toList();
+        Set<String> wanted = new HashSet<>(isbns);
+        List<Book> found = new ArrayList<>();
+        findAllById(owners).forEach(book -> {
+            if (book.getIsbn() != null && wanted.contains(book.getIsbn())) {
+                found.add(book);
+            }
+        });
+        return found;
+    }
+
+    @Override
+    public Iterable<Book> findAllById(Iterable<Long> ids) {
+        Map<BookShard, List<Long>> byShard = new LinkedHashMap<>();
+        for (Long id : ids) {
+            shardOfId(id).ifPresent(shard -> byShard.computeIfAbsent(shard, key -> new ArrayList<>()).add(id));
+        }
+        return scatter(List.copyOf(byShard.keySet()), shard -> shard.reader.query(
+                "SELECT * FROM books WHERE id IN (:ids)", Map.of("ids", byShard.get(shard)), BOOK_MAPPER))
+            .stream().flatMap(List::stream).toList();
+    }
+
+    // Scatter-gather reads. Shards hold ascending id ranges, so per-shard id order concatenates into global order.
+
+    @Override
+    public List<Book> findAll() {
+        return concat(scatter(shards, shard -> shard.reader.query("SELECT * FROM books ORDER BY id", BOOK_MAPPER)));
+    }
+
+    @Override
+    public long count() {
+        return scatter(shards, shard -> shard.reader.getJdbcOperations()
+            .queryForObject("SELECT COUNT(*) FROM books", Long.class)).stream().mapToLong(Long::longValue).sum();
+    }
+
+    // Walks the shards in id order from the one holding afterId and stops as soon as the page is full
+    @Override
+    public List<Book> findPageAfter(long afterId, int limit) {
+        List<Book> page = new ArrayList<>(limit);
+        for (BookShard shard : shards) {
+            if (page.size() >= limit) {
+                break;
+            }
+            if (shard.range.endId() <= afterId + 1) {
+                continue;
+            }
+            page.addAll(shard.reader.query("SELECT * FROM books WHERE id > :afterId ORDER BY id LIMIT :limit",
+                new MapSqlParameterSource("afterId", afterId).addValue("limit", limit - page.size()), BOOK_MAPPER));
+        }
+        return page;
+    }
+
+    // Shard by shard, so only one shard's cursor is open at a time; callers must close the stream
+    @Override
+    public Stream<Book> streamAll() {
+        return shards.stream().flatMap(shard ->
+            shard.reader.queryForStream("SELECT * FROM books ORDER BY id", Map.of(), BOOK_MAPPER));
+    }
+
+    @Override
+    public List<Book> findByAuthor(String author) {
+        return concat(scatter(shards, shard -> shard.reader.query(
+            "SELECT * FROM books WHERE author = :author COLLATE NOCASE ORDER BY id", Map.of("author", author), BOOK_MAPPER)));
+    }
+
+    @Override
+    public List<Book> findByTitleContaining(String title) {
+        return concat(scatter(shards, shard -> shard.reader.query(
+            "SELECT * FROM books WHERE title LIKE '%' || :title || '%' ORDER BY id", Map.of("title", title), BOOK_MAPPER)));
+    }
+
+    // Each shard returns its best offset + limit matches, which always contain the merged page
+    @Override
+    public List<Book> searchFullText(String match, int limit, int offset) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource("match", match)
+            .addValue("limit", limit < 0 ? -1 : limit + offset);
+        List<List<Ranked>> results = scatter(shards, shard -> shard.reader.query(
+            "SELECT books.*, bm25(books_fts) AS rank FROM books_fts JOIN books ON books.id = books_fts.rowid " +
+            "WHERE books_fts MATCH :match ORDER BY rank, books.id LIMIT :limit", parameters, RANKED_MAPPER));
+        return merge(results, Comparator.comparingDouble(Ranked::rank).thenComparing(Ranked::book, BY_ID), offset, limit)
+            .stream().map(Ranked::book).toList();
+    }
+
+    @Override
+    public List<Book> findByIsbnRange(String from, String to, int limit, int offset) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource("from", from).addValue("to", to)
+            .addValue("limit", limit < 0 ? -1 : limit + offset);
+        List<List<Book>> results = scatter(shards, shard -> shard.reader.query(
+            "SELECT * FROM books WHERE isbn >= :from AND isbn < :to ORDER BY isbn, id LIMIT :limit",
+            parameters, BOOK_MAPPER));
+        return merge(results, BY_ISBN, offset, limit);
+    }
+
+    // Sum of the shards' newest seqs: every write raises one shard's seq and none ever falls
+    @Override
+    public BookVersion findCatalogVersion() {
+        List<BookVersion> versions = scatter(shards, shard -> shard.reader.query(
+            "SELECT seq, changed_at FROM book_changes ORDER BY seq DESC LIMIT 1", Map.of(),
+            BookTableOperationsImpl.VERSION_MAPPER).stream().findFirst().orElse(BookVersion.EMPTY));
+        long seq = versions.stream().mapToLong(BookVersion::seq).sum();
+        Instant changedAt = versions.stream().map(BookVersion::changedAt).filter(Objects::nonNull)
+            .max(Comparator.naturalOrder()).orElse(null);
+        return seq == 0 ? BookVersion.EMPTY : new BookVersion(seq, changedAt);
+    }
+
+    // A book's changes are logged on the shard that holds it; seqs are per shard, which is enough for an ETag
+    @Override
+    public Optional<BookVersion> findVersion(long id) {
+        return shardOfId(id).flatMap(shard -> shard.reader.query(
+            "SELECT seq, changed_at FROM book_changes WHERE book_id = :id AND deleted = 0",
+            Map.of("id", id), BookTableOperationsImpl.VERSION_MAPPER).stream().findFirst());
+    }
+
+    @Override
+    public Optional<BookVersion> findVersionByIsbn(String isbn) {
+        return findByIsbn(isbn).flatMap(book -> findVersion(book.getId()));
+    }
+
+    // Routing and ISBN claims
+
+    private BookShard shardOf(int bucket) {
+        return shards.get(map.shardOf(bucket));
+    }
+
+    private Optional<BookShard> shardOfId(Long id) {
+        int bucket = id != null ? ShardMap.bucketOfId(id) : -1;
+        return bucket < 0 ? Optional.empty() : Optional.of(shardOf(bucket));
+    }
+
+    private static Optional<Long> owner(BookShard home, String isbn) {
+        return home.reader.queryForList("SELECT book_id FROM isbn_owners WHERE isbn = :isbn",
+            Map.of("isbn", isbn), Long.class).stream().findFirst();
+    }
+
+    // Runs in a write transaction on the home shard, whose single writer serializes competing claims
+    private void claim(BookShard home, String isbn, long id) {
+        Optional<Long> owner = home.writer.queryForList("SELECT book_id FROM isbn_owners WHERE isbn = :isbn",
+            Map.of("isbn", isbn), Long.class).stream().findFirst();
+        MapSqlParameterSource parameters = new MapSqlParameterSource("isbn", isbn).addValue("id", id);
+        if (owner.isEmpty()) {
+            home.writer.update("INSERT INTO isbn_owners (isbn, book_id) VALUES (:isbn, :id)", parameters);
+        } else if (owner.get() != id) {
+            boolean held = findById(owner.get()).map(book -> isbn.equals(book.getIsbn())).orElse(false);
+            if (held) {
+                throw new DuplicateKeyException("Book with ISBN " + isbn + " already exists");
+            }
+            home.writer.update("UPDATE isbn_owners SET book_id = :id WHERE isbn = :isbn", parameters);
+        }
+    }
+
+    // Both shards' writers are taken in shard order, so two updates moving ISBNs in opposite directions cannot
+    // deadlock. A crash between the two commits can leave a claim or a row without the other; a claim whose book
+    // does not hold the ISBN is taken over by the next claimant.
+    private <T> T inWriteTransactions(BookShard first, BookShard second, Supplier<T> work) {
+        if (first == second) {
+            return first.writeTransaction.execute(status -> work.get());
+        }
+        BookShard outer = shards.indexOf(first) < shards.indexOf(second) ? first : second;
+        BookShard inner = outer == first ? second : first;
+        return outer.writeTransaction.execute(outerStatus -> inner.writeTransaction.execute(innerStatus -> work.get()));
+    }
+
+    private void release(String isbn, long id) {
+        shardOf(ShardMap.bucketOf(isbn)).writer.update("DELETE FROM isbn_owners WHERE isbn = :isbn AND book_id = :id",
+            new MapSqlParameterSource("isbn", isbn).addValue("id", id));
+    }
+
+    private static void update(BookShard shard, Book book) {
+        shard.writer.update("UPDATE books SET title = :title, author = :author, isbn = :isbn, price = :price, " +
+            "quantity = :quantity, created_at = :createdAt, updated_at = :updatedAt WHERE id = :id",
+            parameters(book, book.getId()));
+    }
+
+    private static MapSqlParameterSource parameters(Book book, long id) {
+        return new MapSqlParameterSource()
+            .addValue("id", id)
+            .addValue("title", book.getTitle())
+            .addValue("author", book.getAuthor())
+            .addValue("isbn", book.getIsbn())
+            .addValue("price", book.getPrice())
+            .addValue("quantity", book.getQuantity())
+            .addValue("createdAt", book.getCreatedAt())
+            .addValue("updatedAt", book.getUpdatedAt());
+    }
+
+    private static MapSqlParameterSource stockParameters(Long id, int amount, LocalDateTime now) {
+        return new MapSqlParameterSource("id", id).addValue("amount", amount).addValue("now", now);
+    }
+
+    // Scatter-gather
+
+    // Results in the order of the given shards; the first failure is rethrown as it was thrown
+    private <T> List<T> scatter(List<BookShard> targets, Function<BookShard, T> query) {
+        if (targets.size() == 1) {
+            return List.of(query.apply(targets.get(0)));
+        }
+        List<CompletableFuture<T>> futures = targets.stream()
+            .map(shard -> CompletableFuture.supplyAsync(() -> query.apply(shard), executor))
+            .toList();
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (CompletableFuture<T> future : futures) {
+                results.add(future.join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return results;
+    }
+
+    private static List<Book> concat(List<List<Book>> results) {
+        return results.stream().flatMap(List::stream).toList();
+    }
+
+    // k-way merge of lists each sorted by order; a negative limit means no limit
+    static <T> List<T> merge(List<List<T>> sorted, Comparator<? super T> order, int offset, int limit) {
+        PriorityQueue<Cursor<T>> heads = new PriorityQueue<>((a, b) -> order.compare(a.head(), b.head()));
+        for (List<T> list : sorted) {
+            if (!list.isEmpty()) {
+                heads.add(new Cursor<>(list, 0));
+            }
+        }
+        List<T> merged = new ArrayList<>();
+        int skipped = 0;
+        while (!heads.isEmpty() && (limit < 0 || merged.size() < limit)) {
+            Cursor<T> cursor = heads.poll();
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                merged.add(cursor.head());
+            }
+            if (cursor.index() + 1 < cursor.list().size()) {
+                heads.add(new Cursor<>(cursor.list(), cursor.index() + 1));
+            }
+        }
+        return merged;
+    }
+
+    private record Cursor<T>(List<T> list, int index) {
+        T head() {
+            return list.get(index);
+        }
+    }
+
+    private record Ranked(Book book, double rank) {
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.bookstore.service;
+
+import com.example.bookstore.model.Book;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+@Component
+public class BookCache {
+
+    private final Cache<Long, Book> booksById;
+    private final Cache<String, Long> idsByIsbn;
+
+    // Bumped before every invalidation so a lookup that read the database before a commit cannot repopulate stale data
+    private final AtomicLong generation = new AtomicLong();
+
+    public BookCache(@Value("${bookstore.cache.maximum-size:10000}") long maximumSize,
+                     @Value("${bookstore.cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.booksById = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(expireAfterWrite)
+            .recordStats()
+            .build();
+        this.idsByIsbn = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(expireAfterWrite)
+            .recordStats()
+            .build();
+    }
+
+    // Loaders run outside Caffeine's compute: it holds a monitor on the map bin, and JDBC under a monitor
+    // pins a virtual thread to its carrier for the whole query
+    public Optional<Book> getById(Long id, Function<Long, Optional<Book>> loader) {
+        Book cached = booksById.getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        long observedGeneration = generation.get();
+        Optional<Book> loaded = loader.apply(id);
+        loaded.ifPresent(book -> cacheIfCurrent(book, observedGeneration));
+        return loaded;
+    }
+
+    public Optional<Book> getByIsbn(String isbn, Function<String, Optional<Book>> loader) {
+        Long id = idsByIsbn.getIfPresent(isbn);
+        if (id != null) {
+            Book cached = booksById.getIfPresent(id);
+            // The index can lag behind an ISBN change, so only trust entries that still agree
+            if (cached != null && isbn.equals(cached.getIsbn())) {
+                return Optional.of(cached);
+            }
+        }
+
+        long observedGeneration = generation.get();
+        Optional<Book> loaded = loader.apply(isbn);
+        loaded.ifPresent(book -> cacheIfCurrent(book, observedGeneration));
+        return loaded;
+    }
+
+    // Serves what it can from the cache and hands only the misses to the loader, in one call
+    public Map<Long, Book> getAllById(Collection<Long> ids, Function<List<Long>, List<Book>> loader) {
+        Map<Long, Book> found = new HashMap<>(booksById.getAllPresent(ids));
+        List<Long> missing = ids.stream().distinct().filter(id -> !found.containsKey(id)).toList();
+        if (!missing.isEmpty()) {
+            long observedGeneration = generation.get();
+            for (Book book : loader.apply(missing)) {
+                found.put(book.getId(), book);
+                cacheIfCurrent(book, observedGeneration);
+            }
+        }
+        return found;
+    }
+
+    public Map<String, Book> getAllByIsbn(Collection<String> isbns, Function<List<String>, List<Book>> loader) {
+        Map<String, Book> found = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String isbn : isbns.stream().distinct().toList()) {
+            Long id = idsByIsbn.getIfPresent(isbn);
+            Book cached = id != null ? booksById.getIfPresent(id) : null;
+            if (cached != null && isbn.equals(cached.getIsbn())) {
+                found.put(isbn, cached);
+            } else {
+                missing.add(isbn);
+            }
+        }
+        if (!missing.isEmpty()) {
+            long observedGeneration = generation.get();
+            for (Book book : loader.apply(missing)) {
+                found.put(book.getIsbn(), book);
+                cacheIfCurrent(book, observedGeneration);
+            }
+        }
+        return found;
+    }
+
+    private void cacheIfCurrent(Book book, long observedGeneration) {
+        // Checked inside the per-key compute, so an invalidation either sees this entry or makes us skip it
+        booksById.asMap().compute(book.getId(), (key, current) ->
+            generation.get() == observedGeneration ? book : current);
+        if (book.getIsbn() != null) {
+            idsByIsbn.put(book.getIsbn(), book.getId());
+        }
+    }
+
+    // After BookReadCoalescer has cleared its flights, so no load joined after this point can hold pre-write data
+    @Order(BookReadCoalescer.LISTENER_ORDER + 1)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        generation.incrementAndGet();
+        booksById.invalidate(event.id());
+        if (event.before() != null && event.before().getIsbn() != null) {
+            idsByIsbn.invalidate(event.before().getIsbn());
+        }
+        if (event.after() != null && event.after().getIsbn() != null) {
+            idsByIsbn.invalidate(event.after().getIsbn());
+        }
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        booksById.invalidateAll();
+        idsByIsbn.invalidateAll();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("books", describe(booksById.stats(), booksById.estimatedSize()));
+        stats.put("isbnIndex", describe(idsByIsbn.stats(), idsByIsbn.estimatedSize()));
+        return stats;
+    }
+
+    private static Map<String, Object> describe(CacheStats stats, long size) {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("size", size);
+        description.put("hits", stats.hitCount());
+        description.put("misses", stats.missCount());
+        description.put("hitRate", stats.hitRate());
+        description.put("evictions", stats.evictionCount());
+        return description;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.bookstore.service;
+
+import com.example.bookstore.model.Book;
+
+// Published by BookService for every committed mutation; before is null on create, after is null on delete
+public record BookChangedEvent(Long id, Book before, Book after) {
+
+    public static BookChangedEvent created(Book after) {
+        return new BookChangedEvent(after.getId(), null, after);
+    }
+
+    public static BookChangedEvent updated(Book before, Book after) {
+        return new BookChangedEvent(after.getId(), before, after);
+    }
+
+    public static BookChangedEvent deleted(Book before) {
+        return new BookChangedEvent(before.getId(), before, null);
+    }
+}
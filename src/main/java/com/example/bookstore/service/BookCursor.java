@@ -0,0 +1,72 @@
+package com.example.bookstore.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Opaque keyset cursor: clients get a token, not the raw id they could tamper with or depend on
+public final class BookCursor {
+
+    private static final String ID_PREFIX = "id:";
+    private static final String SEQUENCE_PREFIX = "seq:";
+
+    private BookCursor() {
+    }
+
+    public static String encode(long lastId) {
+        return encode(ID_PREFIX, lastId);
+    }
+
+    public static long decode(String cursor) {
+        return decode(ID_PREFIX, cursor);
+    }
+
+    // Position in the change feed; a distinct prefix keeps page and change cursors from being mixed up
+    public static String encodeSequence(long seq) {
+        return encode(SEQUENCE_PREFIX, seq);
+    }
+
+    public static long decodeSequence(String cursor) {
+        return decode(SEQUENCE_PREFIX, cursor);
+    }
+
+    // Position in a sorted keyset: the last row's sort value and id. The sort name is part of the prefix, so a
+    // cursor from a price-ordered page is rejected by a quantity-ordered one.
+    public static String encodeKey(String sort, String value, long id) {
+        byte[] raw = (sort + ":" + value + "," + id).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    public static Key decodeKey(String sort, String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int comma = raw.lastIndexOf(',');
+            if (!raw.startsWith(sort + ":") || comma < 0) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            return new Key(raw.substring(sort.length() + 1, comma), Long.parseLong(raw.substring(comma + 1)));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    public record Key(String value, long id) {
+    }
+
+    private static String encode(String prefix, long value) {
+        byte[] raw = (prefix + value).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    private static long decode(String prefix, String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!raw.startsWith(prefix)) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            return Long.parseLong(raw.substring(prefix.length()));
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException and Base64 decoding errors both land here
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package com.example.bookstore.service;
+
+import com.example.bookstore.model.Book;
+import com.example.bookstore.model.BulkImportResult;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.exc.StreamReadException;
+import tools.jackson.databind.MappingIterator;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+// Streams a supplier feed into the books table in large batched transactions, one chunk at a time
+@Service
+public class BookImportService {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO books (title, author, isbn, price, quantity, created_at, updated_at) " +
+        "VALUES (:title, :author, :isbn, :price, :quantity, :createdAt, :updatedAt)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final BookWriteQueue writeQueue;
+    private final ObjectReader bookReader;
+    private final int chunkSize;
+
+    public BookImportService(NamedParameterJdbcTemplate jdbcTemplate,
+                             BookWriteQueue writeQueue,
+                             ObjectMapper objectMapper,
+                             @Value("${bookstore.import.chunk-size:1000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.writeQueue = writeQueue;
+        this.bookReader = objectMapper.readerFor(Book.class);
+        this.chunkSize = chunkSize;
+    }
+
+    // Accepts either a JSON array of books or concatenated top-level book objects
+    public BulkImportResult importJson(InputStream input) {
+        BulkImportResult result = new BulkImportResult();
+        List<ImportRow> chunk = new ArrayList<>(chunkSize);
+        long row = 0;
+        try (MappingIterator<Book> books = bookReader.readValues(input)) {
+            while (true) {
+                try {
+                    if (!books.hasNextValue()) {
+                        break;
+                    }
+                    row++;
+                    Book book = books.nextValue();
+                    result.recordReceived();
+                    addToChunk(chunk, new ImportRow(row, book), result);
+                } catch (StreamReadException e) {
+                    // Malformed JSON leaves no reliable point to resume from
+                    result.recordError(row, null, "Malformed JSON, import stopped: " + e.getOriginalMessage());
+                    break;
+                } catch (JacksonException e) {
+                    // Binding errors only affect the current value; the iterator skips past it
+                    result.recordReceived();
+                    result.recordError(row, null, e.getOriginalMessage());
+                }
+            }
+        }
+        flush(chunk, result);
+        return result;
+    }
+
+    public BulkImportResult importNdjson(InputStream input) throws IOException {
+        BulkImportResult result = new BulkImportResult();
+        List<ImportRow> chunk = new ArrayList<>(chunkSize);
+        long row = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                row++;
+                result.recordReceived();
+                try {
+                    addToChunk(chunk, new ImportRow(row, bookReader.readValue(line)), result);
+                } catch (JacksonException e) {
+                    result.recordError(row, null, e.getOriginalMessage());
+                }
+            }
+        }
+        flush(chunk, result);
+        return result;
+    }
+
+    // Expects a header line naming the columns, e.g. title,author,isbn,price,quantity. Row numbers count records,
+    // not lines, since a quoted field may span several lines.
+    public BulkImportResult importCsv(InputStream input) throws IOException {
+        BulkImportResult result = new BulkImportResult();
+        List<ImportRow> chunk = new ArrayList<>(chunkSize);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String headerLine = readCsvRecord(reader);
+            if (headerLine == null) {
+                return result;
+            }
+            Map<String, Integer> columns = new HashMap<>();
+            List<String> header;
+            try {
+                header = parseCsvLine(headerLine);
+            } catch (IllegalArgumentException e) {
+                result.recordError(0, null, "Header: " + e.getMessage());
+                return result;
+            }
+            for (int i = 0; i < header.size(); i++) {
+                columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+
+            long row = 0;
+            String record;
+            while ((record = readCsvRecord(reader)) != null) {
+                if (record.isBlank()) {
+                    continue;
+                }
+                row++;
+                result.recordReceived();
+                List<String> fields;
+                try {
+                    fields = parseCsvLine(record);
+                } catch (IllegalArgumentException e) {
+                    result.recordError(row, null, e.getMessage());
+                    continue;
+                }
+                Book book = new Book();
+                try {
+                    book.setTitle(csvValue(fields, columns, "title"));
+                    book.setAuthor(csvValue(fields, columns, "author"));
+                    book.setIsbn(csvValue(fields, columns, "isbn"));
+                    String price = csvValue(fields, columns, "price");
+                    book.setPrice(price != null ? new BigDecimal(price) : null);
+                    String quantity = csvValue(fields, columns, "quantity");
+                    book.setQuantity(quantity != null ? Integer.valueOf(quantity) : null);
+                } catch (NumberFormatException e) {
+                    result.recordError(row, book.getIsbn(), "Invalid number: " + e.getMessage());
+                    continue;
+                }
+                addToChunk(chunk, new ImportRow(row, book), result);
+            }
+        }
+        flush(chunk, result);
+        return result;
+    }
+
+    private void addToChunk(List<ImportRow> chunk, ImportRow row, BulkImportResult result) {
+        chunk.add(row);
+        if (chunk.size() >= chunkSize) {
+            flush(chunk, result);
+        }
+    }
+
+    private void flush(List<ImportRow> chunk, BulkImportResult result) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<ImportRow> candidates = new ArrayList<>(chunk.size());
+        Set<String> chunkIsbns = new HashSet<>();
+        for (ImportRow row : chunk) {
+            Book book = row.book();
+            if (book.getTitle() == null || book.getAuthor() == null) {
+                result.recordError(row.number(), book.getIsbn(), "title and author are required");
+            } else if (book.getIsbn() != null && !chunkIsbns.add(book.getIsbn())) {
+                result.recordError(row.number(), book.getIsbn(), "Duplicate ISBN " + book.getIsbn() + " in feed");
+            } else {
+                candidates.add(row);
+            }
+        }
+        chunk.clear();
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        List<ImportRow> accepted = new ArrayList<>(candidates.size());
+        try {
+            // Each chunk is one operation on the write queue, so it commits atomically and in turn with other writes
+            writeQueue.execute(() -> {
+                accepted.addAll(rejectExistingIsbns(candidates, chunkIsbns, result));
+                return jdbcTemplate.batchUpdate(INSERT_SQL, toParameters(accepted));
+            });
+            result.recordInserted(accepted.size());
+        } catch (DataAccessException e) {
+            if (accepted.isEmpty()) {
+                for (ImportRow row : candidates) {
+                    result.recordError(row.number(), row.book().getIsbn(), e.getMostSpecificCause().getMessage());
+                }
+                return;
+            }
+            // A concurrent writer took one of the ISBNs; redo the chunk row by row to isolate the failures
+            writeQueue.execute(() -> insertIndividually(accepted, result));
+        }
+    }
+
+    private List<ImportRow> rejectExistingIsbns(List<ImportRow> rows, Set<String> isbns, BulkImportResult result) {
+        if (isbns.isEmpty()) {
+            return rows;
+        }
+        Set<String> existing = new HashSet<>(jdbcTemplate.queryForList(
+            "SELECT isbn FROM books WHERE isbn IN (:isbns)", Map.of("isbns", isbns), String.class));
+        if (existing.isEmpty()) {
+            return rows;
+        }
+        List<ImportRow> accepted = new ArrayList<>(rows.size());
+        for (ImportRow row : rows) {
+            String isbn = row.book().getIsbn();
+            if (isbn != null && existing.contains(isbn)) {
+                result.recordError(row.number(), isbn, "Book with ISBN " + isbn + " already exists");
+            } else {
+                accepted.add(row);
+            }
+        }
+        return accepted;
+    }
+
+    private int insertIndividually(List<ImportRow> rows, BulkImportResult result) {
+        SqlParameterSource[] parameters = toParameters(rows);
+        for (int i = 0; i < rows.size(); i++) {
+            try {
+                jdbcTemplate.update(INSERT_SQL, parameters[i]);
+                result.recordInserted(1);
+            } catch (DataAccessException e) {
+                ImportRow row = rows.get(i);
+                result.recordError(row.number(), row.book().getIsbn(), e.getMostSpecificCause().getMessage());
+            }
+        }
+        return rows.size();
+    }
+
+    private static SqlParameterSource[] toParameters(List<ImportRow> rows) {
+        LocalDateTime now = LocalDateTime.now();
+        SqlParameterSource[] parameters = new SqlParameterSource[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            Book book = rows.get(i).book();
+            parameters[i] = new MapSqlParameterSource()
+                .addValue("title", book.getTitle())
+                .addValue("author", book.getAuthor())
+                .addValue("isbn", book.getIsbn())
+                .addValue("price", book.getPrice())
+                .addValue("quantity", book.getQuantity())
+                .addValue("createdAt", now)
+                .addValue("updatedAt", now);
+        }
+        return parameters;
+    }
+
+    private static String csvValue(List<String> fields, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    // One CSV record: a line, joined with the lines after it while a quoted field is still open. Quotes open and
+    // close in pairs and an escaped quote is two of them, so an odd count means the record continues. Line breaks
+    // inside a field come back as \n whatever the file used. A quote never closed runs to the end of the input,
+    // which parseCsvLine then rejects as one row.
+    static String readCsvRecord(BufferedReader reader) throws IOException {
+        String line = reader.readLine();
+        if (line == null) {
+            return null;
+        }
+        int quotes = countQuotes(line);
+        if (quotes % 2 == 0) {
+            return line;
+        }
+        StringBuilder record = new StringBuilder(line);
+        while (quotes % 2 != 0 && (line = reader.readLine()) != null) {
+            record.append('\n').append(line);
+            quotes += countQuotes(line);
+        }
+        return record.toString();
+    }
+
+    private static int countQuotes(String line) {
+        int quotes = 0;
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) == '"') {
+                quotes++;
+            }
+        }
+        return quotes;
+    }
+
+    // RFC 4180 style: comma separated, double-quoted fields may contain commas, doubled quotes and line breaks
+    // (readCsvRecord gathers the lines). An unterminated quoted field is an error rather than a truncated value.
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private record ImportRow(long number, Book book) {
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.bookstore.service;
+
+import com.example.bookstore.model.Book;
+import com.example.bookstore.model.BookVersion;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+// Single-book reads and their version probes for the controllers. Deliberately not transactional: a catalog
+// snapshot hit takes no transaction and no connection. Misses go to BookService, whose read-only transactions
+// the prod profile routes to the reader pool.
+@Service
+public class BookLookupService {
+
+    private final CatalogSnapshot catalogSnapshot;
+    private final BookService bookService;
+
+    public BookLookupService(CatalogSnapshot catalogSnapshot, BookService bookService) {
+        this.catalogSnapshot = catalogSnapshot;
+        this.bookService = bookService;
+    }
+
+    public Optional<Book> getBookById(Long id) {
+        if (catalogSnapshot.isReady()) {
+            Book book = catalogSnapshot.getById(id);
+            if (book != null) {
+                return Optional.of(book);
+            }
+        }
+        return bookService.getBookById(id);
+    }
+
+    public Optional<Book> getBookByIsbn(String isbn) {
+        if (catalogSnapshot.isReady()) {
+            Book book = catalogSnapshot.getByIsbn(isbn);
+            if (book != null) {
+                return Optional.of(book);
+            }
+        }
+        return bookService.getBookByIsbn(isbn);
+    }
+
+    public Optional<BookVersion> getBookVersion(Long id) {
+        if (catalogSnapshot.isReady()) {
+            BookVersion version = catalogSnapshot.getVersion(id);
+            if (version != null) {
+                return Optional.of(version);
+            }
+        }
+        return bookService.getBookVersion(id);
+    }
+
+    public Optional<BookVersion> getBookVersionByIsbn(String isbn) {
+        if (catalogSnapshot.isReady()) {
+            BookVersion version = catalogSnapshot.getVersionByIsbn(isbn);
+            if (version != null) {
+                return Optional.of(version);
+            }
+        }
+        return bookService.getBookVersionByIsbn(isbn);
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.bookstore.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Single-flight for reads: while a query for a key is running, identical calls wait for its result instead of
+// running it again, so a burst of requests for one trending book costs one database execution. Results are
+// shared between the callers of a flight and must not be modified.
+@Component
+public class BookReadCoalescer {
+
+    static final int LISTENER_ORDER = 0;
+
+    private final boolean enabled;
+    private final ConcurrentMap<FlightKey, CompletableFuture<Object>> flights = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Counters> counters = new ConcurrentHashMap<>();
+
+    public BookReadCoalescer(@Value("${bookstore.coalescing.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    // key must have value equality; operation names the query for the stats and keeps key spaces apart
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String operation, Object key, Supplier<T> query) {
+        // A read-write transaction must see its own writes, which a shared flight may not. Read-only ones have none
+        // to see, and under the prod profile's lazy connection proxy a waiter never fetches its reader connection.
+        if (!enabled || TransactionSynchronizationManager.isActualTransactionActive()
+                        && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return query.get();
+        }
+        Counters operationCounters = counters.computeIfAbsent(operation, name -> new Counters());
+        FlightKey flightKey = new FlightKey(operation, key);
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> running = flights.putIfAbsent(flightKey, flight);
+        if (running != null) {
+            operationCounters.coalesced.increment();
+            return (T) await(running);
+        }
+        operationCounters.executed.increment();
+        try {
+            T result = query.get();
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(flightKey, flight);
+        }
+    }
+
+    // A flight that started before a write committed may return what the write replaced, so calls arriving after
+    // the commit start new flights. Runs before the writer is released, as BookCache's invalidation does, and
+    // ahead of it: a cache miss after the generation bump must not be able to join a flight from before the write.
+    @Order(LISTENER_ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        flights.clear();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        Map<String, Object> operations = new TreeMap<>();
+        counters.forEach((operation, operationCounters) -> operations.put(operation, Map.of(
+            "executed", operationCounters.executed.sum(),
+            "coalesced", operationCounters.coalesced.sum())));
+        stats.put("enabled", enabled);
+        stats.put("inFlight", flights.size());
+        stats.put("executed", counters.values().stream().mapToLong(c -> c.executed.sum()).sum());
+        stats.put("coalesced", counters.values().stream().mapToLong(c -> c.coalesced.sum()).sum());
+        stats.put("operations", operations);
+        return stats;
+    }
+
+    // The leader's exception is rethrown to every waiter as it was thrown
+    private static Object await(CompletableFuture<Object> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private record FlightKey(String operation, Object key) {
+    }
+
+    private static final class Counters {
+        final LongAdder executed = new LongAdder();
+        final LongAdder coalesced = new LongAdder();
+    }
+}
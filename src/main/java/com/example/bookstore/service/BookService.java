@@ -1,51 +1,481 @@
 package com.example.bookstore.service;
 
+import com.example.bookstore.model.AuthorSummary;
+import com.example.bookstore.model.BatchGetRequest;
+import com.example.bookstore.model.BatchGetResult;
 import com.example.bookstore.model.Book;
+import com.example.bookstore.model.BookChange;
+import com.example.bookstore.model.BookChangePage;
+import com.example.bookstore.model.BookPage;
+import com.example.bookstore.model.BookVersion;
+import com.example.bookstore.model.StockAdjustment;
+import com.example.bookstore.repository.BookProjection;
+import com.example.bookstore.repository.BookProjectionRepository;
+import com.example.bookstore.repository.BookQuery;
+import com.example.bookstore.repository.BookQueryRepository;
 import com.example.bookstore.repository.BookRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
-import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
 public class BookService {
     
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int MAX_BATCH_GET_SIZE = 500;
+    
+    // Well under SQLite's bound-parameter limit, and large enough that a full batch is one query per key type
+    static final int IN_CLAUSE_CHUNK_SIZE = 500;
+    
+    // The trigram tokenizer cannot match terms shorter than three characters
+    private static final int MIN_FULL_TEXT_TERM_LENGTH = 3;
+    private static final Pattern ISBN_PREFIX = Pattern.compile("[0-9][0-9Xx-]*");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    
     private final BookRepository bookRepository;
+    private final BookProjectionRepository projectionRepository;
+    private final BookQueryRepository queryRepository;
     private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final BookCache bookCache;
+    private final BookReadCoalescer readCoalescer;
+    private final BookWriteQueue writeQueue;
+    private final ApplicationEventPublisher eventPublisher;
     
-    public BookService(BookRepository bookRepository, NamedParameterJdbcTemplate jdbcTemplate) {
+    private final SearchQueries<Book> bookQueries;
+    
+    public BookService(BookRepository bookRepository, BookProjectionRepository projectionRepository,
+                       BookQueryRepository queryRepository, NamedParameterJdbcTemplate jdbcTemplate,
+                       BookCache bookCache, BookReadCoalescer readCoalescer,
+                       BookWriteQueue writeQueue, ApplicationEventPublisher eventPublisher) {
         this.bookRepository = bookRepository;
+        this.projectionRepository = projectionRepository;
+        this.queryRepository = queryRepository;
+        this.bookQueries = new SearchQueries<>(bookRepository::findByTitleContaining,
+            bookRepository::searchFullText, bookRepository::findByIsbnRange);
         this.jdbcTemplate = jdbcTemplate;
+        this.bookCache = bookCache;
+        this.readCoalescer = readCoalescer;
+        this.writeQueue = writeQueue;
+        this.eventPublisher = eventPublisher;
     }
     
+    @Transactional(readOnly = true)
     public List<Book> getAllBooks() {
         return bookRepository.findAll();
     }
     
+    // Sparse variants select only the requested columns and skip building Book instances
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getAllBooks(BookProjection projection) {
+        return projectionRepository.findAll(projection);
+    }
+    
+    @Transactional(readOnly = true)
+    public BookPage<Book> getBooksPage(String after, Integer limit) {
+        return page(after, limit, bookRepository::findPageAfter, Book::getId);
+    }
+    
+    @Transactional(readOnly = true)
+    public BookPage<Map<String, Object>> getBooksPage(String after, Integer limit, BookProjection projection) {
+        return page(after, limit, (afterId, size) -> projectionRepository.findPageAfter(projection, afterId, size),
+            row -> (Long) row.get("id"));
+    }
+    
+    private static <T> BookPage<T> page(String after, Integer limit, BiFunction<Long, Integer, List<T>> query,
+                                        Function<T, Long> idOf) {
+        int pageSize = pageSize(limit);
+        long afterId = after != null ? BookCursor.decode(after) : 0L;
+        
+        // Fetch one extra row to know whether another page exists without a COUNT query
+        List<T> rows = query.apply(afterId, pageSize + 1);
+        if (rows.size() <= pageSize) {
+            return new BookPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, pageSize);
+        return new BookPage<>(items, BookCursor.encode(idOf.apply(items.get(pageSize - 1))));
+    }
+    
+    // Filtered pages in price, quantity or id order; the cursor carries the last row's sort key and id
+    @Transactional(readOnly = true)
+    public BookPage<Book> queryBooks(BookQuery query, String after, Integer limit) {
+        int pageSize = pageSize(limit);
+        BookQuery.Sort sort = query.sort();
+        String cursorSort = sort.name().toLowerCase(Locale.ROOT) + (query.descending() ? "-desc" : "-asc");
+        Object afterValue = null;
+        Long afterId = null;
+        if (after != null) {
+            BookCursor.Key key = BookCursor.decodeKey(cursorSort, after);
+            try {
+                afterValue = sort.parseKey(key.value());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + after);
+            }
+            afterId = key.id();
+        }
+        
+        List<Book> rows = queryRepository.find(query, afterValue, afterId, pageSize + 1);
+        if (rows.size() <= pageSize) {
+            return new BookPage<>(rows, null);
+        }
+        List<Book> items = rows.subList(0, pageSize);
+        Book last = items.get(pageSize - 1);
+        return new BookPage<>(items, BookCursor.encodeKey(cursorSort, sort.keyOf(last), last.getId()));
+    }
+    
+    // Books changed after the cursor, oldest change first; one read transaction keeps the log and the rows consistent
+    @Transactional(readOnly = true)
+    public BookChangePage getChanges(String since, Integer limit) {
+        int pageSize = pageSize(limit);
+        long afterSeq = since != null ? BookCursor.decodeSequence(since) : 0L;
+        
+        List<ChangeRow> rows = jdbcTemplate.query(
+            "SELECT seq, book_id, deleted FROM book_changes WHERE seq > :since ORDER BY seq LIMIT :limit",
+            new MapSqlParameterSource().addValue("since", afterSeq).addValue("limit", pageSize + 1),
+            (rs, rowNum) -> new ChangeRow(rs.getLong("seq"), rs.getLong("book_id"), rs.getBoolean("deleted")));
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
+        
+        List<Long> liveIds = rows.stream().filter(row -> !row.deleted()).map(ChangeRow::bookId).toList();
+        Map<Long, Book> books = new HashMap<>();
+        if (!liveIds.isEmpty()) {
+            bookRepository.findAllById(liveIds).forEach(book -> books.put(book.getId(), book));
+        }
+        
+        List<BookChange> changes = new ArrayList<>(rows.size());
+        for (ChangeRow row : rows) {
+            Book book = books.get(row.bookId());
+            changes.add(new BookChange(row.seq(), row.bookId(), book == null, book));
+        }
+        long lastSeq = rows.isEmpty() ? afterSeq : rows.get(rows.size() - 1).seq();
+        return new BookChangePage(changes, BookCursor.encodeSequence(lastSeq), hasMore);
+    }
+    
+    // Version probes for conditional GETs: one indexed lookup in book_changes, without loading the book.
+    // Coalesced, so a burst of identical requests runs each query once. Controllers reach these and the
+    // single-book reads through BookLookupService, which tries the catalog snapshot first.
+    @Transactional(readOnly = true)
+    public Optional<BookVersion> getBookVersion(Long id) {
+        return readCoalescer.execute("bookVersion", id, () -> bookRepository.findVersion(id));
+    }
+    
+    @Transactional(readOnly = true)
+    public Optional<BookVersion> getBookVersionByIsbn(String isbn) {
+        return readCoalescer.execute("bookVersionByIsbn", isbn, () -> bookRepository.findVersionByIsbn(isbn));
+    }
+    
+    // Every insert, update and delete moves the newest seq, so it versions any list over the catalog
+    @Transactional(readOnly = true)
+    public BookVersion getCatalogVersion() {
+        return readCoalescer.execute("catalogVersion", "", bookRepository::findCatalogVersion);
+    }
+    
+    private static int pageSize(Integer limit) {
+        int pageSize = limit != null ? limit : DEFAULT_PAGE_SIZE;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return pageSize;
+    }
+    
+    private record ChangeRow(long seq, long bookId, boolean deleted) {
+    }
+    
+    @Transactional(readOnly = true)
+    public void streamAllBooks(Consumer<Book> consumer) {
+        try (Stream<Book> books = bookRepository.streamAll()) {
+            books.forEach(consumer);
+        }
+    }
+    
+    @Transactional(readOnly = true)
     public Optional<Book> getBookById(Long id) {
-        return bookRepository.findById(id);
+        return bookCache.getById(id, key -> readCoalescer.execute("bookById", key, () -> bookRepository.findById(key)));
     }
     
+    @Transactional(readOnly = true)
     public Optional<Book> getBookByIsbn(String isbn) {
-        return bookRepository.findByIsbn(isbn);
+        return bookCache.getByIsbn(isbn,
+            key -> readCoalescer.execute("bookByIsbn", key, () -> bookRepository.findByIsbn(key)));
     }
     
+    @Transactional(readOnly = true)
+    public BatchGetResult getBooks(BatchGetRequest request) {
+        List<Long> ids = request.getIds() != null ? request.getIds() : List.of();
+        List<String> isbns = request.getIsbns() != null ? request.getIsbns() : List.of();
+        if (ids.size() + isbns.size() > MAX_BATCH_GET_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_GET_SIZE + " ids and isbns per request");
+        }
+        // contains(null) throws on immutable lists, so check element by element
+        if (ids.stream().anyMatch(Objects::isNull) || isbns.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("ids and isbns must not contain null");
+        }
+        
+        Map<Long, Book> byId = ids.isEmpty() ? Map.of()
+            : bookCache.getAllById(ids, missing -> inChunks(missing, this::findAllById));
+        Map<String, Book> byIsbn = isbns.isEmpty() ? Map.of()
+            : bookCache.getAllByIsbn(isbns, missing -> inChunks(missing, bookRepository::findByIsbnIn));
+        return new BatchGetResult(
+            ids.stream().map(id -> new BatchGetResult.Lookup<>(id, byId.get(id))).toList(),
+            isbns.stream().map(isbn -> new BatchGetResult.Lookup<>(isbn, byIsbn.get(isbn))).toList());
+    }
+    
+    private List<Book> findAllById(List<Long> ids) {
+        List<Book> books = new ArrayList<>(ids.size());
+        bookRepository.findAllById(ids).forEach(books::add);
+        return books;
+    }
+    
+    private static <K> List<Book> inChunks(List<K> keys, Function<List<K>, List<Book>> query) {
+        List<Book> books = new ArrayList<>(keys.size());
+        for (int from = 0; from < keys.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+            books.addAll(query.apply(keys.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, keys.size()))));
+        }
+        return books;
+    }
+    
+    @Transactional(readOnly = true)
     public List<Book> getBooksByAuthor(String author) {
         return bookRepository.findByAuthor(author);
     }
     
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getBooksByAuthor(String author, BookProjection projection) {
+        return projectionRepository.findByAuthor(projection, author);
+    }
+    
+    // Read from author_stats, which the books triggers keep current, so listing never aggregates over books
+    @Transactional(readOnly = true)
+    public List<AuthorSummary> getAuthors() {
+        return jdbcTemplate.query("SELECT * FROM author_stats ORDER BY author", AUTHOR_MAPPER);
+    }
+    
+    @Transactional(readOnly = true)
+    public Optional<AuthorSummary> getAuthor(String author) {
+        return jdbcTemplate.query("SELECT * FROM author_stats WHERE author = :author",
+            Map.of("author", author), AUTHOR_MAPPER).stream().findFirst();
+    }
+    
+    private static final RowMapper<AuthorSummary> AUTHOR_MAPPER = (rs, rowNum) -> new AuthorSummary(
+        rs.getString("author"), rs.getLong("book_count"), rs.getLong("total_quantity"),
+        rs.getBigDecimal("min_price"), rs.getBigDecimal("max_price"));
+    
+    // Searches are not cached, so a trending title reaches the database on every request; coalescing merges
+    // the concurrent ones, which share flights inside their read-only transactions
+    @Transactional(readOnly = true)
     public List<Book> searchBooksByTitle(String title) {
-        return bookRepository.findByTitleContaining(title);
+        return readCoalescer.execute("searchByTitle", title, () -> searchByTitle(title, bookQueries));
+    }
+    
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> searchBooksByTitle(String title, BookProjection projection) {
+        return searchByTitle(title, projectedQueries(projection));
+    }
+    
+    @Transactional(readOnly = true)
+    public List<Book> searchBooks(String query, int page, int size) {
+        return readCoalescer.execute("search", List.of(query, page, size), () -> search(query, page, size, bookQueries));
+    }
+    
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> searchBooks(String query, int page, int size, BookProjection projection) {
+        return search(query, page, size, projectedQueries(projection));
+    }
+    
+    private SearchQueries<Map<String, Object>> projectedQueries(BookProjection projection) {
+        return new SearchQueries<>(
+            title -> projectionRepository.findByTitleContaining(projection, title),
+            (match, limit, offset) -> projectionRepository.searchFullText(projection, match, limit, offset),
+            (from, to, limit, offset) -> projectionRepository.findByIsbnRange(projection, from, to, limit, offset));
     }
     
+    private static <T> List<T> searchByTitle(String title, SearchQueries<T> queries) {
+        if (title.length() < MIN_FULL_TEXT_TERM_LENGTH) {
+            return queries.titleContaining().apply(title);
+        }
+        return queries.fullText().search("title : " + quoteFullTextTerm(title), -1, 0);
+    }
+    
+    private static <T> List<T> search(String query, int page, int size, SearchQueries<T> queries) {
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("page must be >= 0 and size between 1 and " + MAX_PAGE_SIZE);
+        }
+        String trimmed = query.trim();
+        int offset = page * size;
+        
+        if (ISBN_PREFIX.matcher(trimmed).matches()) {
+            String upperBound = trimmed.substring(0, trimmed.length() - 1)
+                + (char) (trimmed.charAt(trimmed.length() - 1) + 1);
+            List<T> byIsbn = queries.isbnRange().find(trimmed, upperBound, size, offset);
+            // Numeric titles such as "1984" fall through to full-text search when no ISBN matches
+            if (!byIsbn.isEmpty() || (page > 0 && !queries.isbnRange().find(trimmed, upperBound, 1, 0).isEmpty())) {
+                return byIsbn;
+            }
+        }
+        
+        // Every term must appear somewhere in title or author
+        StringBuilder match = new StringBuilder();
+        for (String term : WHITESPACE.split(trimmed)) {
+            if (term.length() >= MIN_FULL_TEXT_TERM_LENGTH) {
+                if (match.length() > 0) {
+                    match.append(' ');
+                }
+                match.append(quoteFullTextTerm(term));
+            }
+        }
+        if (match.length() == 0) {
+            throw new IllegalArgumentException(
+                "Search query must contain a term of at least " + MIN_FULL_TEXT_TERM_LENGTH + " characters");
+        }
+        return queries.fullText().search(match.toString(), size, offset);
+    }
+    
+    // The search queries in one shape, so entity and projected searches share the ISBN and full-text logic
+    private record SearchQueries<T>(Function<String, List<T>> titleContaining,
+                                    FullTextQuery<T> fullText,
+                                    IsbnRangeQuery<T> isbnRange) {
+    }
+    
+    @FunctionalInterface
+    private interface FullTextQuery<T> {
+        List<T> search(String match, int limit, int offset);
+    }
+    
+    @FunctionalInterface
+    private interface IsbnRangeQuery<T> {
+        List<T> find(String from, String to, int limit, int offset);
+    }
+    
+    // Quoting turns user input into an FTS5 string literal so operators like OR/NEAR/* are not interpreted
+    private static String quoteFullTextTerm(String term) {
+        return '"' + term.replace("\"", "\"\"") + '"';
+    }
+    
+    // Mutations run in the write queue's transaction on its thread;
+    // SUPPORTS keeps the caller from holding a connection while it waits
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Book createBook(Book book) {
+        return writeQueue.execute(() -> insertBook(book));
+    }
+    
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Book updateBook(Long id, Book bookDetails) {
+        return writeQueue.execute(() -> replaceBook(id, bookDetails));
+    }
+    
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Book patchBook(Long id, Book bookDetails) {
+        return writeQueue.execute(() -> mergeBook(id, bookDetails));
+    }
+    
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void deleteBook(Long id) {
+        writeQueue.execute(() -> removeBook(id));
+    }
+    
+    // Stock changes are single conditional UPDATEs, never read-modify-write, so concurrent checkouts cannot lose updates
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Book decrementStock(Long id, int quantity) {
+        requirePositive(quantity);
+        return writeQueue.execute(() -> publishStockChanges(List.of(applyDecrement(id, quantity))).get(0));
+    }
+    
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Book incrementStock(Long id, int quantity) {
+        requirePositive(quantity);
+        return writeQueue.execute(() -> publishStockChanges(List.of(applyIncrement(id, quantity))).get(0));
+    }
+    
+    // All lines apply in one queued operation; the first failing line rolls back the whole cart
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<Book> decrementStock(List<StockAdjustment> adjustments) {
+        validateAdjustments(adjustments);
+        return writeQueue.execute(() -> bookRepository.adjustStockAtomically(bookIds(adjustments), () -> {
+            List<Book> books = new ArrayList<>(adjustments.size());
+            for (StockAdjustment adjustment : adjustments) {
+                books.add(applyDecrement(adjustment.getBookId(), adjustment.getQuantity()));
+            }
+            return publishStockChanges(books);
+        }));
+    }
+    
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<Book> incrementStock(List<StockAdjustment> adjustments) {
+        validateAdjustments(adjustments);
+        return writeQueue.execute(() -> bookRepository.adjustStockAtomically(bookIds(adjustments), () -> {
+            List<Book> books = new ArrayList<>(adjustments.size());
+            for (StockAdjustment adjustment : adjustments) {
+                books.add(applyIncrement(adjustment.getBookId(), adjustment.getQuantity()));
+            }
+            return publishStockChanges(books);
+        }));
+    }
+    
+    private static List<Long> bookIds(List<StockAdjustment> adjustments) {
+        return adjustments.stream().map(StockAdjustment::getBookId).toList();
+    }
+    
+    private Book applyDecrement(Long id, int quantity) {
+        return bookRepository.decrementStock(id, quantity, LocalDateTime.now())
+            .orElseThrow(() -> bookRepository.existsById(id)
+                ? new InsufficientStockException(id, quantity)
+                : new IllegalArgumentException("Book not found with id: " + id));
+    }
+    
+    private Book applyIncrement(Long id, int quantity) {
+        return bookRepository.incrementStock(id, quantity, LocalDateTime.now())
+            .orElseThrow(() -> new IllegalArgumentException("Book not found with id: " + id));
+    }
+    
+    // Published only once every line has applied, so a rolled-back cart leaves no events behind
+    private List<Book> publishStockChanges(List<Book> books) {
+        for (Book book : books) {
+            eventPublisher.publishEvent(BookChangedEvent.updated(book, book));
+        }
+        return books;
+    }
+    
+    private static void validateAdjustments(List<StockAdjustment> adjustments) {
+        if (adjustments == null || adjustments.isEmpty()) {
+            throw new IllegalArgumentException("At least one stock adjustment is required");
+        }
+        for (StockAdjustment adjustment : adjustments) {
+            if (adjustment.getBookId() == null || adjustment.getQuantity() == null) {
+                throw new IllegalArgumentException("bookId and quantity are required");
+            }
+            requirePositive(adjustment.getQuantity());
+        }
+    }
+    
+    private static void requirePositive(int quantity) {
+        if (quantity < 1) {
+            throw new IllegalArgumentException("quantity must be at least 1");
+        }
+    }
+    
+    private Book insertBook(Book book) {
         // Check if ISBN already exists
         if (book.getIsbn() != null && bookRepository.findByIsbn(book.getIsbn()).isPresent()) {
             throw new IllegalArgumentException("Book with ISBN " + book.getIsbn() + " already exists");
@@ -55,32 +485,15 @@ public class BookService {
         book.setCreatedAt(now);
         book.setUpdatedAt(now);
         
-        // Use custom insert with SQLite's last_insert_rowid() to avoid getGeneratedKeys() issue
-        String insertSql = "INSERT INTO books (title, author, isbn, price, quantity, created_at, updated_at) " +
-                          "VALUES (:title, :author, :isbn, :price, :quantity, :createdAt, :updatedAt)";
-        
-        SqlParameterSource parameters = new MapSqlParameterSource()
-            .addValue("title", book.getTitle())
-            .addValue("author", book.getAuthor())
-            .addValue("isbn", book.getIsbn())
-            .addValue("price", book.getPrice())
-            .addValue("quantity", book.getQuantity())
-            .addValue("createdAt", book.getCreatedAt())
-            .addValue("updatedAt", book.getUpdatedAt());
-        
-        jdbcTemplate.update(insertSql, parameters);
-        
-        // Get the generated ID using SQLite's last_insert_rowid()
-        Long generatedId = jdbcTemplate.getJdbcOperations()
-            .queryForObject("SELECT last_insert_rowid()", Long.class);
-        
-        book.setId(generatedId);
+        book.setId(bookRepository.insert(book));
+        eventPublisher.publishEvent(BookChangedEvent.created(book));
         return book;
     }
     
-    public Book updateBook(Long id, Book bookDetails) {
+    private Book replaceBook(Long id, Book bookDetails) {
         Book book = bookRepository.findById(id)
             .orElseThrow(() -> new IllegalArgumentException("Book not found with id: " + id));
+        Book before = new Book(book);
         
         // Check if ISBN is being changed and if it conflicts with another book
         if (bookDetails.getIsbn() != null && 
@@ -106,12 +519,15 @@ public class BookService {
         }
         book.setUpdatedAt(LocalDateTime.now());
         
-        return bookRepository.save(book);
+        Book saved = bookRepository.save(book);
+        eventPublisher.publishEvent(BookChangedEvent.updated(before, saved));
+        return saved;
     }
     
-    public Book patchBook(Long id, Book bookDetails) {
+    private Book mergeBook(Long id, Book bookDetails) {
         Book book = bookRepository.findById(id)
             .orElseThrow(() -> new IllegalArgumentException("Book not found with id: " + id));
+        Book before = new Book(book);
         
         // Check if ISBN is being changed and if it conflicts with another book
         if (bookDetails.getIsbn() != null && 
@@ -138,16 +554,20 @@ public class BookService {
         }
         book.setUpdatedAt(LocalDateTime.now());
         
-        return bookRepository.save(book);
+        Book saved = bookRepository.save(book);
+        eventPublisher.publishEvent(BookChangedEvent.updated(before, saved));
+        return saved;
     }
     
-    public void deleteBook(Long id) {
-        if (!bookRepository.existsById(id)) {
-            throw new IllegalArgumentException("Book not found with id: " + id);
-        }
+    private Book removeBook(Long id) {
+        Book book = bookRepository.findById(id)
+            .orElseThrow(() -> new IllegalArgumentException("Book not found with id: " + id));
         bookRepository.deleteById(id);
+        eventPublisher.publishEvent(BookChangedEvent.deleted(book));
+        return book;
     }
     
+    @Transactional(readOnly = true)
     public boolean bookExists(Long id) {
         return bookRepository.existsById(id);
     }
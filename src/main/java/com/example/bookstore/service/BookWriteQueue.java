@@ -0,0 +1,194 @@
+package com.example.bookstore.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Funnels every database mutation through one writer thread that group-commits them in micro-batches.
+// SQLite admits a single writer anyway; queueing in memory replaces lock contention and SQLITE_BUSY retries.
+@Component
+public class BookWriteQueue implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(BookWriteQueue.class);
+
+    private final boolean enabled;
+    private final int maxBatchSize;
+    private final long maxBatchDelayNanos;
+    private final BlockingQueue<WriteTask<?>> queue;
+    private final TransactionTemplate batchTransaction;
+    // Each operation runs in a savepoint so one failure does not roll back the rest of its batch
+    private final TransactionTemplate operationTransaction;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    private final AtomicLong operations = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+
+    public BookWriteQueue(PlatformTransactionManager transactionManager,
+                          @Value("${bookstore.write-queue.enabled:true}") boolean enabled,
+                          @Value("${bookstore.write-queue.max-batch-size:64}") int maxBatchSize,
+                          @Value("${bookstore.write-queue.max-batch-delay:1ms}") Duration maxBatchDelay,
+                          @Value("${bookstore.write-queue.capacity:10000}") int capacity) {
+        this.enabled = enabled;
+        this.maxBatchSize = maxBatchSize;
+        this.maxBatchDelayNanos = maxBatchDelay.toNanos();
+        this.queue = new LinkedBlockingQueue<>(capacity);
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+        this.operationTransaction = new TransactionTemplate(transactionManager);
+        this.operationTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+        this.writer = new Thread(this::drain, "book-writer");
+        this.writer.setDaemon(true);
+        if (enabled) {
+            this.writer.start();
+        }
+    }
+
+    // Blocks until the operation's batch has committed and rethrows its RuntimeException or Error, if any
+    public <T> T execute(Supplier<T> operation) {
+        try {
+            return submit(operation).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> operation) {
+        // Inline when disabled, and when a queued operation itself writes, to avoid waiting on ourselves
+        if (!enabled || Thread.currentThread() == writer) {
+            try {
+                return CompletableFuture.completedFuture(operationTransaction.execute(status -> operation.get()));
+            } catch (Throwable e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        if (!running) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Write queue is shut down"));
+        }
+        WriteTask<T> task = new WriteTask<>(operation);
+        try {
+            // Blocking put applies backpressure to callers when the writer falls behind
+            queue.put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(new IllegalStateException("Interrupted while queueing write", e));
+        }
+        return task.future;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("operations", operations.get());
+        stats.put("batches", batches.get());
+        stats.put("queued", queue.size());
+        return stats;
+    }
+
+    private void drain() {
+        List<WriteTask<?>> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                WriteTask<?> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxBatchDelayNanos;
+                while (batch.size() < maxBatchSize) {
+                    WriteTask<?> next = queue.poll();
+                    if (next == null) {
+                        long remaining = deadline - System.nanoTime();
+                        if (remaining <= 0 || (next = queue.poll(remaining, TimeUnit.NANOSECONDS)) == null) {
+                            break;
+                        }
+                    }
+                    batch.add(next);
+                }
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } catch (Throwable e) {
+                // Whatever escaped commit() must not stop the writer; fail the batch's callers instead of hanging them
+                log.error("Unexpected failure in book writer", e);
+                batch.forEach(task -> task.future.completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+        WriteTask<?> abandoned;
+        while ((abandoned = queue.poll()) != null) {
+            abandoned.future.completeExceptionally(new IllegalStateException("Write queue is shut down"));
+        }
+    }
+
+    private void commit(List<WriteTask<?>> batch) {
+        List<Runnable> completions = new ArrayList<>(batch.size());
+        try {
+            batchTransaction.executeWithoutResult(status -> {
+                for (WriteTask<?> task : batch) {
+                    completions.add(task.run(operationTransaction));
+                }
+            });
+        } catch (Throwable e) {
+            // The commit itself failed, so nothing in the batch was persisted
+            batch.forEach(task -> task.future.completeExceptionally(e));
+            return;
+        }
+        operations.addAndGet(batch.size());
+        batches.incrementAndGet();
+        // Callers are released only after commit, so they never observe uncommitted state
+        completions.forEach(Runnable::run);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        if (enabled) {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    private static final class WriteTask<T> {
+
+        private final Supplier<T> operation;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        private WriteTask(Supplier<T> operation) {
+            this.operation = operation;
+        }
+
+        private Runnable run(TransactionTemplate operationTransaction) {
+            try {
+                T result = operationTransaction.execute(status -> operation.get());
+                return () -> future.complete(result);
+            } catch (Throwable e) {
+                // Errors too: the savepoint is rolled back, and the writer thread must survive to serve the next batch
+                return () -> future.completeExceptionally(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,792 @@
+package com.example.bookstore.service;
+
+import com.example.bookstore.model.Book;
+import com.example.bookstore.model.BookVersion;
+import com.example.bookstore.repository.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+import java.util.stream.Stream;
+
+// Optional in-memory copy of the whole catalog (bookstore.catalog-snapshot.enabled) serving lookups by id and ISBN,
+// and their version probes, without touching the database. Books are held column by column in primitive arrays:
+// prices as unscaled longs with a scale, timestamps as epoch nanos, strings as codes into a shared dictionary, and
+// open-addressing tables map ids and ISBNs to rows. A lookup allocates nothing until it builds the returned Book.
+//
+// The snapshot follows book_changes: it loads everything once, then applies each change after its commit, and polls
+// for writes that publish no event, such as bulk imports. Only the refresher thread loads, patches and compacts it;
+// writers signal it and wait for its pass. Readers take an optimistic StampedLock read and retry under the read lock
+// if a patch overlapped them.
+@Component
+public class CatalogSnapshot implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogSnapshot.class);
+
+    private static final int CHANGE_BATCH_SIZE = 1000;
+    // Rows of deleted books are not reused; the live ones are copied to fresh tables once the dead ones outnumber them
+    private static final int MIN_DEAD_ROWS_FOR_COMPACTION = 1024;
+
+    private final boolean enabled;
+    private final long refreshIntervalMillis;
+    private final BookRepository bookRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readTransaction;
+    private final Thread refresher;
+    private volatile boolean running = true;
+
+    private final StampedLock lock = new StampedLock();
+    // Null until the first load completes and after a failed pass; replaced wholesale by loads and compactions,
+    // patched in place under the write lock
+    private volatile Columns columns;
+    // Newest book_changes seq applied; written only by the refresher
+    private volatile long appliedSeq;
+
+    // Guards the pass counters. A pass started after a request covers every change committed before it
+    private final Object passes = new Object();
+    private long requestedPass;
+    private long completedPass;
+    private boolean reloadRequested;
+    private boolean stopped;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder catchUps = new LongAdder();
+
+    public CatalogSnapshot(BookRepository bookRepository, NamedParameterJdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${bookstore.catalog-snapshot.enabled:false}") boolean enabled,
+                           @Value("${bookstore.catalog-snapshot.refresh-interval:1s}") Duration refreshInterval) {
+        this.enabled = enabled;
+        this.refreshIntervalMillis = refreshInterval.toMillis();
+        this.bookRepository = bookRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        // Read-only, so the prod profile serves the refresher from the reader pool
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.refresher = new Thread(this::refresh, "catalog-snapshot");
+        this.refresher.setDaemon(true);
+    }
+
+    // Loads off the startup path; lookups go to the database until the first load completes
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            refresher.start();
+        }
+    }
+
+    public boolean isReady() {
+        return columns != null;
+    }
+
+    // Null when the book is not in the snapshot, or the snapshot was just dropped; callers fall back to the database,
+    // which also covers a lookup racing the catch-up after a create
+    public Book getById(long id) {
+        long stamp = lock.tryOptimisticRead();
+        Book book = null;
+        try {
+            Columns c = columns;
+            book = materialize(c, c.findRow(id));
+        } catch (RuntimeException e) {
+            // Torn read of a concurrent patch; validate fails and the read is repeated below
+        }
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                Columns c = columns;
+                book = c != null ? materialize(c, c.findRow(id)) : null;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        count(book);
+        return book;
+    }
+
+    public Book getByIsbn(String isbn) {
+        long stamp = lock.tryOptimisticRead();
+        Book book = null;
+        try {
+            Columns c = columns;
+            book = materialize(c, c.findRowByIsbn(isbn));
+        } catch (RuntimeException e) {
+            // As in getById
+        }
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                Columns c = columns;
+                book = c != null ? materialize(c, c.findRowByIsbn(isbn)) : null;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        count(book);
+        return book;
+    }
+
+    public BookVersion getVersion(long id) {
+        long stamp = lock.tryOptimisticRead();
+        BookVersion version = null;
+        try {
+            Columns c = columns;
+            version = version(c, c.findRow(id));
+        } catch (RuntimeException e) {
+            // As in getById
+        }
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                Columns c = columns;
+                version = c != null ? version(c, c.findRow(id)) : null;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return version;
+    }
+
+    public BookVersion getVersionByIsbn(String isbn) {
+        long stamp = lock.tryOptimisticRead();
+        BookVersion version = null;
+        try {
+            Columns c = columns;
+            version = version(c, c.findRowByIsbn(isbn));
+        } catch (RuntimeException e) {
+            // As in getById
+        }
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                Columns c = columns;
+                version = c != null ? version(c, c.findRowByIsbn(isbn)) : null;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return version;
+    }
+
+    private void count(Book book) {
+        (book != null ? hits : misses).increment();
+    }
+
+    // Applies the commit's changes before the writer releases its callers, so a client reads its own writes. Registered
+    // once per transaction, so a group commit of 64 writes waits for one catch-up. The writer only waits: the refresher
+    // thread does the work, and a failure there drops the snapshot rather than fail a write that has committed.
+    @EventListener
+    public void onBookChanged(BookChangedEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            catchUp();
+            return;
+        }
+        if (TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                catchUp();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(CatalogSnapshot.this);
+            }
+        });
+    }
+
+    // Waits for the refresher to apply every book_changes entry committed so far. Returns at once before the first
+    // load, when lookups still go to the database and the load will include the change.
+    public void catchUp() {
+        if (columns != null) {
+            awaitPass(false);
+        }
+    }
+
+    // Waits for the refresher to reload the whole catalog, e.g. after the database file was replaced
+    public void rebuild() {
+        awaitPass(true);
+    }
+
+    private void awaitPass(boolean reload) {
+        synchronized (passes) {
+            if (!refresher.isAlive() || stopped) {
+                return;
+            }
+            long pass = ++requestedPass;
+            reloadRequested |= reload;
+            passes.notifyAll();
+            while (completedPass < pass && !stopped) {
+                try {
+                    passes.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    // Drains book_changes newer than the last one applied
+    private void applyAllChanges() {
+        int applied;
+        do {
+            applied = readTransaction.execute(status -> applyChanges(appliedSeq));
+        } while (applied == CHANGE_BATCH_SIZE);
+        catchUps.increment();
+    }
+
+    private int applyChanges(long since) {
+        List<ChangeRow> changes = jdbcTemplate.query(
+            "SELECT seq, book_id, deleted, changed_at FROM book_changes WHERE seq > :since ORDER BY seq LIMIT :limit",
+            new MapSqlParameterSource().addValue("since", since).addValue("limit", CHANGE_BATCH_SIZE),
+            (rs, rowNum) -> new ChangeRow(rs.getLong("seq"), rs.getLong("book_id"), rs.getBoolean("deleted"),
+                epochMillis(rs.getString("changed_at"))));
+        if (changes.isEmpty()) {
+            return 0;
+        }
+        Map<Long, Book> books = new HashMap<>();
+        List<Long> liveIds = changes.stream().filter(change -> !change.deleted()).map(ChangeRow::bookId).toList();
+        if (!liveIds.isEmpty()) {
+            bookRepository.findAllById(liveIds).forEach(book -> books.put(book.getId(), book));
+        }
+
+        long stamp = lock.writeLock();
+        try {
+            for (ChangeRow change : changes) {
+                Book book = books.get(change.bookId());
+                if (book == null) {
+                    columns.remove(change.bookId());
+                } else if (columns.put(book)) {
+                    columns.setVersion(book.getId(), change.seq(), change.changedAt());
+                }
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        appliedSeq = changes.get(changes.size() - 1).seq();
+        return changes.size();
+    }
+
+    // Builds a fresh snapshot in one read transaction, then swaps it in; readers keep using the old one meanwhile
+    private void load() {
+        Columns fresh = new Columns(1024);
+        long seq = readTransaction.execute(status -> {
+            Long newest = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(MAX(seq), 0) FROM book_changes", Map.of(), Long.class);
+            try (Stream<Book> books = bookRepository.streamAll()) {
+                books.forEach(fresh::put);
+            }
+            jdbcTemplate.query("SELECT book_id, seq, changed_at FROM book_changes WHERE deleted = 0",
+                rs -> {
+                    fresh.setVersion(rs.getLong("book_id"), rs.getLong("seq"), epochMillis(rs.getString("changed_at")));
+                });
+            return newest;
+        });
+        swap(fresh);
+        appliedSeq = seq;
+        log.info("Catalog snapshot loaded: {} books, {} dictionary strings, at change {}",
+            fresh.liveRows, fresh.stringCount, seq);
+    }
+
+    // In memory, so writers waiting on the pass are not held up by a reload from the database
+    private void compactIfMostlyDead() {
+        Columns current = columns;
+        if (current.deadRows > current.liveRows && current.deadRows >= MIN_DEAD_ROWS_FOR_COMPACTION) {
+            Columns fresh = current.compact();
+            swap(fresh);
+            log.info("Catalog snapshot compacted: {} books, {} dead rows dropped", fresh.liveRows, current.deadRows);
+        }
+    }
+
+    private void swap(Columns fresh) {
+        long stamp = lock.writeLock();
+        try {
+            columns = fresh;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // One pass per wake-up: a reload when requested or after a failure, then a catch-up. Requests arriving during a
+    // pass are served together by the next one; without requests a pass runs every refresh interval.
+    private void refresh() {
+        try {
+            while (running) {
+                long pass;
+                boolean reload;
+                synchronized (passes) {
+                    pass = requestedPass;
+                    reload = reloadRequested || columns == null;
+                    reloadRequested = false;
+                }
+                try {
+                    if (reload) {
+                        load();
+                    }
+                    applyAllChanges();
+                    compactIfMostlyDead();
+                } catch (RuntimeException e) {
+                    // Changes may have been missed, so lookups go to the database until the next pass reloads
+                    log.warn("Catalog snapshot refresh failed; using the database until it reloads", e);
+                    swap(null);
+                }
+                synchronized (passes) {
+                    completedPass = pass;
+                    passes.notifyAll();
+                    if (requestedPass == completedPass && running) {
+                        passes.wait(refreshIntervalMillis);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            // Shutting down
+        } finally {
+            synchronized (passes) {
+                stopped = true;
+                passes.notifyAll();
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("ready", isReady());
+        Columns current = columns;
+        if (current != null) {
+            stats.put("books", current.liveRows);
+            stats.put("deadRows", current.deadRows);
+            stats.put("dictionaryStrings", current.stringCount);
+        }
+        stats.put("appliedSeq", appliedSeq);
+        stats.put("catchUps", catchUps.sum());
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        return stats;
+    }
+
+    @Override
+    public void destroy() {
+        running = false;
+        refresher.interrupt();
+    }
+
+    private static Book materialize(Columns c, int row) {
+        if (row < 0) {
+            return null;
+        }
+        Book book = new Book();
+        book.setId(c.ids[row]);
+        book.setTitle(c.string(c.titles[row]));
+        book.setAuthor(c.string(c.authors[row]));
+        book.setIsbn(c.string(c.isbns[row]));
+        book.setPrice(c.priceScales[row] == Columns.NULL_SCALE ? null : BigDecimal.valueOf(c.prices[row], c.priceScales[row]));
+        book.setQuantity(c.quantities[row] == Columns.NULL_INT ? null : c.quantities[row]);
+        book.setCreatedAt(toLocalDateTime(c.createdAt[row]));
+        book.setUpdatedAt(toLocalDateTime(c.updatedAt[row]));
+        return book;
+    }
+
+    private static BookVersion version(Columns c, int row) {
+        if (row < 0 || c.seqs[row] == 0) {
+            return null;
+        }
+        long changedAt = c.changedAt[row];
+        return new BookVersion(c.seqs[row], changedAt == Columns.NULL_LONG ? null : Instant.ofEpochMilli(changedAt));
+    }
+
+    private static long epochMillis(String changedAt) {
+        return changedAt != null ? Instant.parse(changedAt).toEpochMilli() : Columns.NULL_LONG;
+    }
+
+    private static long epochNanos(LocalDateTime value) {
+        if (value == null) {
+            return Columns.NULL_LONG;
+        }
+        return Math.addExact(Math.multiplyExact(value.toEpochSecond(ZoneOffset.UTC), 1_000_000_000L), value.getNano());
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochNanos) {
+        if (epochNanos == Columns.NULL_LONG) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochNanos, 1_000_000_000L),
+            (int) Math.floorMod(epochNanos, 1_000_000_000L), ZoneOffset.UTC);
+    }
+
+    private record ChangeRow(long seq, long bookId, boolean deleted, long changedAt) {
+    }
+
+    // Mutated only under the write lock, or before publication. Slot tables hold row + 1, with 0 for an empty slot
+    // and -1 for a removed entry, so probes for other keys keep walking past it.
+    static final class Columns {
+
+        static final int NULL_INT = Integer.MIN_VALUE;
+        static final long NULL_LONG = Long.MIN_VALUE;
+        static final byte NULL_SCALE = Byte.MIN_VALUE;
+        private static final int REMOVED = -1;
+
+        long[] ids;
+        int[] titles;
+        int[] authors;
+        int[] isbns;
+        long[] prices;
+        byte[] priceScales;
+        int[] quantities;
+        long[] createdAt;
+        long[] updatedAt;
+        long[] seqs;
+        long[] changedAt;
+        int rowCount;
+        int liveRows;
+        int deadRows;
+
+        int[] idSlots;
+        int[] isbnSlots;
+        int usedIdSlots;
+        int usedIsbnSlots;
+
+        String[] strings;
+        int stringCount;
+        private final Map<String, Integer> codes = new HashMap<>();
+
+        Columns(int capacity) {
+            ids = new long[capacity];
+            titles = new int[capacity];
+            authors = new int[capacity];
+            isbns = new int[capacity];
+            prices = new long[capacity];
+            priceScales = new byte[capacity];
+            quantities = new int[capacity];
+            createdAt = new long[capacity];
+            updatedAt = new long[capacity];
+            seqs = new long[capacity];
+            changedAt = new long[capacity];
+            idSlots = new int[capacity * 2];
+            isbnSlots = new int[capacity * 2];
+            strings = new String[capacity];
+        }
+
+        int findRow(long id) {
+            int[] slots = idSlots;
+            int mask = slots.length - 1;
+            for (int i = hash(id) & mask, probes = 0; probes < slots.length; i = (i + 1) & mask, probes++) {
+                int slot = slots[i];
+                if (slot == 0) {
+                    return -1;
+                }
+                if (slot > 0 && ids[slot - 1] == id) {
+                    return slot - 1;
+                }
+            }
+            return -1;
+        }
+
+        int findRowByIsbn(String isbn) {
+            int[] slots = isbnSlots;
+            int mask = slots.length - 1;
+            for (int i = hash(isbn) & mask, probes = 0; probes < slots.length; i = (i + 1) & mask, probes++) {
+                int slot = slots[i];
+                if (slot == 0) {
+                    return -1;
+                }
+                if (slot > 0 && isbn.equals(string(isbns[slot - 1]))) {
+                    return slot - 1;
+                }
+            }
+            return -1;
+        }
+
+        String string(int code) {
+            return code < 0 ? null : strings[code];
+        }
+
+        // Inserts or overwrites the book's row; false when the price does not fit a long, leaving it to the database
+        boolean put(Book book) {
+            BigDecimal price = book.getPrice();
+            if (price != null && (price.unscaledValue().bitLength() > 63 || price.scale() != (byte) price.scale()
+                                  || price.scale() == NULL_SCALE)) {
+                remove(book.getId());
+                return false;
+            }
+            long created = epochNanos(book.getCreatedAt());
+            long updated = epochNanos(book.getUpdatedAt());
+            int row = findRow(book.getId());
+            if (row < 0) {
+                row = appendRow(book.getId());
+            } else if (isbns[row] >= 0 && !strings[isbns[row]].equals(book.getIsbn())) {
+                unindexIsbn(row);
+            }
+            titles[row] = intern(book.getTitle());
+            authors[row] = intern(book.getAuthor());
+            isbns[row] = intern(book.getIsbn());
+            prices[row] = price != null ? price.unscaledValue().longValue() : 0;
+            priceScales[row] = price != null ? (byte) price.scale() : NULL_SCALE;
+            quantities[row] = book.getQuantity() != null ? book.getQuantity() : NULL_INT;
+            createdAt[row] = created;
+            updatedAt[row] = updated;
+            if (book.getIsbn() != null) {
+                indexIsbn(book.getIsbn(), row);
+            }
+            return true;
+        }
+
+        // Copies the live rows into new tables, dropping dead rows and the strings only they used. Runs on the
+        // refresher, the only thread that mutates columns, so it reads this instance without the lock.
+        Columns compact() {
+            Columns fresh = new Columns(1024);
+            for (int row = 0; row < rowCount; row++) {
+                if (ids[row] == 0) {
+                    continue;
+                }
+                int copy = fresh.appendRow(ids[row]);
+                fresh.titles[copy] = fresh.intern(string(titles[row]));
+                fresh.authors[copy] = fresh.intern(string(authors[row]));
+                fresh.isbns[copy] = fresh.intern(string(isbns[row]));
+                fresh.prices[copy] = prices[row];
+                fresh.priceScales[copy] = priceScales[row];
+                fresh.quantities[copy] = quantities[row];
+                fresh.createdAt[copy] = createdAt[row];
+                fresh.updatedAt[copy] = updatedAt[row];
+                fresh.seqs[copy] = seqs[row];
+                fresh.changedAt[copy] = changedAt[row];
+                if (isbns[row] >= 0) {
+                    fresh.indexIsbn(strings[isbns[row]], copy);
+                }
+            }
+            return fresh;
+        }
+
+        void setVersion(long id, long seq, long changedAtMillis) {
+            int row = findRow(id);
+            if (row >= 0) {
+                seqs[row] = seq;
+                changedAt[row] = changedAtMillis;
+            }
+        }
+
+        void remove(long id) {
+            int slot = findIdSlot(id);
+            if (slot < 0) {
+                return;
+            }
+            int row = idSlots[slot] - 1;
+            removeSlot(idSlots, slot);
+            if (isbns[row] >= 0) {
+                unindexIsbn(row);
+            }
+            ids[row] = 0;
+            isbns[row] = -1;
+            liveRows--;
+            deadRows++;
+        }
+
+        // Changes are applied with each book's current row, so within a batch a book can take an ISBN before the
+        // change that moved it off its previous holder; the holder loses it here and regains its own when applied
+        private void indexIsbn(String isbn, int row) {
+            int slot = findIsbnSlot(isbn);
+            if (slot < 0) {
+                insertSlot(isbn, row);
+                return;
+            }
+            int holder = isbnSlots[slot] - 1;
+            if (holder != row) {
+                isbns[holder] = -1;
+                isbnSlots[slot] = row + 1;
+            }
+        }
+
+        private void unindexIsbn(int row) {
+            int slot = findIsbnSlot(strings[isbns[row]]);
+            if (slot >= 0 && isbnSlots[slot] - 1 == row) {
+                removeSlot(isbnSlots, slot);
+            }
+        }
+
+        private int appendRow(long id) {
+            if (rowCount == ids.length) {
+                growRows(ids.length * 2);
+            }
+            int row = rowCount++;
+            ids[row] = id;
+            isbns[row] = -1;
+            seqs[row] = 0;
+            changedAt[row] = NULL_LONG;
+            liveRows++;
+            // Keep both tables at most half full, counting removed entries, so probes stay short and terminate
+            if ((usedIdSlots + 1) * 2 > idSlots.length) {
+                idSlots = rehash(idSlots, true);
+                usedIdSlots = liveRows - 1;
+            }
+            insertIdSlot(id, row);
+            return row;
+        }
+
+        private void growRows(int capacity) {
+            ids = Arrays.copyOf(ids, capacity);
+            titles = Arrays.copyOf(titles, capacity);
+            authors = Arrays.copyOf(authors, capacity);
+            isbns = Arrays.copyOf(isbns, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+            priceScales = Arrays.copyOf(priceScales, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+            createdAt = Arrays.copyOf(createdAt, capacity);
+            updatedAt = Arrays.copyOf(updatedAt, capacity);
+            seqs = Arrays.copyOf(seqs, capacity);
+            changedAt = Arrays.copyOf(changedAt, capacity);
+        }
+
+        private void insertIdSlot(long id, int row) {
+            int mask = idSlots.length - 1;
+            int i = hash(id) & mask;
+            while (idSlots[i] > 0) {
+                i = (i + 1) & mask;
+            }
+            if (idSlots[i] == 0) {
+                usedIdSlots++;
+            }
+            idSlots[i] = row + 1;
+        }
+
+        private void insertSlot(String isbn, int row) {
+            if ((usedIsbnSlots + 1) * 2 > isbnSlots.length) {
+                isbnSlots = rehash(isbnSlots, false);
+                usedIsbnSlots = countUsed(isbnSlots);
+            }
+            int mask = isbnSlots.length - 1;
+            int i = hash(isbn) & mask;
+            while (isbnSlots[i] > 0) {
+                i = (i + 1) & mask;
+            }
+            if (isbnSlots[i] == 0) {
+                usedIsbnSlots++;
+            }
+            isbnSlots[i] = row + 1;
+        }
+
+        private int findIdSlot(long id) {
+            int mask = idSlots.length - 1;
+            for (int i = hash(id) & mask, probes = 0; probes < idSlots.length; i = (i + 1) & mask, probes++) {
+                int slot = idSlots[i];
+                if (slot == 0) {
+                    return -1;
+                }
+                if (slot > 0 && ids[slot - 1] == id) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private int findIsbnSlot(String isbn) {
+            int mask = isbnSlots.length - 1;
+            for (int i = hash(isbn) & mask, probes = 0; probes < isbnSlots.length; i = (i + 1) & mask, probes++) {
+                int slot = isbnSlots[i];
+                if (slot == 0) {
+                    return -1;
+                }
+                if (slot > 0 && isbn.equals(string(isbns[slot - 1]))) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private static void removeSlot(int[] slots, int slot) {
+            if (slot >= 0) {
+                slots[slot] = REMOVED;
+            }
+        }
+
+        // Sized for the live entries, which also drops removed markers
+        private int[] rehash(int[] slots, boolean byId) {
+            int live = countLive(slots);
+            int capacity = Integer.highestOneBit(Math.max(16, (live + 1) * 4) - 1) << 1;
+            int[] resized = new int[capacity];
+            int mask = capacity - 1;
+            for (int slot : slots) {
+                if (slot > 0) {
+                    int row = slot - 1;
+                    int i = (byId ? hash(ids[row]) : hash(strings[isbns[row]])) & mask;
+                    while (resized[i] != 0) {
+                        i = (i + 1) & mask;
+                    }
+                    resized[i] = slot;
+                }
+            }
+            return resized;
+        }
+
+        private static int countLive(int[] slots) {
+            int live = 0;
+            for (int slot : slots) {
+                if (slot > 0) {
+                    live++;
+                }
+            }
+            return live;
+        }
+
+        private static int countUsed(int[] slots) {
+            int used = 0;
+            for (int slot : slots) {
+                if (slot != 0) {
+                    used++;
+                }
+            }
+            return used;
+        }
+
+        // Strings are never dropped from the dictionary; loads and compactions rebuild it along with the rows
+        private int intern(String value) {
+            if (value == null) {
+                return -1;
+            }
+            Integer code = codes.get(value);
+            if (code != null) {
+                return code;
+            }
+            if (stringCount == strings.length) {
+                strings = Arrays.copyOf(strings, strings.length * 2);
+            }
+            strings[stringCount] = value;
+            codes.put(value, stringCount);
+            return stringCount++;
+        }
+
+        private static int hash(long id) {
+            return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32);
+        }
+
+        private static int hash(String isbn) {
+            int h = isbn.hashCode();
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.bookstore.service;
+
+// Thrown when a decrement would take a book's quantity below zero; nothing is changed
+public class InsufficientStockException extends IllegalStateException {
+
+    private final Long bookId;
+
+    public InsufficientStockException(Long bookId, int requested) {
+        super("Insufficient stock for book " + bookId + ": requested " + requested);
+        this.bookId = bookId;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+}
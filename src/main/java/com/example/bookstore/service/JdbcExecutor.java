@@ -0,0 +1,95 @@
+package com.example.bookstore.service;
+
+import org.springframework.beans.factory.DisposableBean;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Runs blocking BookService calls for the async API on one thread per database connection, so no more calls
+// are in flight than connections exist to serve them. The rest wait in a bounded queue; once it is full,
+// submissions fail at once with RejectedExecutionException instead of piling up.
+public class JdbcExecutor implements DisposableBean {
+
+    private final ThreadPoolExecutor executor;
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+
+    public JdbcExecutor(int threads, int queueCapacity) {
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), task -> {
+                Thread thread = new Thread(task, "jdbc-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // Only a call still queued when its timeout passes is dropped, unrun, with TimeoutException; it is safe to
+    // retry. A call already running cannot be interrupted inside the driver, so its future fails with
+    // StillRunningException and the call finishes regardless: a write may still commit.
+    public <T> CompletableFuture<T> submit(Supplier<T> operation, Duration timeout) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        // Whichever of the worker and the timeout claims the call first decides whether it runs
+        AtomicBoolean claimed = new AtomicBoolean();
+        Runnable task = () -> {
+            if (!claimed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                future.complete(operation.get());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        };
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            return CompletableFuture.failedFuture(e);
+        }
+        long timeoutMillis = timeout.toMillis();
+        CompletableFuture.delayedExecutor(timeoutMillis, TimeUnit.MILLISECONDS).execute(() -> {
+            if (claimed.compareAndSet(false, true)) {
+                executor.remove(task);
+                timedOut.increment();
+                future.completeExceptionally(new TimeoutException("Still queued after " + timeoutMillis + " ms"));
+            } else if (!future.isDone()) {
+                timedOut.increment();
+                future.completeExceptionally(new StillRunningException(timeoutMillis));
+            }
+        });
+        return future;
+    }
+
+    public int getThreads() {
+        return executor.getMaximumPoolSize();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("threads", executor.getMaximumPoolSize());
+        stats.put("active", executor.getActiveCount());
+        stats.put("queued", executor.getQueue().size());
+        stats.put("queueCapacity", executor.getQueue().size() + executor.getQueue().remainingCapacity());
+        stats.put("completed", executor.getCompletedTaskCount());
+        stats.put("rejected", rejected.sum());
+        stats.put("timedOut", timedOut.sum());
+        return stats;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
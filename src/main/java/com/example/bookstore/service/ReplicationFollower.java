@@ -0,0 +1,309 @@
+package com.example.bookstore.service;
+
+import com.example.bookstore.model.Book;
+import com.example.bookstore.repository.BookRepository;
+import com.example.bookstore.repository.DatabaseBackup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// Keeps a follower's database a copy of the leader's (bookstore.replication.role=follower). It starts from a
+// consistent snapshot taken with the online backup API, then replays the leader's change feed, in which each
+// changed book appears once with its current state and deletes appear as tombstones. Local book_changes rows are
+// given the leader's seqs, so ETags and change cursors mean the same thing on every node. Periodic re-snapshots
+// bound how long any divergence can last.
+@Component
+public class ReplicationFollower implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicationFollower.class);
+
+    private static final int CHANGE_PAGE_SIZE = 1000;
+
+    private final String role;
+    private final boolean enabled;
+    private final String leaderUrl;
+    private final long pollIntervalMillis;
+    private final long snapshotIntervalMillis;
+    private final DatabaseBackup databaseBackup;
+    private final BookRepository bookRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final BookWriteQueue writeQueue;
+    private final BookCache bookCache;
+    private final CatalogSnapshot catalogSnapshot;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+    private final Thread follower;
+    private volatile boolean running = true;
+
+    // Leader seq applied so far, and when the newest poll that found nothing more to apply was sent:
+    // everything the leader had committed by then is here, so now minus that bounds the staleness
+    private volatile long appliedSeq;
+    private volatile long caughtUpAt;
+    private volatile long snapshotAt;
+    private volatile String lastError;
+
+    public ReplicationFollower(DatabaseBackup databaseBackup, BookRepository bookRepository,
+                               NamedParameterJdbcTemplate jdbcTemplate, BookWriteQueue writeQueue,
+                               BookCache bookCache, CatalogSnapshot catalogSnapshot,
+                               ApplicationEventPublisher eventPublisher, ObjectMapper objectMapper,
+                               @Value("${bookstore.replication.role:standalone}") String role,
+                               @Value("${bookstore.replication.leader-url:}") String leaderUrl,
+                               @Value("${bookstore.replication.poll-interval:500ms}") Duration pollInterval,
+                               @Value("${bookstore.replication.snapshot-interval:1h}") Duration snapshotInterval) {
+        this.role = role;
+        this.enabled = "follower".equals(role);
+        if (enabled && leaderUrl.isBlank()) {
+            throw new IllegalArgumentException("bookstore.replication.leader-url is required for a follower");
+        }
+        this.leaderUrl = leaderUrl.endsWith("/") ? leaderUrl.substring(0, leaderUrl.length() - 1) : leaderUrl;
+        this.pollIntervalMillis = pollInterval.toMillis();
+        this.snapshotIntervalMillis = snapshotInterval.toMillis();
+        this.databaseBackup = databaseBackup;
+        this.bookRepository = bookRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.writeQueue = writeQueue;
+        this.bookCache = bookCache;
+        this.catalogSnapshot = catalogSnapshot;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.follower = new Thread(this::follow, "replication-follower");
+        this.follower.setDaemon(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            follower.start();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String getLeaderUrl() {
+        return leaderUrl;
+    }
+
+    public long getAppliedSeq() {
+        return appliedSeq;
+    }
+
+    // Upper bound on how far behind the leader this node is, or empty until the first snapshot is in place
+    public Optional<Duration> getLag() {
+        long caughtUp = caughtUpAt;
+        return caughtUp == 0 ? Optional.empty() : Optional.of(Duration.ofMillis(System.currentTimeMillis() - caughtUp));
+    }
+
+    private void follow() {
+        while (running) {
+            try {
+                if (System.currentTimeMillis() - snapshotAt >= snapshotIntervalMillis) {
+                    restoreSnapshot();
+                }
+                catchUp();
+                lastError = null;
+                Thread.sleep(pollIntervalMillis);
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                // Once per distinct failure rather than on every poll while the leader is down
+                if (!String.valueOf(e).equals(lastError)) {
+                    log.warn("Replication from {} failed; retrying", leaderUrl, e);
+                }
+                lastError = String.valueOf(e);
+                try {
+                    Thread.sleep(pollIntervalMillis);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // Copies the leader's whole database over this one; the snapshot's book_changes gives the position to resume at
+    public synchronized void restoreSnapshot() {
+        long requestedAt = System.currentTimeMillis();
+        Path file = null;
+        try {
+            file = Files.createTempFile("bookstore-snapshot-", ".db");
+            HttpResponse<Path> response = send(HttpRequest.newBuilder(URI.create(leaderUrl + "/replication/snapshot")),
+                HttpResponse.BodyHandlers.ofFile(file));
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Snapshot request returned " + response.statusCode());
+            }
+            databaseBackup.restoreFrom(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deleteQuietly(file);
+        }
+        appliedSeq = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(seq), 0) FROM book_changes", Map.of(), Long.class);
+        snapshotAt = requestedAt;
+        caughtUpAt = requestedAt;
+        // Nothing about the old contents can be trusted, and no per-book events were published for the swap
+        bookCache.invalidateAll();
+        if (catalogSnapshot.isReady()) {
+            catalogSnapshot.rebuild();
+        }
+        log.info("Restored snapshot from {} at change {}", leaderUrl, appliedSeq);
+    }
+
+    // Applies change feed pages until the leader reports no more
+    public synchronized void catchUp() {
+        long requestedAt = System.currentTimeMillis();
+        boolean hasMore;
+        do {
+            JsonNode page = fetchChanges(BookCursor.encodeSequence(appliedSeq));
+            List<JsonNode> changes = page.get("changes").valueStream().toList();
+            if (!changes.isEmpty()) {
+                writeQueue.execute(() -> {
+                    changes.forEach(this::apply);
+                    return null;
+                });
+                appliedSeq = changes.get(changes.size() - 1).get("seq").asLong();
+            }
+            hasMore = page.get("hasMore").asBoolean();
+        } while (hasMore);
+        caughtUpAt = requestedAt;
+    }
+
+    private JsonNode fetchChanges(String since) {
+        URI uri = URI.create(leaderUrl + "/api/books/changes?limit=" + CHANGE_PAGE_SIZE
+            + "&since=" + URLEncoder.encode(since, StandardCharsets.UTF_8));
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)),
+            HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Change feed request returned " + response.statusCode());
+        }
+        return objectMapper.readTree(response.body());
+    }
+
+    private <T> HttpResponse<T> send(HttpRequest.Builder request, HttpResponse.BodyHandler<T> handler) {
+        try {
+            return httpClient.send(request.GET().build(), handler);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while contacting " + leaderUrl, e);
+        }
+    }
+
+    // The triggers record each write in book_changes under a local seq, which is then swapped for the leader's
+    private void apply(JsonNode change) {
+        long id = change.get("bookId").asLong();
+        long seq = change.get("seq").asLong();
+        Book before = bookRepository.findById(id).orElse(null);
+        if (change.get("deleted").asBoolean()) {
+            if (before != null) {
+                jdbcTemplate.update("DELETE FROM books WHERE id = :id", Map.of("id", id));
+                setSeq(id, seq);
+                eventPublisher.publishEvent(BookChangedEvent.deleted(before));
+            }
+            return;
+        }
+        Book after = objectMapper.treeToValue(change.get("book"), Book.class);
+        if (after.getIsbn() != null) {
+            releaseIsbn(after.getIsbn(), id);
+        }
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+            .addValue("id", id)
+            .addValue("title", after.getTitle())
+            .addValue("author", after.getAuthor())
+            .addValue("isbn", after.getIsbn())
+            .addValue("price", after.getPrice())
+            .addValue("quantity", after.getQuantity())
+            .addValue("createdAt", after.getCreatedAt())
+            .addValue("updatedAt", after.getUpdatedAt());
+        // Not an upsert: its ON CONFLICT clause would override the INSERT OR REPLACE in the book_changes triggers
+        if (before != null) {
+            jdbcTemplate.update("""
+                UPDATE books SET title = :title, author = :author, isbn = :isbn, price = :price, quantity = :quantity,
+                    created_at = :createdAt, updated_at = :updatedAt WHERE id = :id""", parameters);
+        } else {
+            jdbcTemplate.update("""
+                INSERT INTO books (id, title, author, isbn, price, quantity, created_at, updated_at)
+                VALUES (:id, :title, :author, :isbn, :price, :quantity, :createdAt, :updatedAt)""", parameters);
+        }
+        setSeq(id, seq);
+        eventPublisher.publishEvent(new BookChangedEvent(id, before, after));
+    }
+
+    // The feed holds only each book's latest state, so a book can arrive with an ISBN that another book gave up
+    // in a change further on. That book holds no ISBN until its own change arrives, and keeps its seq meanwhile.
+    private void releaseIsbn(String isbn, long id) {
+        List<Long> holders = jdbcTemplate.queryForList("SELECT id FROM books WHERE isbn = :isbn AND id <> :id",
+            Map.of("isbn", isbn, "id", id), Long.class);
+        for (Long holder : holders) {
+            Book before = bookRepository.findById(holder).orElseThrow();
+            Long seq = jdbcTemplate.queryForObject("SELECT seq FROM book_changes WHERE book_id = :id",
+                Map.of("id", holder), Long.class);
+            jdbcTemplate.update("UPDATE books SET isbn = NULL WHERE id = :id", Map.of("id", holder));
+            setSeq(holder, seq);
+            Book after = new Book(before);
+            after.setIsbn(null);
+            eventPublisher.publishEvent(BookChangedEvent.updated(before, after));
+        }
+    }
+
+    private void setSeq(long id, long seq) {
+        jdbcTemplate.update("UPDATE book_changes SET seq = :seq WHERE book_id = :id", Map.of("seq", seq, "id", id));
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("role", role);
+        if (enabled) {
+            stats.put("leaderUrl", leaderUrl);
+            stats.put("appliedSeq", appliedSeq);
+            stats.put("lagMillis", getLag().map(Duration::toMillis).orElse(null));
+            stats.put("snapshotAt", snapshotAt);
+            stats.put("lastError", lastError);
+        }
+        return stats;
+    }
+
+    @Override
+    public void destroy() {
+        running = false;
+        follower.interrupt();
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.debug("Could not delete {}", file, e);
+        }
+    }
+}
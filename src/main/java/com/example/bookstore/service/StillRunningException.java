@@ -0,0 +1,12 @@
+package com.example.bookstore.service;
+
+import java.util.concurrent.TimeoutException;
+
+// A JdbcExecutor call timed out after it had started on a database thread. It cannot be interrupted inside the
+// driver, so it runs to completion and any write it makes may still commit.
+public class StillRunningException extends TimeoutException {
+
+    public StillRunningException(long timeoutMillis) {
+        super("Still running after " + timeoutMillis + " ms");
+    }
+}
@@ -0,0 +1,6 @@
+-- NOCASE so lookups by author ignore case and can still use the index
+CREATE INDEX IF NOT EXISTS idx_books_author ON books (author COLLATE NOCASE)^;
+
+-- Range filters and sorts by price or recency
+CREATE INDEX IF NOT EXISTS idx_books_price ON books (price)^;
+CREATE INDEX IF NOT EXISTS idx_books_updated_at ON books (updated_at)^;
@@ -0,0 +1,24 @@
+-- Change log behind GET /api/books/changes. One row per book: every write moves the book to a new,
+-- higher seq, so a client catching up reads each changed book once however often it changed.
+-- Triggers rather than service code, so bulk imports and stock updates are captured too.
+CREATE TABLE IF NOT EXISTS book_changes (
+    seq INTEGER PRIMARY KEY AUTOINCREMENT,
+    book_id INTEGER NOT NULL UNIQUE,
+    deleted INTEGER NOT NULL DEFAULT 0
+)^;
+
+CREATE TRIGGER IF NOT EXISTS book_changes_after_insert AFTER INSERT ON books BEGIN
+    INSERT OR REPLACE INTO book_changes (book_id, deleted) VALUES (new.id, 0);
+END^;
+
+CREATE TRIGGER IF NOT EXISTS book_changes_after_update AFTER UPDATE ON books BEGIN
+    INSERT OR REPLACE INTO book_changes (book_id, deleted) VALUES (new.id, 0);
+END^;
+
+-- Deletes leave a tombstone so clients know to drop the book
+CREATE TRIGGER IF NOT EXISTS book_changes_after_delete AFTER DELETE ON books BEGIN
+    INSERT OR REPLACE INTO book_changes (book_id, deleted) VALUES (old.id, 1);
+END^;
+
+-- Existing books become the first changes, so syncing from the start returns the whole catalog
+INSERT OR IGNORE INTO book_changes (book_id) SELECT id FROM books ORDER BY id^;
@@ -0,0 +1,24 @@
+-- UTC commit-side timestamp for Last-Modified; books.updated_at is not used because rows written by
+-- the application and by column defaults store it in different formats
+ALTER TABLE book_changes ADD COLUMN changed_at TEXT^;
+
+UPDATE book_changes SET changed_at = strftime('%Y-%m-%dT%H:%M:%fZ', 'now') WHERE changed_at IS NULL^;
+
+DROP TRIGGER IF EXISTS book_changes_after_insert^;
+DROP TRIGGER IF EXISTS book_changes_after_update^;
+DROP TRIGGER IF EXISTS book_changes_after_delete^;
+
+CREATE TRIGGER book_changes_after_insert AFTER INSERT ON books BEGIN
+    INSERT OR REPLACE INTO book_changes (book_id, deleted, changed_at)
+    VALUES (new.id, 0, strftime('%Y-%m-%dT%H:%M:%fZ', 'now'));
+END^;
+
+CREATE TRIGGER book_changes_after_update AFTER UPDATE ON books BEGIN
+    INSERT OR REPLACE INTO book_changes (book_id, deleted, changed_at)
+    VALUES (new.id, 0, strftime('%Y-%m-%dT%H:%M:%fZ', 'now'));
+END^;
+
+CREATE TRIGGER book_changes_after_delete AFTER DELETE ON books BEGIN
+    INSERT OR REPLACE INTO book_changes (book_id, deleted, changed_at)
+    VALUES (old.id, 1, strftime('%Y-%m-%dT%H:%M:%fZ', 'now'));
+END^;
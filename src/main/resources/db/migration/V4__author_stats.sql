@@ -0,0 +1,67 @@
+-- Per-author aggregates behind GET /api/authors, one row per author (case-insensitive, like idx_books_author).
+-- Maintained by triggers in the writing transaction, so bulk imports and stock updates keep it current too.
+-- Counts and stock are adjusted by delta; a price bound is recomputed from the author's rows, through
+-- idx_books_author, only when the book holding it leaves or changes price.
+CREATE TABLE IF NOT EXISTS author_stats (
+    author TEXT PRIMARY KEY COLLATE NOCASE,
+    book_count INTEGER NOT NULL,
+    total_quantity INTEGER NOT NULL,
+    min_price DECIMAL(10, 2),
+    max_price DECIMAL(10, 2)
+)^;
+
+INSERT INTO author_stats (author, book_count, total_quantity, min_price, max_price)
+SELECT author, COUNT(*), COALESCE(SUM(quantity), 0), MIN(price), MAX(price)
+FROM books GROUP BY author COLLATE NOCASE^;
+
+-- Scalar MIN/MAX return NULL when either side is NULL, hence the COALESCE fallbacks for unpriced books
+CREATE TRIGGER author_stats_after_insert AFTER INSERT ON books BEGIN
+    INSERT INTO author_stats (author, book_count, total_quantity, min_price, max_price)
+    VALUES (new.author, 1, COALESCE(new.quantity, 0), new.price, new.price)
+    ON CONFLICT (author) DO UPDATE SET
+        book_count = book_count + 1,
+        total_quantity = total_quantity + excluded.total_quantity,
+        min_price = COALESCE(MIN(min_price, excluded.min_price), min_price, excluded.min_price),
+        max_price = COALESCE(MAX(max_price, excluded.max_price), max_price, excluded.max_price);
+END^;
+
+CREATE TRIGGER author_stats_after_delete AFTER DELETE ON books BEGIN
+    UPDATE author_stats SET
+        book_count = book_count - 1,
+        total_quantity = total_quantity - COALESCE(old.quantity, 0),
+        min_price = CASE WHEN old.price <= min_price
+            THEN (SELECT MIN(price) FROM books WHERE author = old.author COLLATE NOCASE) ELSE min_price END,
+        max_price = CASE WHEN old.price >= max_price
+            THEN (SELECT MAX(price) FROM books WHERE author = old.author COLLATE NOCASE) ELSE max_price END
+    WHERE author = old.author;
+    DELETE FROM author_stats WHERE author = old.author AND book_count = 0;
+END^;
+
+-- Stock changes, the common update, only move the quantity total
+CREATE TRIGGER author_stats_after_stock_update AFTER UPDATE OF author, price, quantity ON books
+WHEN new.author = old.author COLLATE NOCASE AND new.price IS old.price BEGIN
+    UPDATE author_stats SET total_quantity = total_quantity - COALESCE(old.quantity, 0) + COALESCE(new.quantity, 0)
+    WHERE author = old.author;
+END^;
+
+-- A new author or price moves the book out of its old aggregate and into the new one. When the author is
+-- unchanged the recomputed bounds already see the new price, and re-adding it is a no-op for MIN/MAX.
+CREATE TRIGGER author_stats_after_move AFTER UPDATE OF author, price, quantity ON books
+WHEN new.author <> old.author COLLATE NOCASE OR new.price IS NOT old.price BEGIN
+    UPDATE author_stats SET
+        book_count = book_count - 1,
+        total_quantity = total_quantity - COALESCE(old.quantity, 0),
+        min_price = CASE WHEN old.price <= min_price
+            THEN (SELECT MIN(price) FROM books WHERE author = old.author COLLATE NOCASE) ELSE min_price END,
+        max_price = CASE WHEN old.price >= max_price
+            THEN (SELECT MAX(price) FROM books WHERE author = old.author COLLATE NOCASE) ELSE max_price END
+    WHERE author = old.author;
+    DELETE FROM author_stats WHERE author = old.author AND book_count = 0;
+    INSERT INTO author_stats (author, book_count, total_quantity, min_price, max_price)
+    VALUES (new.author, 1, COALESCE(new.quantity, 0), new.price, new.price)
+    ON CONFLICT (author) DO UPDATE SET
+        book_count = book_count + 1,
+        total_quantity = total_quantity + excluded.total_quantity,
+        min_price = COALESCE(MIN(min_price, excluded.min_price), min_price, excluded.min_price),
+        max_price = COALESCE(MAX(max_price, excluded.max_price), max_price, excluded.max_price);
+END^;
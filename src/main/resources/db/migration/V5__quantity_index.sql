@@ -0,0 +1,3 @@
+-- Stock-threshold filters and sorts for GET /api/books/filter; like idx_books_price, entries are ordered
+-- by (quantity, id), which is the filter's keyset order
+CREATE INDEX IF NOT EXISTS idx_books_quantity ON books (quantity)^;
@@ -0,0 +1,17 @@
+-- Tables every shard file has besides schema.sql; applied on each start, so all statements are idempotent
+
+-- Claims on the ISBNs whose hash falls in this shard's buckets. The owning book may live on another shard
+-- when it was created without an ISBN or changed its ISBN later; a claim whose book no longer holds the
+-- ISBN is stale and is taken over by the next claimant.
+CREATE TABLE IF NOT EXISTS isbn_owners (
+    isbn TEXT PRIMARY KEY,
+    book_id INTEGER NOT NULL
+) WITHOUT ROWID^;
+
+-- Source of the low id bits; ids take the bucket as high bits, so one counter serves all of a shard's buckets
+CREATE TABLE IF NOT EXISTS shard_sequence (
+    id INTEGER PRIMARY KEY CHECK (id = 1),
+    next INTEGER NOT NULL
+)^;
+
+INSERT OR IGNORE INTO shard_sequence (id, next) VALUES (1, 0)^;
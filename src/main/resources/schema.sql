@@ -7,7 +7,32 @@ CREATE TABLE IF NOT EXISTS books (
     quantity INTEGER DEFAULT 0,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
-);
+)^;
 
+-- External-content full-text index over title and author. Trigram tokens let
+-- MATCH answer substring searches that previously needed LIKE '%...%' scans.
+CREATE VIRTUAL TABLE IF NOT EXISTS books_fts USING fts5(
+    title,
+    author,
+    content='books',
+    content_rowid='id',
+    tokenize='trigram'
+)^;
 
+CREATE TRIGGER IF NOT EXISTS books_fts_after_insert AFTER INSERT ON books BEGIN
+    INSERT INTO books_fts(rowid, title, author) VALUES (new.id, new.title, new.author);
+END^;
 
+CREATE TRIGGER IF NOT EXISTS books_fts_after_delete AFTER DELETE ON books BEGIN
+    INSERT INTO books_fts(books_fts, rowid, title, author) VALUES ('delete', old.id, old.title, old.author);
+END^;
+
+CREATE TRIGGER IF NOT EXISTS books_fts_after_update AFTER UPDATE OF title, author ON books BEGIN
+    INSERT INTO books_fts(books_fts, rowid, title, author) VALUES ('delete', old.id, old.title, old.author);
+    INSERT INTO books_fts(rowid, title, author) VALUES (new.id, new.title, new.author);
+END^;
+
+-- Backfill databases that held rows before the index existed
+INSERT INTO books_fts(books_fts)
+SELECT 'rebuild'
+WHERE (SELECT COUNT(*) FROM books_fts_docsize) <> (SELECT COUNT(*) FROM books)^;
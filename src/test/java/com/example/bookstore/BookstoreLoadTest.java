@@ -0,0 +1,166 @@
+package com.example.bookstore;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Run with: mvn -Pload-test test [-Dload.concurrency=400] [-Dload.duration=PT20S] [-Dload.books=5000]
+@Tag("load")
+class BookstoreLoadTest {
+
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 400);
+    private static final Duration DURATION = Duration.parse(System.getProperty("load.duration", "PT20S"));
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+    private static final int BOOKS = Integer.getInteger("load.books", 5000);
+    private static final String[] SEARCH_TERMS = {"Dune", "Tolkien", "Garden", "Asimov", "River"};
+
+    @TempDir
+    Path databaseDir;
+
+    @Test
+    @DisplayName("Should report throughput and p99 for platform and virtual request threads")
+    void compareThreadModels() throws Exception {
+        LoadResult platform = run("platform", false);
+        LoadResult virtual = run("virtual", true);
+
+        System.out.println(platform);
+        System.out.println(virtual);
+        assertThat(platform.requests()).isPositive();
+        assertThat(virtual.requests()).isPositive();
+    }
+
+    private LoadResult run(String name, boolean virtualThreads) throws Exception {
+        SpringApplicationBuilder application = new SpringApplicationBuilder(BookstoreApplication.class)
+            .properties(
+                "server.port=0",
+                "spring.datasource.url=jdbc:sqlite:" + databaseDir.resolve(name + ".db"),
+                "logging.level.root=WARN");
+        if (virtualThreads) {
+            application.profiles("virtual-threads");
+        }
+        try (ConfigurableApplicationContext context = application.run()) {
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+            seed(client, baseUrl);
+            drive(client, baseUrl, WARMUP);
+            return LoadResult.of(name, drive(client, baseUrl, DURATION), DURATION);
+        }
+    }
+
+    private static void seed(HttpClient client, String baseUrl) throws Exception {
+        StringBuilder feed = new StringBuilder();
+        for (int i = 1; i <= BOOKS; i++) {
+            String term = SEARCH_TERMS[i % SEARCH_TERMS.length];
+            feed.append("{\"title\":\"").append(term).append(" volume ").append(i)
+                .append("\",\"author\":\"Author ").append(i % 97)
+                .append("\",\"isbn\":\"978").append(String.format("%010d", i))
+                .append("\",\"price\":19.99,\"quantity\":10}\n");
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/books/bulk"))
+            .header("Content-Type", "application/x-ndjson")
+            .POST(HttpRequest.BodyPublishers.ofString(feed.toString()))
+            .build();
+        assertThat(client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode()).isEqualTo(200);
+    }
+
+    // Closed loop: each client issues its next request as soon as the previous one completes
+    private static Samples drive(HttpClient client, String baseUrl, Duration duration) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        AtomicLong errors = new AtomicLong();
+        List<Future<long[]>> clients = new ArrayList<>(CONCURRENCY);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < CONCURRENCY; i++) {
+                clients.add(executor.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    while (System.nanoTime() < deadline) {
+                        HttpRequest request = HttpRequest.newBuilder(nextUri(baseUrl)).timeout(Duration.ofSeconds(30)).build();
+                        long start = System.nanoTime();
+                        try {
+                            if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() != 200) {
+                                errors.incrementAndGet();
+                                continue;
+                            }
+                        } catch (IOException e) {
+                            errors.incrementAndGet();
+                            continue;
+                        }
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = System.nanoTime() - start;
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+        }
+        List<long[]> latencies = new ArrayList<>(CONCURRENCY);
+        for (Future<long[]> future : clients) {
+            latencies.add(future.get());
+        }
+        return new Samples(latencies, errors.get());
+    }
+
+    // Mix of cached point lookups, uncached full-text search and keyset pages
+    private static URI nextUri(String baseUrl) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int roll = random.nextInt(10);
+        if (roll < 6) {
+            return URI.create(baseUrl + "/api/books/" + (1 + random.nextInt(BOOKS)));
+        }
+        if (roll < 9) {
+            return URI.create(baseUrl + "/api/books/search?q=" + SEARCH_TERMS[random.nextInt(SEARCH_TERMS.length)] + "&size=20");
+        }
+        return URI.create(baseUrl + "/api/books?limit=50");
+    }
+
+    private record Samples(List<long[]> latencies, long errors) {
+    }
+
+    private record LoadResult(String name, long requests, double throughput, double p50Millis, double p99Millis, long errors) {
+
+        static LoadResult of(String name, Samples samples, Duration duration) {
+            long[] all = samples.latencies().stream().flatMapToLong(Arrays::stream).sorted().toArray();
+            double seconds = duration.toNanos() / 1e9;
+            return new LoadResult(name, all.length, all.length / seconds,
+                percentile(all, 0.50), percentile(all, 0.99), samples.errors());
+        }
+
+        private static double percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return Double.NaN;
+            }
+            return sorted[(int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1)] / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-8s %9.0f req/s  p50 %7.2f ms  p99 %7.2f ms  requests %d  errors %d",
+                name, throughput, p50Millis, p99Millis, requests, errors);
+        }
+    }
+}
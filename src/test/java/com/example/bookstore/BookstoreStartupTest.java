@@ -0,0 +1,126 @@
+package com.example.bookstore;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Time from process launch to the first 200 from /health, for the plain jar and for the AOT + CDS + fast-start
+// profile build. Runs against the jar extracted by: mvn -Pfast-start verify [-Dstartup.runs=5]
+@Tag("startup")
+class BookstoreStartupTest {
+
+    private static final Path APP_DIR = Path.of(System.getProperty("startup.dir", "target/fast-start"));
+    private static final String APP_JAR = System.getProperty("startup.jar", "bookstore-0.0.1-SNAPSHOT.jar");
+    private static final int RUNS = Integer.getInteger("startup.runs", 5);
+    private static final Duration TIMEOUT = Duration.ofSeconds(60);
+
+    @TempDir
+    Path databaseDir;
+
+    @Test
+    @DisplayName("Should report time to first /health for the plain and fast-start builds")
+    void compareStartupTimes() throws Exception {
+        StartupResult plain = measure("plain", List.of());
+        StartupResult fastStart = measure("fast-start", List.of(
+            "-XX:SharedArchiveFile=application.jsa", "-Dspring.aot.enabled=true",
+            "-Dspring.profiles.active=fast-start"));
+
+        System.out.println(plain);
+        System.out.println(fastStart);
+        assertThat(plain.millis()).hasSize(RUNS);
+        assertThat(fastStart.millis()).hasSize(RUNS);
+    }
+
+    // The first launch creates the database and warms the file cache, so it is not counted
+    private StartupResult measure(String name, List<String> jvmOptions) throws Exception {
+        List<Long> millis = new ArrayList<>();
+        for (int run = 0; run <= RUNS; run++) {
+            long elapsed = launch(name, jvmOptions);
+            if (run > 0) {
+                millis.add(elapsed);
+            }
+        }
+        return new StartupResult(name, millis);
+    }
+
+    private long launch(String name, List<String> jvmOptions) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmOptions);
+        command.addAll(List.of("-jar", APP_JAR,
+            "--server.port=" + port,
+            "--spring.datasource.url=jdbc:sqlite:" + databaseDir.resolve(name + ".db"),
+            "--logging.level.root=WARN"));
+        Path log = Files.createTempFile(databaseDir, name, ".log");
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+            .directory(APP_DIR.toFile())
+            .redirectErrorStream(true)
+            .redirectOutput(log.toFile())
+            .start();
+        try {
+            awaitHealthy(process, port, log);
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private static void awaitHealthy(Process process, int port, Path log) throws Exception {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        HttpRequest health = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/health")).build();
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Application exited with " + process.exitValue() + ":\n" + Files.readString(log));
+            }
+            try {
+                if (client.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (ConnectException e) {
+                // Not listening yet
+            }
+            Thread.sleep(5);
+        }
+        throw new IllegalStateException("No healthy response within " + TIMEOUT + ":\n" + Files.readString(log));
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private record StartupResult(String name, List<Long> millis) {
+
+        @Override
+        public String toString() {
+            List<Long> sorted = millis.stream().sorted().toList();
+            return String.format("%-10s time to first /health: median %d ms, min %d ms, max %d ms over %d runs",
+                name, sorted.get(sorted.size() / 2), sorted.get(0), sorted.get(sorted.size() - 1), sorted.size());
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.bookstore;
+
+import com.example.bookstore.metrics.BookstoreMetrics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Thundering herds: every client requests the same cold ISBN or the same title search at the same instant.
+// Run with: mvn -Pload-test test -Dtest=CoalescingLoadTest [-Dload.concurrency=200] [-Dload.bursts=40]
+@Tag("load")
+class CoalescingLoadTest {
+
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 200);
+    private static final int BURSTS = Integer.getInteger("load.bursts", 40);
+    private static final int BOOKS = 2000;
+    private static final String[] TITLES = {"Dune", "Garden", "River", "Tolkien", "Asimov"};
+
+    @TempDir
+    Path databaseDir;
+
+    @Test
+    @DisplayName("Should run fewer statements per burst when identical in-flight reads are coalesced")
+    void compareCoalescing() throws Exception {
+        BurstResult uncoalesced = run("uncoalesced", false);
+        BurstResult coalesced = run("coalesced", true);
+
+        System.out.println(uncoalesced);
+        System.out.println(coalesced);
+        assertThat(coalesced.errors()).isZero();
+        assertThat(coalesced.statements()).isLessThan(uncoalesced.statements());
+    }
+
+    private BurstResult run(String name, boolean coalescing) throws Exception {
+        // Arguments rather than default properties, which application.properties would override
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BookstoreApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:sqlite:" + databaseDir.resolve(name + ".db"),
+                "--bookstore.coalescing.enabled=" + coalescing,
+                "--logging.level.root=WARN")) {
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+            seed(client, baseUrl);
+            BookstoreMetrics metrics = context.getBean(BookstoreMetrics.class);
+
+            long statementsBefore = statementCount(metrics);
+            long start = System.nanoTime();
+            long errors = drive(client, baseUrl);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long statements = statementCount(metrics) - statementsBefore;
+            return new BurstResult(name, (long) BURSTS * CONCURRENCY, statements, seconds, errors);
+        }
+    }
+
+    private static void seed(HttpClient client, String baseUrl) throws Exception {
+        StringBuilder feed = new StringBuilder();
+        for (int i = 1; i <= BOOKS; i++) {
+            feed.append("{\"title\":\"").append(TITLES[i % TITLES.length]).append(" volume ").append(i)
+                .append("\",\"author\":\"Author ").append(i % 97)
+                .append("\",\"isbn\":\"978").append(String.format("%010d", i))
+                .append("\",\"price\":19.99,\"quantity\":10}\n");
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/books/bulk"))
+            .header("Content-Type", "application/x-ndjson")
+            .POST(HttpRequest.BodyPublishers.ofString(feed.toString()))
+            .build();
+        assertThat(client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode()).isEqualTo(200);
+    }
+
+    // Bursts alternate between an ISBN no request has loaded into the cache yet and an uncached title search
+    private static long drive(HttpClient client, String baseUrl) throws Exception {
+        CyclicBarrier barrier = new CyclicBarrier(CONCURRENCY);
+        List<Future<Long>> clients = new ArrayList<>(CONCURRENCY);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < CONCURRENCY; i++) {
+                clients.add(executor.submit(() -> {
+                    long errors = 0;
+                    for (int burst = 0; burst < BURSTS; burst++) {
+                        URI uri = URI.create(burst % 2 == 0
+                            ? baseUrl + "/api/books/isbn/978" + String.format("%010d", 1 + burst)
+                            : baseUrl + "/api/books/search?title=" + TITLES[burst % TITLES.length]);
+                        barrier.await();
+                        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).build();
+                        if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() != 200) {
+                            errors++;
+                        }
+                    }
+                    return errors;
+                }));
+            }
+        }
+        long errors = 0;
+        for (Future<Long> future : clients) {
+            errors += future.get();
+        }
+        return errors;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static long statementCount(BookstoreMetrics metrics) {
+        Map<String, Map<String, Object>> statements = (Map<String, Map<String, Object>>) metrics.snapshot().get("statements");
+        return statements.values().stream().mapToLong(statement -> ((Number) statement.get("count")).longValue()).sum();
+    }
+
+    // Statements per burst is the database load a herd causes; runs differ in length, so a rate would hide it
+    private record BurstResult(String name, long requests, long statements, double seconds, long errors) {
+
+        @Override
+        public String toString() {
+            return String.format("%-12s %7.0f req/s  statements %d  (%.1f per burst, %.2f per request)  errors %d",
+                name, requests / seconds, statements, (double) statements / BURSTS, (double) statements / requests, errors);
+        }
+    }
+}
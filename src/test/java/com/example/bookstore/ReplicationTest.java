@@ -0,0 +1,202 @@
+package com.example.bookstore;
+
+import com.example.bookstore.controller.FollowerInterceptor;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.server.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// A leader and two followers on localhost ports, each with its own database file
+class ReplicationTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(20);
+    private static final Pattern ID = Pattern.compile("\"id\":(\\d+)");
+
+    @TempDir
+    static Path databaseDir;
+
+    private static final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+    private static final HttpClient client = HttpClient.newHttpClient();
+    private static String leader;
+    private static List<String> followers;
+
+    @BeforeAll
+    static void startNodes() {
+        leader = start("leader", "--bookstore.replication.role=leader");
+        // Seeded before the followers start, so they receive it through the snapshot rather than the change feed
+        post(leader, "/api/books", book("Snapshot book", "repl-0"));
+        followers = List.of(
+            start("follower-1", "--bookstore.replication.role=follower", "--bookstore.replication.leader-url=" + leader,
+                "--bookstore.replication.poll-interval=50ms"),
+            start("follower-2", "--bookstore.replication.role=follower", "--bookstore.replication.leader-url=" + leader,
+                "--bookstore.replication.poll-interval=50ms", "--bookstore.catalog-snapshot.enabled=true"));
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        // Followers first, so none polls a leader that is already gone
+        nodes.reversed().forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    void shouldServeLeaderWritesFromFollowersWithTheSameRepresentationAndEtag() {
+        long id = id(post(leader, "/api/books", book("Replicated", "repl-1")));
+
+        for (String follower : followers) {
+            assertThat(await(follower, "/api/books/isbn/repl-0", 200).body()).contains("Snapshot book");
+            HttpResponse<String> replica = await(follower, "/api/books/" + id, 200);
+            HttpResponse<String> original = get(leader, "/api/books/" + id);
+
+            assertThat(replica.body()).isEqualTo(original.body());
+            assertThat(replica.headers().firstValue(HttpHeaders.LAST_MODIFIED))
+                .isPresent().isEqualTo(original.headers().firstValue(HttpHeaders.LAST_MODIFIED));
+            assertThat(etag(follower, "/api/books/" + id)).isPresent().isEqualTo(etag(leader, "/api/books/" + id));
+            assertThat(replica.headers().firstValue(FollowerInterceptor.LAG_HEADER)).isPresent();
+            assertThat(original.headers().firstValue(FollowerInterceptor.LAG_HEADER)).isEmpty();
+        }
+
+        send(leader, "DELETE", "/api/books/" + id, null);
+        followers.forEach(follower -> await(follower, "/api/books/" + id, 404));
+    }
+
+    @Test
+    void shouldRedirectWritesToTheLeader() {
+        HttpResponse<String> response = post(followers.get(0), "/api/books?source=test", book("Redirected", "repl-2"));
+
+        assertThat(response.statusCode()).isEqualTo(307);
+        assertThat(response.headers().firstValue(HttpHeaders.LOCATION)).hasValue(leader + "/api/books?source=test");
+    }
+
+    // A snapshot is a full backup, so only the node followers bootstrap from serves one
+    @Test
+    void shouldServeSnapshotsFromTheLeaderOnly() {
+        assertThat(get(leader, "/replication/snapshot").statusCode()).isEqualTo(200);
+        for (String follower : followers) {
+            assertThat(get(follower, "/replication/snapshot").statusCode()).isEqualTo(404);
+            assertThat(get(follower, "/replication/status").body()).contains("\"role\":\"follower\"");
+        }
+    }
+
+    // The feed carries only latest states, so the second book arrives holding an ISBN the first still has locally
+    @Test
+    void shouldConvergeWhenIsbnsMoveBetweenBooks() {
+        long first = id(post(leader, "/api/books", book("First", "repl-3")));
+        long second = id(post(leader, "/api/books", book("Second", "repl-4")));
+        followers.forEach(follower -> await(follower, "/api/books/" + second, 200));
+
+        send(leader, "PATCH", "/api/books/" + first, "{\"isbn\":\"repl-5\"}");
+        send(leader, "PATCH", "/api/books/" + second, "{\"isbn\":\"repl-3\"}");
+        send(leader, "PATCH", "/api/books/" + first, "{\"title\":\"First again\"}");
+
+        for (String follower : followers) {
+            awaitBody(follower, "/api/books/isbn/repl-5", body -> body.contains("First again"));
+            assertThat(id(get(follower, "/api/books/isbn/repl-3"))).isEqualTo(second);
+            assertThat(get(follower, "/api/books/isbn/repl-4").statusCode()).isEqualTo(404);
+        }
+    }
+
+    private static String start(String name, String... args) {
+        List<String> arguments = new ArrayList<>(List.of(
+            "--server.port=0",
+            "--spring.datasource.url=jdbc:sqlite:" + databaseDir.resolve(name + ".db"),
+            "--logging.level.root=WARN"));
+        arguments.addAll(List.of(args));
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(BookstoreApplication.class)
+            .run(arguments.toArray(String[]::new));
+        nodes.add(context);
+        return "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+    }
+
+    private static String book(String title, String isbn) {
+        return "{\"title\":\"" + title + "\",\"author\":\"Replica\",\"isbn\":\"" + isbn + "\",\"price\":12.50,\"quantity\":3}";
+    }
+
+    private static long id(HttpResponse<String> response) {
+        Matcher matcher = ID.matcher(response.body());
+        assertThat(matcher.find()).as(response.body()).isTrue();
+        return Long.parseLong(matcher.group(1));
+    }
+
+    private static HttpResponse<String> await(String node, String path, int status) {
+        return awaitResponse(node, path, response -> response.statusCode() == status);
+    }
+
+    private static HttpResponse<String> awaitBody(String node, String path, Predicate<String> body) {
+        return awaitResponse(node, path, response -> response.statusCode() == 200 && body.test(response.body()));
+    }
+
+    private static HttpResponse<String> awaitResponse(String node, String path, Predicate<HttpResponse<String>> done) {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        HttpResponse<String> response;
+        do {
+            response = get(node, path);
+            if (done.test(response)) {
+                return response;
+            }
+            sleep();
+        } while (System.nanoTime() < deadline);
+        throw new AssertionError("No matching response from " + node + path + " within " + TIMEOUT
+            + "; last was " + response.statusCode() + " " + response.body());
+    }
+
+    private static HttpResponse<String> get(String node, String path) {
+        return send(node, "GET", path, null);
+    }
+
+    // Plain GETs skip the version probe; a request carrying a validator gets the ETag with its 200
+    private static Optional<String> etag(String node, String path) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(node + path))
+            .header(HttpHeaders.IF_NONE_MATCH, "W/\"stale\"")
+            .build();
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.discarding()).headers().firstValue(HttpHeaders.ETAG);
+        } catch (Exception e) {
+            throw new IllegalStateException("GET " + node + path, e);
+        }
+    }
+
+    private static HttpResponse<String> post(String node, String path, String json) {
+        return send(node, "POST", path, json);
+    }
+
+    private static HttpResponse<String> send(String node, String method, String path, String json) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(node + path))
+            .method(method, json != null ? HttpRequest.BodyPublishers.ofString(json) : HttpRequest.BodyPublishers.noBody());
+        if (json != null) {
+            request.header(HttpHeaders.CONTENT_TYPE, "application/json");
+        }
+        try {
+            return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        } catch (Exception e) {
+            throw new IllegalStateException(method + " " + node + path, e);
+        }
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(20);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.bookstore.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("prod")
+class DatabaseConfigTest {
+
+    @TempDir
+    static Path databaseDir;
+
+    @DynamicPropertySource
+    static void databaseUrl(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> "jdbc:sqlite:" + databaseDir.resolve("bookstore.db"));
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void shouldApplyWalPragmasToPooledConnections() {
+        assertThat(jdbcTemplate.queryForObject("PRAGMA journal_mode", String.class)).isEqualToIgnoringCase("wal");
+        assertThat(jdbcTemplate.queryForObject("PRAGMA synchronous", Integer.class)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("PRAGMA busy_timeout", Integer.class)).isEqualTo(5000);
+    }
+
+    @Test
+    void shouldRouteReadOnlyTransactionsToReaderPool() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        Integer books = readOnly.execute(status -> jdbcTemplate.queryForObject("SELECT COUNT(*) FROM books", Integer.class));
+        assertThat(books).isNotNull();
+        assertThatThrownBy(() -> readOnly.executeWithoutResult(status ->
+            jdbcTemplate.update("INSERT INTO books (title, author) VALUES ('title', 'author')")))
+            .hasMessageContaining("readonly");
+    }
+}
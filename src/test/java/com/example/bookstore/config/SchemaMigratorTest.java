@@ -0,0 +1,46 @@
+package com.example.bookstore.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The fast-start bootstrap: schema.sql and migrations on a new database, nothing at all on a current one
+class SchemaMigratorTest {
+
+    @TempDir
+    Path databaseDir;
+
+    @Test
+    void shouldBootstrapNewDatabaseAndSkipSchemaScriptOnceCurrent() {
+        SingleConnectionDataSource dataSource =
+            new SingleConnectionDataSource("jdbc:sqlite:" + databaseDir.resolve("bookstore.db"), true);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        try {
+            bootstrap(dataSource);
+            assertThat(jdbcTemplate.queryForObject("PRAGMA user_version", Integer.class))
+                .isEqualTo(SchemaMigrator.migrations().lastKey());
+            assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM author_stats", Integer.class)).isZero();
+
+            // schema.sql would recreate the trigger; a restart against a current database must not run it
+            jdbcTemplate.execute("DROP TRIGGER books_fts_after_insert");
+            bootstrap(dataSource);
+
+            assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM sqlite_master WHERE name = 'books_fts_after_insert'", Integer.class)).isZero();
+        } finally {
+            dataSource.destroy();
+        }
+    }
+
+    private static void bootstrap(SingleConnectionDataSource dataSource) {
+        new SchemaMigrator(dataSource, new DataSourceTransactionManager(dataSource), "never", "^;", true,
+            new ClassPathResource("schema.sql")).afterPropertiesSet();
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.bookstore.controller;
+
+import com.example.bookstore.model.Book;
+import com.example.bookstore.service.BookLookupService;
+import com.example.bookstore.service.BookService;
+import com.example.bookstore.service.InsufficientStockException;
+import com.example.bookstore.service.JdbcExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class AsyncBookControllerTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private MockMvc mockMvc;
+    private BookService bookService;
+    private BookLookupService bookLookupService;
+    private JdbcExecutor jdbcExecutor;
+    private Book testBook;
+
+    @BeforeEach
+    void setUp() {
+        bookService = mock(BookService.class);
+        bookLookupService = mock(BookLookupService.class);
+        jdbcExecutor = new JdbcExecutor(1, 1);
+        MockEnvironment environment = new MockEnvironment()
+            .withProperty("bookstore.async.timeout.default", "5s")
+            .withProperty("bookstore.async.timeout.search", "50ms");
+        mockMvc = MockMvcBuilders.standaloneSetup(
+            new AsyncBookController(bookService, bookLookupService, jdbcExecutor, environment)).build();
+
+        testBook = new Book();
+        testBook.setId(1L);
+        testBook.setTitle("book title 1");
+        testBook.setAuthor("author 1");
+        testBook.setIsbn("123456");
+        testBook.setPrice(new BigDecimal("25.50"));
+        testBook.setQuantity(50);
+    }
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        jdbcExecutor.destroy();
+    }
+
+    @Test
+    void shouldGetBookByIdAsynchronously() throws Exception {
+        when(bookLookupService.getBookById(1L)).thenReturn(Optional.of(testBook));
+
+        MvcResult result = mockMvc.perform(get("/api/async/books/1"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.title").value("book title 1"));
+    }
+
+    @Test
+    void shouldReturnNotFoundForMissingBook() throws Exception {
+        when(bookLookupService.getBookByIsbn("missing")).thenReturn(Optional.empty());
+
+        MvcResult result = mockMvc.perform(get("/api/async/books/isbn/missing"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldMapServiceErrorsAsTheBlockingControllerDoes() throws Exception {
+        when(bookService.decrementStock(1L, 5)).thenThrow(new InsufficientStockException(1L, 5));
+        when(bookService.createBook(any(Book.class))).thenThrow(new IllegalArgumentException("ISBN already exists"));
+
+        MvcResult decrement = mockMvc.perform(post("/api/async/books/1/stock/decrement").param("quantity", "5"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        mockMvc.perform(asyncDispatch(decrement))
+            .andExpect(status().isConflict());
+
+        MvcResult create = mockMvc.perform(post("/api/async/books")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"t\",\"author\":\"a\",\"isbn\":\"123456\",\"price\":1,\"quantity\":1}"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        mockMvc.perform(asyncDispatch(create))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("ISBN already exists"));
+    }
+
+    // One thread busy and one call queued fill the executor, so the next request is turned away at once
+    @Test
+    void shouldAnswerServiceUnavailableWhenTheQueueIsFull() throws Exception {
+        when(bookLookupService.getBookById(1L)).thenAnswer(invocation -> {
+            release.await();
+            return Optional.of(testBook);
+        });
+        mockMvc.perform(get("/api/async/books/1")).andExpect(request().asyncStarted());
+        mockMvc.perform(get("/api/async/books/1")).andExpect(request().asyncStarted());
+
+        MvcResult result = mockMvc.perform(get("/api/async/books/1"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isServiceUnavailable())
+            .andExpect(header().string("Retry-After", "1"))
+            .andExpect(jsonPath("$.error").value(containsString("Too many requests")));
+    }
+
+    @Test
+    void shouldAnswerServiceUnavailableWhenARouteTimesOut() throws Exception {
+        when(bookService.searchBooksByTitle("slow")).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return List.of(testBook);
+        });
+
+        MvcResult result = mockMvc.perform(get("/api/async/books/search").param("title", "slow"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isServiceUnavailable())
+            .andExpect(header().string("Retry-After", "1"))
+            .andExpect(jsonPath("$.error").value(containsString("50 ms")));
+    }
+
+    // The create outlives its timeout after it has started: the client must not be told to retry, and the
+    // write still goes through once the database answers
+    @Test
+    void shouldAnswerGatewayTimeoutWithoutRetryAfterWhenAWriteTimesOutAndThenCommits() throws Exception {
+        mockMvc = MockMvcBuilders.standaloneSetup(new AsyncBookController(bookService, bookLookupService, jdbcExecutor,
+            new MockEnvironment().withProperty("bookstore.async.timeout.create", "50ms"))).build();
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicBoolean committed = new AtomicBoolean();
+        when(bookService.createBook(any(Book.class))).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            committed.set(true);
+            return testBook;
+        });
+
+        MvcResult result = mockMvc.perform(post("/api/async/books")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"t\",\"author\":\"a\",\"isbn\":\"123456\",\"price\":1,\"quantity\":1}"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isGatewayTimeout())
+            .andExpect(header().doesNotExist("Retry-After"))
+            .andExpect(jsonPath("$.error").value(containsString("may still commit")));
+
+        release.countDown();
+        jdbcExecutor.submit(() -> "drained", Duration.ofSeconds(5)).get(5, TimeUnit.SECONDS);
+        assertThat(committed).isTrue();
+        verify(bookService).createBook(any(Book.class));
+    }
+
+    // A write that timed out before a thread picked it up never ran, so retrying it is safe
+    @Test
+    void shouldAnswerServiceUnavailableAndSkipAWriteThatTimesOutInTheQueue() throws Exception {
+        mockMvc = MockMvcBuilders.standaloneSetup(new AsyncBookController(bookService, bookLookupService, jdbcExecutor,
+            new MockEnvironment().withProperty("bookstore.async.timeout.delete", "50ms"))).build();
+        when(bookLookupService.getBookById(1L)).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(testBook);
+        });
+        mockMvc.perform(get("/api/async/books/1")).andExpect(request().asyncStarted());
+
+        MvcResult result = mockMvc.perform(delete("/api/async/books/1"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isServiceUnavailable())
+            .andExpect(header().string("Retry-After", "1"));
+        release.countDown();
+        jdbcExecutor.submit(() -> "drained", Duration.ofSeconds(5)).get(5, TimeUnit.SECONDS);
+        verify(bookService, never()).deleteBook(1L);
+    }
+}
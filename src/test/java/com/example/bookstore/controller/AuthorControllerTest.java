@@ -0,0 +1,61 @@
+package com.example.bookstore.controller;
+
+import com.example.bookstore.model.AuthorSummary;
+import com.example.bookstore.model.BookVersion;
+import com.example.bookstore.service.BookService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class AuthorControllerTest {
+
+    private MockMvc mockMvc;
+    private BookService bookService;
+
+    @BeforeEach
+    void setUp() {
+        bookService = mock(BookService.class);
+        mockMvc = MockMvcBuilders.standaloneSetup(new AuthorController(bookService)).build();
+        when(bookService.getCatalogVersion()).thenReturn(new BookVersion(7, Instant.parse("2026-01-02T03:04:05Z")));
+    }
+
+    @Test
+    void shouldListAuthorSummaries() throws Exception {
+        when(bookService.getAuthors()).thenReturn(List.of(
+            new AuthorSummary("author 1", 2, 80, new BigDecimal("25.50"), new BigDecimal("33.75"))));
+
+        mockMvc.perform(get("/api/authors"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", "W/\"authors-json-7\""))
+            .andExpect(jsonPath("$[0].author").value("author 1"))
+            .andExpect(jsonPath("$[0].bookCount").value(2))
+            .andExpect(jsonPath("$[0].totalQuantity").value(80))
+            .andExpect(jsonPath("$[0].minPrice").value(25.50))
+            .andExpect(jsonPath("$[0].maxPrice").value(33.75));
+    }
+
+    @Test
+    void shouldReturnNotFoundForUnknownAuthor() throws Exception {
+        when(bookService.getAuthor("nobody")).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/authors/nobody"))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldAnswerNotModifiedWithoutReadingAggregates() throws Exception {
+        mockMvc.perform(get("/api/authors").header("If-None-Match", "W/\"authors-json-7\""))
+            .andExpect(status().isNotModified());
+        verify(bookService, never()).getAuthors();
+    }
+}
@@ -1,21 +1,45 @@
 package com.example.bookstore.controller;
 
+import com.example.bookstore.model.BatchGetResult;
 import com.example.bookstore.model.Book;
+import com.example.bookstore.model.BookChange;
+import com.example.bookstore.model.BookChangePage;
+import com.example.bookstore.model.BookPage;
+import com.example.bookstore.model.BookVersion;
+import com.example.bookstore.model.BulkImportResult;
+import com.example.bookstore.model.StockAdjustment;
+import com.example.bookstore.repository.BookProjection;
+import com.example.bookstore.repository.BookQuery;
+import com.example.bookstore.service.BookImportService;
+import com.example.bookstore.service.BookLookupService;
 import com.example.bookstore.service.BookService;
+import com.example.bookstore.service.InsufficientStockException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -26,6 +50,8 @@ class BookControllerTest {
 
     private MockMvc mockMvc;
     private BookService bookService;
+    private BookLookupService bookLookupService;
+    private BookImportService bookImportService;
     private ObjectMapper objectMapper;
     private Book testBook;
     private Book testBook2;
@@ -33,9 +59,13 @@ class BookControllerTest {
     @BeforeEach
     void setUp() {
         bookService = mock(BookService.class);
+        bookLookupService = mock(BookLookupService.class);
+        bookImportService = mock(BookImportService.class);
         objectMapper = new ObjectMapper();
-        BookController controller = new BookController(bookService);
-        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+        BookController controller = new BookController(bookService, bookLookupService, bookImportService,
+            JsonMapper.builder().build());
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).addInterceptors(new VaryInterceptor()).build();
+        when(bookService.getCatalogVersion()).thenReturn(BookVersion.EMPTY);
         
         testBook = new Book();
         testBook.setId(1L);
@@ -66,15 +96,144 @@ class BookControllerTest {
             .andExpect(jsonPath("$[0].title").value("book title 1"));
     }
 
+    @Test
+    void shouldGetBooksPageWhenLimitGiven() throws Exception {
+        when(bookService.getBooksPage(null, 1)).thenReturn(new BookPage<>(List.of(testBook), "next-token"));
+
+        mockMvc.perform(get("/api/books").param("limit", "1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.items[0].title").value("book title 1"))
+            .andExpect(jsonPath("$.nextCursor").value("next-token"));
+    }
+
+    @Test
+    void shouldFilterBooksByPriceRange() throws Exception {
+        BookQuery query = new BookQuery(new BigDecimal("10"), new BigDecimal("30"), null, null, null,
+            BookQuery.Sort.PRICE, true);
+        when(bookService.queryBooks(query, null, 1)).thenReturn(new BookPage<>(List.of(testBook), "next-token"));
+
+        mockMvc.perform(get("/api/books/filter")
+                .param("minPrice", "10").param("maxPrice", "30")
+                .param("sort", "price").param("direction", "desc").param("limit", "1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.items[0].price").value(25.50))
+            .andExpect(jsonPath("$.nextCursor").value("next-token"));
+    }
+
+    @Test
+    void shouldRejectUnknownFilterSort() throws Exception {
+        mockMvc.perform(get("/api/books/filter").param("sort", "title"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value(containsString("Unknown sort")));
+        mockMvc.perform(get("/api/books/filter").param("minQuantity", "5").param("maxQuantity", "1"))
+            .andExpect(status().isBadRequest());
+        verify(bookService, never()).queryBooks(any(), any(), any());
+    }
+
+    @Test
+    void shouldRejectInvalidCursor() throws Exception {
+        when(bookService.getBooksPage("garbage", null))
+            .thenThrow(new IllegalArgumentException("Invalid cursor: garbage"));
+
+        mockMvc.perform(get("/api/books").param("after", "garbage"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("Invalid cursor: garbage"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldStreamBooksAsNdjson() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<Book> consumer = invocation.getArgument(0);
+            consumer.accept(testBook);
+            consumer.accept(testBook2);
+            return null;
+        }).when(bookService).streamAllBooks(any(Consumer.class));
+
+        MvcResult result = mockMvc.perform(get("/api/books").accept(MediaType.APPLICATION_NDJSON))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[1]).contains("\"isbn\":\"789012\"");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldStreamBooksAsJsonArray() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<Book> consumer = invocation.getArgument(0);
+            consumer.accept(testBook);
+            consumer.accept(testBook2);
+            return null;
+        }).when(bookService).streamAllBooks(any(Consumer.class));
+
+        MvcResult result = mockMvc.perform(get("/api/books").param("stream", "true"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[1].title").value("book title 2"));
+    }
+
     @Test
     void shouldGetBookByIdWhenExists() throws Exception {
-        when(bookService.getBookById(1L)).thenReturn(Optional.of(testBook));
+        when(bookLookupService.getBookById(1L)).thenReturn(Optional.of(testBook));
 
         mockMvc.perform(get("/api/books/1"))
             .andExpect(status().isOk())
             .andExpect(jsonPath("$.title").value("book title 1"));
     }
 
+    @Test
+    void shouldSearchBooksWithPaging() throws Exception {
+        when(bookService.searchBooks("title", 1, 5)).thenReturn(List.of(testBook2));
+
+        mockMvc.perform(get("/api/books/search").param("q", "title").param("page", "1").param("size", "5"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[0].isbn").value("789012"));
+    }
+
+    @Test
+    void shouldReturnProjectedPageWhenFieldsRequested() throws Exception {
+        BookProjection projection = BookProjection.parse("title,price");
+        when(bookService.getBooksPage(null, 1, projection)).thenReturn(new BookPage<>(
+            List.of(Map.of("id", 1L, "title", "book title 1", "price", new BigDecimal("25.50"))), "next-token"));
+
+        mockMvc.perform(get("/api/books").param("limit", "1").param("fields", "title,price"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.items[0].title").value("book title 1"))
+            .andExpect(jsonPath("$.items[0].author").doesNotExist())
+            .andExpect(jsonPath("$.nextCursor").value("next-token"));
+
+        verify(bookService, never()).getBooksPage(null, 1);
+    }
+
+    @Test
+    void shouldReturnProjectedSearchResults() throws Exception {
+        when(bookService.searchBooks("title", 0, 20, BookProjection.parse("isbn")))
+            .thenReturn(List.of(Map.of("id", 2L, "isbn", "789012")));
+
+        mockMvc.perform(get("/api/books/search").param("q", "title").param("fields", "isbn"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[0].isbn").value("789012"))
+            .andExpect(jsonPath("$[0].title").doesNotExist());
+    }
+
+    @Test
+    void shouldRejectUnknownField() throws Exception {
+        mockMvc.perform(get("/api/books/author/author 1").param("fields", "title,publisher"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value(containsString("publisher")));
+
+        verify(bookService, never()).getBooksByAuthor(any());
+    }
+
     @Test
     void shouldCreateBookSuccessfully() throws Exception {
         Book createdBook = new Book();
@@ -102,6 +261,23 @@ class BookControllerTest {
             .andExpect(jsonPath("$.title").value("title 1"));
     }
 
+    @Test
+    void shouldRouteBulkImportByContentType() throws Exception {
+        BulkImportResult result = new BulkImportResult();
+        result.recordReceived();
+        result.recordInserted(1);
+        when(bookImportService.importCsv(any())).thenReturn(result);
+
+        mockMvc.perform(post("/api/books/bulk")
+                .contentType("text/csv")
+                .content("title,author\nbook title 1,author 1\n"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.inserted").value(1))
+            .andExpect(jsonPath("$.failed").value(0));
+        verify(bookImportService).importCsv(any());
+        verify(bookImportService, never()).importJson(any());
+    }
+
     @Test
     void shouldUpdateBookSuccessfully() throws Exception {
         Book savedBook = new Book();
@@ -148,6 +324,18 @@ class BookControllerTest {
             .andExpect(jsonPath("$.price").value(40.25));
     }
 
+    @Test
+    void shouldReturnConflictWhenAnotherWriterClaimedTheIsbn() throws Exception {
+        when(bookService.patchBook(eq(1L), any(Book.class)))
+            .thenThrow(new DuplicateKeyException("Book with ISBN 789012 already exists"));
+
+        mockMvc.perform(patch("/api/books/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"isbn\":\"789012\"}"))
+            .andExpect(status().isConflict())
+            .andExpect(jsonPath("$.error").value("Book with ISBN 789012 already exists"));
+    }
+
     @Test
     void shouldDeleteBookSuccessfully() throws Exception {
         doNothing().when(bookService).deleteBook(1L);
@@ -155,4 +343,164 @@ class BookControllerTest {
         mockMvc.perform(delete("/api/books/1"))
             .andExpect(status().isNoContent());
     }
+
+    @Test
+    void shouldDecrementStock() throws Exception {
+        testBook.setQuantity(48);
+        when(bookService.decrementStock(1L, 2)).thenReturn(testBook);
+
+        mockMvc.perform(post("/api/books/1/stock/decrement").param("quantity", "2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.quantity").value(48));
+    }
+
+    @Test
+    void shouldReturnConflictWhenStockIsShort() throws Exception {
+        when(bookService.decrementStock(1L, 1)).thenThrow(new InsufficientStockException(1L, 1));
+
+        mockMvc.perform(post("/api/books/1/stock/decrement"))
+            .andExpect(status().isConflict())
+            .andExpect(jsonPath("$.error").value("Insufficient stock for book 1: requested 1"));
+    }
+
+    @Test
+    void shouldReturnNotFoundWhenAdjustingUnknownBook() throws Exception {
+        when(bookService.incrementStock(99L, 1)).thenThrow(new IllegalArgumentException("Book not found with id: 99"));
+        when(bookService.bookExists(99L)).thenReturn(false);
+
+        mockMvc.perform(post("/api/books/99/stock/increment"))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldReportFailingLineOfCart() throws Exception {
+        when(bookService.decrementStock(anyList())).thenThrow(new InsufficientStockException(2L, 40));
+        String cart = objectMapper.writeValueAsString(List.of(new StockAdjustment(1L, 1), new StockAdjustment(2L, 40)));
+
+        mockMvc.perform(post("/api/books/stock/decrement")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(cart))
+            .andExpect(status().isConflict())
+            .andExpect(jsonPath("$.bookId").value(2));
+    }
+
+    @Test
+    void shouldReturnChangesWithTombstones() throws Exception {
+        BookChangePage page = new BookChangePage(
+            List.of(new BookChange(7, 1L, false, testBook), new BookChange(8, 2L, true, null)), "next-token", false);
+        when(bookService.getChanges("since-token", null)).thenReturn(page);
+
+        mockMvc.perform(get("/api/books/changes").param("since", "since-token"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.changes[0].book.title").value("book title 1"))
+            .andExpect(jsonPath("$.changes[1].deleted").value(true))
+            .andExpect(jsonPath("$.nextCursor").value("next-token"))
+            .andExpect(jsonPath("$.hasMore").value(false));
+    }
+
+    @Test
+    void shouldNegotiateCborAndSmile() throws Exception {
+        when(bookService.getAllBooks()).thenReturn(List.of(testBook, testBook2));
+
+        assertBooksNegotiatedAs(MediaType.APPLICATION_CBOR, new CBORMapper());
+        assertBooksNegotiatedAs(MediaType.parseMediaType("application/x-jackson-smile"), new SmileMapper());
+    }
+
+    @Test
+    void shouldVaryValidatorsByNegotiatedEncoding() throws Exception {
+        when(bookService.getCatalogVersion()).thenReturn(new BookVersion(7, Instant.parse("2026-01-02T03:04:05Z")));
+        when(bookService.getAllBooks()).thenReturn(List.of(testBook, testBook2));
+
+        mockMvc.perform(get("/api/books").accept(MediaType.APPLICATION_CBOR)
+                .header("If-None-Match", "W/\"books-json-7\""))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+            .andExpect(header().string("ETag", "W/\"books-cbor-7\""))
+            .andExpect(header().string("Vary", "Accept, Accept-Encoding"));
+        mockMvc.perform(get("/api/books").header("Accept", "application/x-jackson-smile;q=0.5, application/json")
+                .header("If-None-Match", "W/\"books-json-7\""))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string("ETag", "W/\"books-json-7\""))
+            .andExpect(header().string("Vary", "Accept, Accept-Encoding"));
+        mockMvc.perform(get("/api/books").accept("application/x-jackson-smile")
+                .header("If-None-Match", "W/\"books-smile-7\""))
+            .andExpect(status().isNotModified());
+    }
+
+    private void assertBooksNegotiatedAs(MediaType format, tools.jackson.databind.ObjectMapper mapper) throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/books").accept(format))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(format))
+            .andReturn();
+
+        Book[] books = mapper.readValue(result.getResponse().getContentAsByteArray(), Book[].class);
+        assertThat(books).extracting(Book::getTitle).containsExactly("book title 1", "book title 2");
+        assertThat(books[0].getPrice()).isEqualByComparingTo("25.50");
+        assertThat(books[0].getCreatedAt()).isEqualTo(testBook.getCreatedAt());
+    }
+
+    @Test
+    void shouldAnswerNotModifiedFromVersionProbeWithoutLoadingBook() throws Exception {
+        when(bookLookupService.getBookVersion(1L)).thenReturn(Optional.of(new BookVersion(42, Instant.parse("2026-01-02T03:04:05Z"))));
+
+        mockMvc.perform(get("/api/books/1").header("If-None-Match", "W/\"book-json-42\""))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string("ETag", "W/\"book-json-42\""));
+        verify(bookLookupService, never()).getBookById(1L);
+    }
+
+    @Test
+    void shouldSendValidatorsWithFullBook() throws Exception {
+        when(bookLookupService.getBookVersion(1L)).thenReturn(Optional.of(new BookVersion(42, Instant.parse("2026-01-02T03:04:05Z"))));
+        when(bookLookupService.getBookById(1L)).thenReturn(Optional.of(testBook));
+
+        mockMvc.perform(get("/api/books/1").header("If-None-Match", "\"book-41\""))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", "W/\"book-json-42\""))
+            .andExpect(header().string("Last-Modified", "Fri, 02 Jan 2026 03:04:05 GMT"))
+            .andExpect(jsonPath("$.title").value("book title 1"));
+    }
+
+    @Test
+    void shouldSkipTheVersionProbeForPlainGets() throws Exception {
+        testBook.setUpdatedAt(LocalDateTime.of(2026, 1, 2, 3, 4, 5));
+        when(bookLookupService.getBookById(1L)).thenReturn(Optional.of(testBook));
+        when(bookService.getAllBooks()).thenReturn(List.of(testBook, testBook2));
+        long lastModified = testBook.getUpdatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+        mockMvc.perform(get("/api/books/1"))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("ETag"))
+            .andExpect(header().dateValue("Last-Modified", lastModified));
+        mockMvc.perform(get("/api/books"))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("ETag"));
+
+        verify(bookLookupService, never()).getBookVersion(any());
+        verify(bookService, never()).getCatalogVersion();
+    }
+
+    @Test
+    void shouldAnswerNotModifiedForUnchangedCatalog() throws Exception {
+        when(bookService.getCatalogVersion()).thenReturn(new BookVersion(7, Instant.parse("2026-01-02T03:04:05Z")));
+
+        mockMvc.perform(get("/api/books").header("If-Modified-Since", "Fri, 02 Jan 2026 03:04:05 GMT"))
+            .andExpect(status().isNotModified());
+        verify(bookService, never()).getAllBooks();
+    }
+
+    @Test
+    void shouldBatchGetBooks() throws Exception {
+        BatchGetResult result = new BatchGetResult(
+            List.of(new BatchGetResult.Lookup<>(1L, testBook), new BatchGetResult.Lookup<>(99L, null)), List.of());
+        when(bookService.getBooks(any())).thenReturn(result);
+
+        mockMvc.perform(post("/api/books/batch-get")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"ids\": [1, 99]}"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.ids[0].book.title").value("book title 1"))
+            .andExpect(jsonPath("$.ids[1].key").value(99))
+            .andExpect(jsonPath("$.ids[1].found").value(false));
+    }
 }
@@ -0,0 +1,116 @@
+package com.example.bookstore.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+// Concurrent API writes with the write queue on: every request must be answered after its batch commits, and
+// requests arriving together must share batches. A file database, since each :memory: connection is its own.
+@SpringBootTest(properties = "bookstore.write-queue.max-batch-delay=20ms")
+class BookControllerWriteQueueTest {
+
+    private static final int WRITERS = 16;
+    private static final int DECREMENTS_PER_WRITER = 5;
+
+    @TempDir
+    static Path databaseDir;
+
+    @DynamicPropertySource
+    static void databaseUrl(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> "jdbc:sqlite:" + databaseDir.resolve("bookstore.db"));
+    }
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    @Test
+    void shouldGroupCommitConcurrentCreatesAndStockDecrements() throws Exception {
+        long stockId = json(perform(post("/api/books").contentType(MediaType.APPLICATION_JSON)
+            .content(book("Shared stock", "queue-0", WRITERS * DECREMENTS_PER_WRITER + 3)), 201)).get("id").asLong();
+        JsonNode before = json(perform(get("/write-queue/stats"), 200));
+
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> writers = new ArrayList<>();
+        try {
+            for (int i = 1; i <= WRITERS; i++) {
+                String isbn = "queue-" + i;
+                writers.add(executor.submit(() -> {
+                    start.await();
+                    perform(post("/api/books").contentType(MediaType.APPLICATION_JSON)
+                        .content(book("Concurrent " + isbn, isbn, 1)), 201);
+                    for (int n = 0; n < DECREMENTS_PER_WRITER; n++) {
+                        perform(post("/api/books/" + stockId + "/stock/decrement"), 200);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> writer : writers) {
+                writer.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(json(perform(get("/api/books/" + stockId), 200)).get("quantity").asInt()).isEqualTo(3);
+        for (int i = 1; i <= WRITERS; i++) {
+            perform(get("/api/books/isbn/queue-" + i), 200);
+        }
+        JsonNode after = json(perform(get("/write-queue/stats"), 200));
+        long operations = after.get("operations").asLong() - before.get("operations").asLong();
+        long batches = after.get("batches").asLong() - before.get("batches").asLong();
+        assertThat(operations).isEqualTo(WRITERS * (1 + DECREMENTS_PER_WRITER));
+        assertThat(batches).isLessThan(operations);
+    }
+
+    private MvcResult perform(RequestBuilder request, int status) throws Exception {
+        MvcResult result = mockMvc.perform(request).andReturn();
+        assertThat(result.getResponse().getStatus()).as(result.getResponse().getContentAsString()).isEqualTo(status);
+        return result;
+    }
+
+    private JsonNode json(MvcResult result) throws Exception {
+        return objectMapper.readTree(result.getResponse().getContentAsString());
+    }
+
+    private static String book(String title, String isbn, int quantity) {
+        return "{\"title\":\"" + title + "\",\"author\":\"Writer\",\"isbn\":\"" + isbn
+            + "\",\"price\":9.99,\"quantity\":" + quantity + "}";
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.bookstore.controller;
+
+import com.example.bookstore.repository.DatabaseBackup;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class SnapshotControllerTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final DatabaseBackup databaseBackup = mock(DatabaseBackup.class);
+    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new SnapshotController(databaseBackup)).build();
+
+    @AfterEach
+    void unblock() {
+        release.countDown();
+    }
+
+    // A second follower asking while the first backup runs is turned away rather than starting another one
+    @Test
+    void shouldRunOneBackupAtATime() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            Files.writeString(invocation.getArgument(0), "snapshot");
+            return null;
+        }).when(databaseBackup).backupTo(any(Path.class));
+
+        CompletableFuture<MvcResult> first = CompletableFuture.supplyAsync(() -> {
+            try {
+                return mockMvc.perform(get("/replication/snapshot")).andReturn();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        mockMvc.perform(get("/replication/snapshot"))
+            .andExpect(status().isServiceUnavailable())
+            .andExpect(header().string("Retry-After", SnapshotController.RETRY_AFTER_SECONDS));
+
+        release.countDown();
+        mockMvc.perform(asyncDispatch(first.get(5, TimeUnit.SECONDS)))
+            .andExpect(status().isOk())
+            .andExpect(content().string("snapshot"));
+        verify(databaseBackup, times(1)).backupTo(any(Path.class));
+
+        doNothing().when(databaseBackup).backupTo(any(Path.class));
+        mockMvc.perform(get("/replication/snapshot")).andExpect(status().isOk());
+    }
+}
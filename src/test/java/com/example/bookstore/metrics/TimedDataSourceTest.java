@@ -0,0 +1,121 @@
+package com.example.bookstore.metrics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimedDataSourceTest {
+
+    private SingleConnectionDataSource target;
+    private BookstoreMetrics metrics;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        target = new SingleConnectionDataSource("jdbc:sqlite::memory:", true);
+        metrics = new BookstoreMetrics();
+        jdbcTemplate = new JdbcTemplate(new TimedDataSource(target, "test-pool", metrics));
+        jdbcTemplate.execute("CREATE TABLE items (name TEXT)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        target.destroy();
+    }
+
+    // Queries are wrapped in a plain delegate, not a reflective proxy, and count the rows read
+    @Test
+    void shouldCountRowsReadAndWritten() {
+        jdbcTemplate.update("INSERT INTO items (name) VALUES ('a'), ('b'), ('c')");
+
+        List<String> names = jdbcTemplate.query("SELECT name FROM items   ORDER BY name", (rs, rowNum) -> {
+            assertThat(Proxy.isProxyClass(rs.getClass())).isFalse();
+            return rs.getString(1);
+        });
+
+        assertThat(names).hasSize(3);
+        Map<String, Object> select = statement("SELECT name FROM items ORDER BY name");
+        assertThat(select).containsEntry("count", 1L).containsEntry("rows", 3L);
+        assertThat(statement("INSERT INTO items (name) VALUES ('a'), ('b'), ('c')")).containsEntry("rows", 3L);
+    }
+
+    // The timer stops at the last row, not when the caller gets round to closing the statement
+    @Test
+    void shouldRecordQueryOnceItsRowsAreExhausted() {
+        jdbcTemplate.update("INSERT INTO items (name) VALUES ('a'), ('b')");
+
+        jdbcTemplate.execute((Connection connection) -> {
+            try (PreparedStatement select = connection.prepareStatement("SELECT name FROM items")) {
+                ResultSet rs = select.executeQuery();
+                while (rs.next()) {
+                    assertThat(statement("SELECT name FROM items")).containsEntry("count", 0L);
+                }
+                assertThat(statement("SELECT name FROM items")).containsEntry("count", 1L).containsEntry("rows", 2L);
+                rs.close();
+            }
+            return null;
+        });
+
+        assertThat(statement("SELECT name FROM items")).containsEntry("count", 1L);
+    }
+
+    @Test
+    void shouldResolveEachSqlStringToItsNormalizedStatementOnce() {
+        LatencyHistogram histogram = metrics.statement("SELECT name\n  FROM items");
+
+        assertThat(metrics.statement("SELECT name\n  FROM items")).isSameAs(histogram);
+        assertThat(metrics.statement("SELECT name FROM items")).isSameAs(histogram);
+    }
+
+    @Test
+    void shouldRecordBatchRowsAndPoolWait() {
+        jdbcTemplate.batchUpdate("INSERT INTO items (name) VALUES (?)", List.of(new Object[] {"a"}, new Object[] {"b"}));
+
+        assertThat(statement("INSERT INTO items (name) VALUES (?)")).containsEntry("rows", 2L);
+        assertThat(section("poolWaits")).containsKey("test-pool");
+    }
+
+    @Test
+    void shouldFoldStatementsPastTheLimitIntoOther() {
+        for (int i = 0; i < BookstoreMetrics.MAX_STATEMENTS + 5; i++) {
+            metrics.recordStatement("SELECT " + i, 1_000, 1);
+        }
+
+        assertThat(section("statements")).hasSize(BookstoreMetrics.MAX_STATEMENTS + 1)
+            .containsKey(BookstoreMetrics.OTHER_STATEMENTS);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldReportPercentilesInMilliseconds() {
+        for (int i = 1; i <= 1000; i++) {
+            metrics.recordRequest("GET /api/books/{id} (getBookById)", i * 1_000_000L);
+        }
+
+        Map<String, Object> route = (Map<String, Object>) section("requests").get("GET /api/books/{id} (getBookById)");
+        assertThat((Double) route.get("p50Ms")).isBetween(499.0, 501.0);
+        assertThat((Double) route.get("p99Ms")).isBetween(989.0, 991.0);
+        assertThat(route).containsEntry("count", 1000L);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> section(String name) {
+        return (Map<String, Object>) metrics.snapshot().get(name);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> statement(String sql) {
+        return (Map<String, Object>) section("statements").get(sql);
+    }
+}
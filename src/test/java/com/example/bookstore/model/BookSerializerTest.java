@@ -0,0 +1,75 @@
+package com.example.bookstore.model;
+
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ValueSerializer;
+import tools.jackson.databind.annotation.JsonSerialize;
+import tools.jackson.databind.cfg.DateTimeFeature;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookSerializerTest {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+
+    // The bean serializer Book used before it had a dedicated one
+    private final ObjectMapper reflectiveMapper = JsonMapper.builder()
+        .addMixIn(Book.class, ReflectiveBook.class)
+        .build();
+
+    @JsonSerialize(using = ValueSerializer.None.class)
+    private abstract static class ReflectiveBook {
+    }
+
+    @Test
+    void shouldMatchReflectiveSerialization() {
+        Book book = book(LocalDateTime.of(2026, 10, 16, 22, 52, 43, 785807450));
+
+        assertThat(objectMapper.writeValueAsString(book)).isEqualTo(reflectiveMapper.writeValueAsString(book));
+    }
+
+    @Test
+    void shouldWriteNullProperties() {
+        Book book = new Book();
+
+        assertThat(objectMapper.writeValueAsString(book))
+            .isEqualTo(reflectiveMapper.writeValueAsString(book))
+            .contains("\"isbn\":null");
+    }
+
+    @Test
+    void shouldFormatTimestampsLikeIsoLocalDateTime() {
+        List<LocalDateTime> timestamps = List.of(
+            LocalDateTime.of(2026, 1, 2, 3, 4),
+            LocalDateTime.of(2026, 1, 2, 3, 4, 5, 500_000_000),
+            LocalDateTime.of(999, 12, 31, 23, 59, 59, 1),
+            LocalDateTime.of(12026, 1, 1, 0, 0));
+
+        for (LocalDateTime timestamp : timestamps) {
+            Book book = book(timestamp);
+            assertThat(objectMapper.writeValueAsString(book)).isEqualTo(reflectiveMapper.writeValueAsString(book));
+        }
+    }
+
+    @Test
+    void shouldHonourNumericTimestamps() {
+        Book book = book(LocalDateTime.of(2026, 10, 16, 22, 52, 43));
+        ObjectMapper numeric = objectMapper.rebuild().enable(DateTimeFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+        ObjectMapper reflectiveNumeric = reflectiveMapper.rebuild().enable(DateTimeFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+
+        assertThat(numeric.writeValueAsString(book)).isEqualTo(reflectiveNumeric.writeValueAsString(book));
+    }
+
+    private static Book book(LocalDateTime timestamp) {
+        Book book = new Book("Quote \"and\" é", "author 1", "978-1", new BigDecimal("25.50"), 5);
+        book.setId(42L);
+        book.setCreatedAt(timestamp);
+        book.setUpdatedAt(timestamp);
+        return book;
+    }
+}
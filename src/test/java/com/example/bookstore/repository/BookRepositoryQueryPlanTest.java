@@ -0,0 +1,211 @@
+package com.example.bookstore.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jdbc.repository.query.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Plans every @Query in BookRepository, the filter queries BookQueryRepository builds, the projection and version
+// queries, and the services' book_changes and ISBN lookups against the real schema and migrations. Fails on a full
+// scan of books, and on book_changes reads that scan or sort where a seek would do.
+@SpringBootTest
+class BookRepositoryQueryPlanTest {
+
+    // Queries whose job is to read the whole table, or that cannot use an index by construction
+    private static final Set<String> FULL_SCANS_ALLOWED = Set.of(
+        "streamAll",
+        // LIKE '%term%' fallback for terms too short for the trigram index
+        "findByTitleContaining");
+
+    // Inline in the services, which this package cannot reach; kept verbatim
+    private static final String CHANGE_FEED_SQL = // BookService.getChanges
+        "SELECT seq, book_id, deleted FROM book_changes WHERE seq > :since ORDER BY seq LIMIT :limit";
+    private static final String EXISTING_ISBNS_SQL = // BookImportService.rejectExistingIsbns
+        "SELECT isbn FROM books WHERE isbn IN (:isbns)";
+    private static final String SNAPSHOT_CHANGES_SQL = // CatalogSnapshot.applyChanges
+        "SELECT seq, book_id, deleted, changed_at FROM book_changes WHERE seq > :since ORDER BY seq LIMIT :limit";
+    private static final String SNAPSHOT_NEWEST_SQL = // CatalogSnapshot.load
+        "SELECT COALESCE(MAX(seq), 0) FROM book_changes";
+    private static final String SNAPSHOT_VERSIONS_SQL = // CatalogSnapshot.load
+        "SELECT book_id, seq, changed_at FROM book_changes WHERE deleted = 0";
+
+    private static final Pattern NAMED_PARAMETER = Pattern.compile(":(\\w+)");
+    private static final Pattern TABLE_SCAN = Pattern.compile("^SCAN books(\\s|$)");
+
+    @TempDir
+    static Path databaseDir;
+
+    @DynamicPropertySource
+    static void databaseUrl(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> "jdbc:sqlite:" + databaseDir.resolve("bookstore.db"));
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldNotScanBooksInAnyRepositoryQuery() {
+        List<String> scans = new ArrayList<>();
+        int planned = 0;
+        for (Method method : BookRepository.class.getDeclaredMethods()) {
+            Query query = method.getAnnotation(Query.class);
+            if (query == null || FULL_SCANS_ALLOWED.contains(method.getName())) {
+                continue;
+            }
+            for (String detail : explain(query.value())) {
+                if (TABLE_SCAN.matcher(detail).find()) {
+                    scans.add(method.getName() + ": " + detail);
+                }
+            }
+            planned++;
+        }
+
+        assertThat(planned).isGreaterThan(5);
+        assertThat(scans).as("repository queries that scan books").isEmpty();
+    }
+
+    @Test
+    void shouldUseAuthorIndexForCaseInsensitiveLookup() throws NoSuchMethodException {
+        String sql = BookRepository.class.getMethod("findByAuthor", String.class).getAnnotation(Query.class).value();
+
+        assertThat(explain(sql)).anyMatch(detail -> detail.contains("idx_books_author"));
+    }
+
+    @Test
+    void shouldServeRangeFiltersFromIndexes() {
+        List<BookQuery> queries = List.of(
+            new BookQuery(BigDecimal.ONE, BigDecimal.TEN, null, null, null, BookQuery.Sort.PRICE, false),
+            new BookQuery(BigDecimal.ONE, BigDecimal.TEN, null, null, null, BookQuery.Sort.ID, true),
+            new BookQuery(null, null, null, 5, null, BookQuery.Sort.QUANTITY, false),
+            new BookQuery(null, null, 1, null, "author", BookQuery.Sort.PRICE, true),
+            new BookQuery(null, null, null, null, null, BookQuery.Sort.PRICE, true));
+        for (BookQuery query : queries) {
+            for (Long afterId : Arrays.asList(null, 1L)) {
+                List<String> plan = explain(BookQueryRepository.statement(query, BigDecimal.ONE, afterId, 10).sql());
+                assertThat(plan).as("plan for %s after %s", query, afterId)
+                    .noneMatch(detail -> TABLE_SCAN.matcher(detail).find());
+            }
+        }
+    }
+
+    @Test
+    void shouldWalkPriceIndexInSortOrder() {
+        BookQuery query = new BookQuery(BigDecimal.ONE, BigDecimal.TEN, null, null, null, BookQuery.Sort.PRICE, false);
+
+        List<String> plan = explain(BookQueryRepository.statement(query, BigDecimal.ONE, 1L, 10).sql());
+
+        assertThat(plan).anyMatch(detail -> detail.contains("idx_books_price"));
+        assertThat(plan).noneMatch(detail -> detail.contains("TEMP B-TREE"));
+    }
+
+    @Test
+    void shouldNotScanBooksInAnyProjectionQuery() {
+        PlanningTemplate planner = new PlanningTemplate();
+        BookProjectionRepository repository = new BookProjectionRepository(planner);
+        BookProjection projection = BookProjection.parse("title,price");
+
+        repository.findPageAfter(projection, 1L, 10);
+        repository.findByAuthor(projection, "author");
+        repository.searchFullText(projection, "title", 10, 0);
+        repository.findByIsbnRange(projection, "1", "2", 10, 0);
+
+        assertThat(planner.plans).hasSize(4);
+        planner.plans.forEach((sql, plan) -> assertThat(plan).as(sql)
+            .noneMatch(detail -> TABLE_SCAN.matcher(detail).find()));
+        assertThat(planner.plans.values()).anySatisfy(plan ->
+            assertThat(plan).anyMatch(detail -> detail.contains("idx_books_author")));
+    }
+
+    @Test
+    void shouldLookUpVersionsByKey() {
+        PlanningTemplate planner = new PlanningTemplate();
+        BookTableOperationsImpl operations = new BookTableOperationsImpl(planner);
+
+        operations.findVersion(1L);
+        operations.findVersionByIsbn("123456");
+
+        assertThat(planner.plans).hasSize(2);
+        planner.plans.forEach((sql, plan) -> assertThat(plan).as(sql)
+            .isNotEmpty()
+            .allMatch(detail -> detail.startsWith("SEARCH ")));
+    }
+
+    // ORDER BY seq DESC LIMIT 1 walks the rowid b-tree from its end and stops at the first row, which EXPLAIN
+    // reports as a bare SCAN with no sorter; MAX(seq) is a single seek
+    @Test
+    void shouldReadNewestChangeWithoutSorting() {
+        PlanningTemplate planner = new PlanningTemplate();
+        new BookTableOperationsImpl(planner).findCatalogVersion();
+
+        assertThat(planner.plans).hasSize(1);
+        assertThat(planner.plans.values().iterator().next()).containsExactly("SCAN book_changes");
+        assertThat(explain(SNAPSHOT_NEWEST_SQL)).as(SNAPSHOT_NEWEST_SQL)
+            .isNotEmpty()
+            .allMatch(detail -> detail.startsWith("SEARCH book_changes"));
+    }
+
+    @Test
+    void shouldSeekChangeFeedsBySeq() {
+        for (String sql : List.of(CHANGE_FEED_SQL, SNAPSHOT_CHANGES_SQL)) {
+            assertThat(explain(sql)).as(sql)
+                .anyMatch(detail -> detail.startsWith("SEARCH book_changes USING INTEGER PRIMARY KEY"))
+                .noneMatch(detail -> detail.contains("TEMP B-TREE"));
+        }
+    }
+
+    @Test
+    void shouldUseIsbnIndexForExistingIsbnCheck() {
+        assertThat(explain(EXISTING_ISBNS_SQL))
+            .anyMatch(detail -> detail.startsWith("SEARCH books USING COVERING INDEX"))
+            .noneMatch(detail -> TABLE_SCAN.matcher(detail).find());
+    }
+
+    // The snapshot loads every live version, so one pass over book_changes is the plan to want
+    @Test
+    void shouldLoadSnapshotVersionsInOnePass() {
+        assertThat(explain(SNAPSHOT_VERSIONS_SQL)).containsExactly("SCAN book_changes");
+    }
+
+    // Parameters are bound as NULL; the plan depends only on the statement's shape
+    private List<String> explain(String namedSql) {
+        String sql = NAMED_PARAMETER.matcher(namedSql).replaceAll("?");
+        Object[] parameters = new Object[(int) sql.chars().filter(c -> c == '?').count()];
+        return jdbcTemplate.query("EXPLAIN QUERY PLAN " + sql, (rs, row) -> rs.getString("detail"), parameters);
+    }
+
+    // Plans each statement handed to it instead of running it, so repository methods report their real SQL
+    private final class PlanningTemplate extends NamedParameterJdbcTemplate {
+
+        private final Map<String, List<String>> plans = new LinkedHashMap<>();
+
+        private PlanningTemplate() {
+            super(jdbcTemplate);
+        }
+
+        @Override
+        public <T> List<T> query(String sql, SqlParameterSource paramSource, RowMapper<T> rowMapper) {
+            plans.put(sql, explain(sql));
+            return List.of();
+        }
+    }
+}
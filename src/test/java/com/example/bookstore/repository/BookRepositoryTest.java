@@ -13,9 +13,12 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @SpringBootTest
 @Transactional
@@ -29,6 +32,12 @@ class BookRepositoryTest {
     @Autowired
     private BookRepository bookRepository;
 
+    @Autowired
+    private BookProjectionRepository projectionRepository;
+
+    @Autowired
+    private BookQueryRepository queryRepository;
+
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
@@ -47,6 +56,16 @@ class BookRepositoryTest {
                 updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
             )
         """);
+        jdbcTemplate.execute("""
+            CREATE VIRTUAL TABLE IF NOT EXISTS books_fts USING fts5(
+                title, author, content='books', content_rowid='id', tokenize='trigram'
+            )
+        """);
+        jdbcTemplate.execute("""
+            CREATE TRIGGER IF NOT EXISTS books_fts_after_insert AFTER INSERT ON books BEGIN
+                INSERT INTO books_fts(rowid, title, author) VALUES (new.id, new.title, new.author);
+            END
+        """);
     }
 
     @Test
@@ -86,6 +105,28 @@ class BookRepositoryTest {
         assertThat(books).hasSize(2);
     }
 
+    @Test
+    void shouldFindPageAfterId() {
+        Long first = insertTestBook("book title 1", "author 1", "123456", new BigDecimal("25.50"), 5);
+        insertTestBook("book title 2", "author 2", "789012", new BigDecimal("33.75"), 12);
+        insertTestBook("book title 3", "author 3", "345678", new BigDecimal("12.00"), 7);
+
+        List<Book> page = bookRepository.findPageAfter(first, 1);
+
+        assertThat(page).hasSize(1);
+        assertThat(page.get(0).getTitle()).isEqualTo("book title 2");
+    }
+
+    @Test
+    void shouldStreamAllBooksInIdOrder() {
+        insertTestBook("book title 1", "author 1", "123456", new BigDecimal("25.50"), 5);
+        insertTestBook("book title 2", "author 2", "789012", new BigDecimal("33.75"), 12);
+
+        try (Stream<Book> books = bookRepository.streamAll()) {
+            assertThat(books.map(Book::getIsbn)).containsExactly("123456", "789012");
+        }
+    }
+
     @Test
     void shouldFindBookByIsbn() {
         Long id = insertTestBook("title 1", "author 1", "456789", 
@@ -97,6 +138,16 @@ class BookRepositoryTest {
         assertThat(found.get().getIsbn()).isEqualTo("456789");
     }
 
+    @Test
+    void shouldFindBooksByIsbnIn() {
+        insertTestBook("book title 1", "author 1", "123456", new BigDecimal("25.50"), 5);
+        insertTestBook("book title 2", "author 2", "789012", new BigDecimal("33.75"), 12);
+
+        List<Book> books = bookRepository.findByIsbnIn(List.of("789012", "000000", "123456"));
+
+        assertThat(books).extracting(Book::getIsbn).containsExactlyInAnyOrder("123456", "789012");
+    }
+
     @Test
     void shouldFindBooksByAuthor() {
         insertTestBook("book title 1", "author 1", "111222", new BigDecimal("12.00"), 5);
@@ -122,6 +173,111 @@ class BookRepositoryTest {
         assertThat(books).hasSize(2);
     }
 
+    @Test
+    void shouldSearchFullTextByTitleSubstring() {
+        insertTestBook("The Hobbit", "J. R. R. Tolkien", "123456", new BigDecimal("25.50"), 50);
+        insertTestBook("Hobbit Companion", "author 2", "789012", new BigDecimal("33.75"), 30);
+        insertTestBook("Dune", "Frank Herbert", "345678", new BigDecimal("12.00"), 20);
+
+        List<Book> books = bookRepository.searchFullText("title : \"obbi\"", -1, 0);
+
+        assertThat(books).extracting(Book::getIsbn).containsExactlyInAnyOrder("123456", "789012");
+    }
+
+    @Test
+    void shouldSearchFullTextAcrossTitleAndAuthor() {
+        insertTestBook("The Hobbit", "J. R. R. Tolkien", "123456", new BigDecimal("25.50"), 50);
+        insertTestBook("Dune", "Frank Herbert", "345678", new BigDecimal("12.00"), 20);
+
+        List<Book> books = bookRepository.searchFullText("\"tolkien\" \"hobbit\"", 10, 0);
+
+        assertThat(books).extracting(Book::getIsbn).containsExactly("123456");
+    }
+
+    @Test
+    void shouldFindBooksByIsbnRange() {
+        insertTestBook("book title 1", "author 1", "978-1", new BigDecimal("25.50"), 5);
+        insertTestBook("book title 2", "author 2", "978-2", new BigDecimal("33.75"), 12);
+        insertTestBook("book title 3", "author 3", "979-1", new BigDecimal("12.00"), 7);
+
+        List<Book> books = bookRepository.findByIsbnRange("978", "979", 10, 0);
+
+        assertThat(books).extracting(Book::getIsbn).containsExactly("978-1", "978-2");
+    }
+
+    @Test
+    void shouldSelectOnlyProjectedFields() {
+        insertTestBook("book title 1", "author 1", "978-1", new BigDecimal("25.50"), 5);
+        insertTestBook("book title 2", "author 2", "978-2", new BigDecimal("33.75"), 12);
+        // A row stamped by the column default, in SQLite's "yyyy-MM-dd HH:mm:ss" format
+        jdbcTemplate.update("INSERT INTO books (title, author, isbn) VALUES ('book title 3', 'author 3', '979-1')");
+
+        List<Map<String, Object>> rows =
+            projectionRepository.findPageAfter(BookProjection.parse("title, price,updatedAt"), 0L, 10);
+
+        assertThat(rows).hasSize(3);
+        assertThat(rows.get(0).keySet()).containsExactly("id", "title", "price", "updatedAt");
+        assertThat(rows.get(0)).containsEntry("title", "book title 1");
+        assertThat((BigDecimal) rows.get(1).get("price")).isEqualByComparingTo("33.75");
+        assertThat(rows.get(2).get("price")).isNull();
+        assertThat(rows.get(2).get("updatedAt")).isInstanceOf(LocalDateTime.class);
+    }
+
+    @Test
+    void shouldSearchWithProjection() {
+        insertTestBook("The Hobbit", "J. R. R. Tolkien", "123456", new BigDecimal("25.50"), 50);
+        insertTestBook("Dune", "Frank Herbert", "345678", new BigDecimal("12.00"), 20);
+
+        List<Map<String, Object>> rows =
+            projectionRepository.searchFullText(BookProjection.parse("isbn"), "\"tolkien\"", 10, 0);
+
+        assertThat(rows).containsExactly(Map.of("id", rows.get(0).get("id"), "isbn", "123456"));
+    }
+
+    @Test
+    void shouldFilterByPriceRangeInKeysetOrder() {
+        insertTestBook("book title 1", "author 1", "978-1", new BigDecimal("25.50"), 5);
+        Long tied = insertTestBook("book title 2", "Author 1", "978-2", new BigDecimal("12.00"), 12);
+        insertTestBook("book title 3", "author 1", "978-3", new BigDecimal("12.00"), 7);
+        insertTestBook("book title 4", "author 2", "978-4", new BigDecimal("40.00"), 1);
+        BookQuery query = new BookQuery(new BigDecimal("10"), new BigDecimal("30"), null, null, "AUTHOR 1",
+            BookQuery.Sort.PRICE, false);
+
+        List<Book> firstPage = queryRepository.find(query, null, null, 2);
+        List<Book> secondPage = queryRepository.find(query, new BigDecimal("12.00"), tied + 1, 2);
+
+        assertThat(firstPage).extracting(Book::getIsbn).containsExactly("978-2", "978-3");
+        assertThat(secondPage).extracting(Book::getIsbn).containsExactly("978-1");
+    }
+
+    @Test
+    void shouldFilterByStockThresholdDescending() {
+        insertTestBook("book title 1", "author 1", "978-1", new BigDecimal("25.50"), 5);
+        insertTestBook("book title 2", "author 2", "978-2", new BigDecimal("33.75"), 12);
+        insertTestBook("book title 3", "author 3", "978-3", null, 2);
+        BookQuery query = new BookQuery(null, null, null, 10, null, BookQuery.Sort.QUANTITY, true);
+
+        List<Book> books = queryRepository.find(query, null, null, 10);
+
+        assertThat(books).extracting(Book::getQuantity).containsExactly(5, 2);
+        assertThat(books.get(1).getPrice()).isNull();
+        assertThat(books.get(0).getCreatedAt()).isNotNull();
+    }
+
+    @Test
+    void shouldRejectInvertedRanges() {
+        assertThatThrownBy(() -> new BookQuery(new BigDecimal("20"), new BigDecimal("10"), null, null, null, null, false))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("minPrice");
+    }
+
+    @Test
+    void shouldRejectUnknownProjectionField() {
+        assertThatThrownBy(() -> BookProjection.parse("title,publisher"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("publisher");
+    }
+
     @Test
     void shouldDeleteBookById() {
         Long id = insertTestBook("book title 1", "author 1", "123456", 
@@ -132,6 +288,30 @@ class BookRepositoryTest {
         assertThat(bookRepository.findById(id)).isEmpty();
     }
 
+    @Test
+    void shouldDecrementStockOnlyWhenEnoughRemains() {
+        Long id = insertTestBook("book title 1", "author 1", "123456", 
+            new BigDecimal("25.50"), 5);
+
+        Optional<Book> reserved = bookRepository.decrementStock(id, 3, LocalDateTime.now());
+        Optional<Book> oversold = bookRepository.decrementStock(id, 3, LocalDateTime.now());
+
+        assertThat(reserved).get().extracting(Book::getQuantity).isEqualTo(2);
+        assertThat(oversold).isEmpty();
+        assertThat(bookRepository.findById(id)).get().extracting(Book::getQuantity).isEqualTo(2);
+    }
+
+    @Test
+    void shouldIncrementStock() {
+        Long id = insertTestBook("book title 1", "author 1", "123456", 
+            new BigDecimal("25.50"), 5);
+
+        Optional<Book> restocked = bookRepository.incrementStock(id, 4, LocalDateTime.now());
+
+        assertThat(restocked).get().extracting(Book::getQuantity).isEqualTo(9);
+        assertThat(bookRepository.incrementStock(id + 1, 4, LocalDateTime.now())).isEmpty();
+    }
+
     // Helper method to insert test data
     private Long insertTestBook(String title, String author, String isbn, 
                                 BigDecimal price, Integer quantity) {
@@ -0,0 +1,278 @@
+package com.example.bookstore.repository;
+
+import com.example.bookstore.model.Book;
+import com.example.bookstore.model.BookVersion;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ShardedBookRepositoryTest {
+
+    @TempDir
+    Path directory;
+
+    private ShardedBookRepository repository;
+
+    @BeforeEach
+    void open() {
+        repository = ShardedBookRepository.open(directory, 4, 2);
+    }
+
+    @AfterEach
+    void close() {
+        repository.close();
+    }
+
+    @Test
+    void shouldPlaceBooksInTheBucketOfTheirIsbnAndFindThemByIdAndIsbn() {
+        List<Book> books = insertBooks(40);
+
+        assertThat(books).allSatisfy(book -> {
+            assertThat(ShardMap.bucketOfId(book.getId())).isEqualTo(ShardMap.bucketOf(book.getIsbn()));
+            assertThat(repository.findById(book.getId())).get().extracting(Book::getIsbn).isEqualTo(book.getIsbn());
+            assertThat(repository.findByIsbn(book.getIsbn())).get().extracting(Book::getId).isEqualTo(book.getId());
+        });
+        Set<Integer> shardsUsed = books.stream()
+            .map(book -> repository.getShardMap().shardOf(ShardMap.bucketOfId(book.getId())))
+            .collect(Collectors.toSet());
+        assertThat(shardsUsed).hasSize(4);
+        assertThat(repository.count()).isEqualTo(40);
+        assertThat(repository.findById(-1L)).isEmpty();
+    }
+
+    @Test
+    void shouldKeepIsbnsUniqueAcrossShardsWhenTheyMove() {
+        Book first = insert(new Book("First", "Author", null, new BigDecimal("5.00"), 1));
+        first.setIsbn("moving-isbn");
+        repository.save(first);
+
+        // The ISBN's home shard now points at a book that may live on any shard
+        assertThat(repository.findByIsbn("moving-isbn")).get().extracting(Book::getId).isEqualTo(first.getId());
+        assertThatThrownBy(() -> insert(new Book("Second", "Author", "moving-isbn", new BigDecimal("5.00"), 1)))
+            .isInstanceOf(DuplicateKeyException.class)
+            .hasMessageContaining("already exists");
+
+        first.setIsbn("moved-isbn");
+        repository.save(first);
+        Book second = insert(new Book("Second", "Author", "moving-isbn", new BigDecimal("5.00"), 1));
+
+        assertThat(repository.findByIsbn("moving-isbn")).get().extracting(Book::getId).isEqualTo(second.getId());
+        assertThat(repository.findByIsbnIn(List.of("moving-isbn", "moved-isbn", "missing")))
+            .extracting(Book::getId).containsExactlyInAnyOrder(first.getId(), second.getId());
+
+        repository.deleteById(second.getId());
+        assertThat(repository.findByIsbn("moving-isbn")).isEmpty();
+        Book third = insert(new Book("Third", "Author", "moving-isbn", new BigDecimal("5.00"), 1));
+        assertThat(repository.findByIsbn("moving-isbn")).get().extracting(Book::getId).isEqualTo(third.getId());
+    }
+
+    @Test
+    void shouldRollBackTheRowWhenTheNewIsbnIsTaken() {
+        Book taken = insert(new Book("Taken", "Author", "taken-isbn", new BigDecimal("5.00"), 1));
+        Book other = insert(new Book("Other", "Author", "other-isbn", new BigDecimal("5.00"), 1));
+        other.setIsbn("taken-isbn");
+        other.setTitle("Renamed");
+
+        // The home shard's claim is the global check, whichever shard the other book lives on
+        assertThatThrownBy(() -> repository.save(other))
+            .isInstanceOf(DuplicateKeyException.class)
+            .hasMessageContaining("already exists");
+
+        assertThat(repository.findById(other.getId())).get()
+            .extracting(Book::getIsbn, Book::getTitle).containsExactly("other-isbn", "Other");
+        assertThat(repository.findByIsbn("taken-isbn")).get().extracting(Book::getId).isEqualTo(taken.getId());
+        assertThat(repository.findByIsbn("other-isbn")).get().extracting(Book::getId).isEqualTo(other.getId());
+    }
+
+    // Books moving their ISBNs onto each other's shards take the two writers in the same order
+    @Test
+    void shouldMoveIsbnsBetweenShardsConcurrently() throws Exception {
+        List<Book> books = insertBooks(40);
+        Book first = books.get(0);
+        Book second = books.stream()
+            .filter(book -> shardOf(book) != shardOf(first))
+            .findFirst().orElseThrow();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+            List<Future<Object>> moves = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                Book firstMoved = withIsbn(first, isbnOnShard(shardOf(second), "to-second-" + i));
+                Book secondMoved = withIsbn(second, isbnOnShard(shardOf(first), "to-first-" + i));
+                moves.add(executor.submit(() -> repository.save(firstMoved)));
+                moves.add(executor.submit(() -> repository.save(secondMoved)));
+            }
+            for (Future<Object> move : moves) {
+                move.get(30, TimeUnit.SECONDS);
+            }
+        }
+
+        assertThat(repository.findByIsbn(repository.findById(first.getId()).orElseThrow().getIsbn()))
+            .get().extracting(Book::getId).isEqualTo(first.getId());
+        assertThat(repository.findByIsbn(books.get(0).getIsbn())).isEmpty();
+    }
+
+    @Test
+    void shouldReportEachBooksVersionFromItsShard() {
+        Book book = insert(new Book("Versioned", "Author", "versioned-isbn", new BigDecimal("5.00"), 3));
+        BookVersion created = repository.findVersion(book.getId()).orElseThrow();
+
+        repository.decrementStock(book.getId(), 1, LocalDateTime.now());
+
+        BookVersion updated = repository.findVersion(book.getId()).orElseThrow();
+        assertThat(updated.seq()).isGreaterThan(created.seq());
+        assertThat(repository.findVersionByIsbn("versioned-isbn")).contains(updated);
+        repository.deleteById(book.getId());
+        assertThat(repository.findVersion(book.getId())).isEmpty();
+    }
+
+    @Test
+    void shouldRollBackEveryLineOfAOneShardCartAndRejectCartsSpanningShards() {
+        List<Book> books = insertBooks(40);
+        Book first = books.get(0);
+        Book sameShard = books.stream()
+            .filter(book -> book != first && shardOf(book) == shardOf(first))
+            .findFirst().orElseThrow();
+        Book otherShard = books.stream()
+            .filter(book -> shardOf(book) != shardOf(first))
+            .findFirst().orElseThrow();
+
+        assertThatThrownBy(() -> repository.adjustStockAtomically(List.of(first.getId(), sameShard.getId()), () -> {
+            repository.decrementStock(first.getId(), 1, LocalDateTime.now());
+            throw new IllegalStateException("second line failed");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(repository.findById(first.getId())).get().extracting(Book::getQuantity).isEqualTo(10);
+
+        assertThatThrownBy(() -> repository.adjustStockAtomically(List.of(first.getId(), otherShard.getId()), () ->
+            repository.decrementStock(first.getId(), 1, LocalDateTime.now())))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("one shard");
+        assertThat(repository.findById(first.getId())).get().extracting(Book::getQuantity).isEqualTo(10);
+    }
+
+    @Test
+    void shouldMergeScatteredResultsInGlobalOrder() {
+        List<Book> books = insertBooks(60);
+        List<Long> ids = books.stream().map(Book::getId).sorted().toList();
+
+        assertThat(repository.findAll()).extracting(Book::getId).containsExactlyElementsOf(ids);
+        try (Stream<Book> stream = repository.streamAll()) {
+            assertThat(stream.map(Book::getId).toList()).containsExactlyElementsOf(ids);
+        }
+
+        List<Long> paged = new ArrayList<>();
+        long after = 0;
+        for (List<Book> page = repository.findPageAfter(after, 7); !page.isEmpty(); page = repository.findPageAfter(after, 7)) {
+            assertThat(page).hasSizeLessThanOrEqualTo(7);
+            page.forEach(book -> paged.add(book.getId()));
+            after = page.get(page.size() - 1).getId();
+        }
+        assertThat(paged).containsExactlyElementsOf(ids);
+
+        List<String> isbns = books.stream().map(Book::getIsbn).sorted().toList();
+        assertThat(repository.findByIsbnRange("isbn-", "isbn.", 10, 25)).extracting(Book::getIsbn)
+            .containsExactlyElementsOf(isbns.subList(25, 35));
+        assertThat(repository.findByAuthor("AUTHOR 3")).extracting(Book::getId)
+            .isSortedAccordingTo(Long::compare).hasSize(12);
+        assertThat(repository.searchFullText("\"Title 1\"", 5, 0)).hasSize(5);
+        assertThat(repository.searchFullText("\"Title 1\"", -1, 0))
+            .extracting(Book::getTitle).allMatch(title -> title.contains("Title 1")).hasSize(11);
+    }
+
+    @Test
+    void shouldApplyStockChangesOnTheBooksShard() {
+        Book book = insert(new Book("Stock", "Author", "stock-isbn", new BigDecimal("5.00"), 3));
+
+        assertThat(repository.decrementStock(book.getId(), 2, LocalDateTime.now())).get()
+            .extracting(Book::getQuantity).isEqualTo(1);
+        assertThat(repository.decrementStock(book.getId(), 2, LocalDateTime.now())).isEmpty();
+        assertThat(repository.incrementStock(book.getId(), 4, LocalDateTime.now())).get()
+            .extracting(Book::getQuantity).isEqualTo(5);
+    }
+
+    @Test
+    void shouldKeepEveryBookReachableAfterSplittingAShard() {
+        List<Book> books = insertBooks(80);
+        Book moved = insert(new Book("Moved", "Author", null, new BigDecimal("5.00"), 1));
+        moved.setIsbn("split-isbn");
+        repository.save(moved);
+        repository.close();
+
+        ShardMap split = ShardRebalancer.split(directory, "shard-0.db");
+
+        assertThat(split.shards()).hasSize(5);
+        assertThat(split.shards().get(0)).isEqualTo(new ShardMap.Shard("shard-0.db", 0, 128));
+        assertThat(split.shards().get(1)).isEqualTo(new ShardMap.Shard("shard-4.db", 128, 256));
+        repository = ShardedBookRepository.open(directory, 4, 2);
+        assertThat(repository.getShardMap()).isEqualTo(split);
+        assertThat(repository.count()).isEqualTo(81);
+        assertThat(repository.findAll()).extracting(Book::getId).doesNotHaveDuplicates();
+        assertThat(books).allSatisfy(book ->
+            assertThat(repository.findByIsbn(book.getIsbn())).get().extracting(Book::getId).isEqualTo(book.getId()));
+        assertThat(repository.findByIsbn("split-isbn")).get().extracting(Book::getId).isEqualTo(moved.getId());
+        assertThatThrownBy(() -> insert(new Book("Again", "Author", books.get(0).getIsbn(), BigDecimal.ONE, 1)))
+            .isInstanceOf(DuplicateKeyException.class);
+        // Both halves keep allocating ids in their own buckets
+        assertThat(insertBooks(20)).allSatisfy(book ->
+            assertThat(repository.findById(book.getId())).get().extracting(Book::getIsbn).isEqualTo(book.getIsbn()));
+    }
+
+    @Test
+    void shouldMergeSortedListsWithOffsetAndLimit() {
+        List<List<Integer>> lists = List.of(List.of(1, 4, 7), List.of(2, 5, 8), List.of(), List.of(3, 6, 9));
+
+        assertThat(ShardedBookRepository.merge(lists, Integer::compare, 0, -1)).containsExactly(1, 2, 3, 4, 5, 6, 7, 8, 9);
+        assertThat(ShardedBookRepository.merge(lists, Integer::compare, 2, 4)).containsExactly(3, 4, 5, 6);
+        assertThat(ShardedBookRepository.merge(lists, Integer::compare, 8, 4)).containsExactly(9);
+    }
+
+    private List<Book> insertBooks(int count) {
+        int offset = (int) repository.count();
+        return IntStream.range(offset, offset + count)
+            .mapToObj(i -> insert(new Book("Title " + i, "Author " + i % 5, "isbn-" + String.format("%04d", i),
+                new BigDecimal("10.00"), 10)))
+            .toList();
+    }
+
+    private int shardOf(Book book) {
+        return repository.getShardMap().shardOf(ShardMap.bucketOfId(book.getId()));
+    }
+
+    private String isbnOnShard(int shard, String prefix) {
+        return IntStream.range(0, 1000).mapToObj(i -> prefix + "-" + i)
+            .filter(isbn -> repository.getShardMap().shardOf(ShardMap.bucketOf(isbn)) == shard)
+            .findFirst().orElseThrow();
+    }
+
+    private static Book withIsbn(Book book, String isbn) {
+        Book copy = new Book(book);
+        copy.setIsbn(isbn);
+        return copy;
+    }
+
+    private Book insert(Book book) {
+        LocalDateTime now = LocalDateTime.now();
+        book.setCreatedAt(now);
+        book.setUpdatedAt(now);
+        book.setId(repository.insert(book));
+        return book;
+    }
+}
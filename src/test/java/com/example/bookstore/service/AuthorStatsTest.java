@@ -0,0 +1,100 @@
+package com.example.bookstore.service;
+
+import com.example.bookstore.model.AuthorSummary;
+import com.example.bookstore.model.Book;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs against a file database so the migration triggers that maintain author_stats are in place
+@SpringBootTest
+class AuthorStatsTest {
+
+    @TempDir
+    static Path databaseDir;
+
+    @DynamicPropertySource
+    static void databaseUrl(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> "jdbc:sqlite:" + databaseDir.resolve("bookstore.db"));
+    }
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldMaintainAggregatesAcrossCreateUpdatePatchAndDelete() {
+        Book cheap = bookService.createBook(new Book("Cheap", "Stats Author", "stats-1", new BigDecimal("5.00"), 3));
+        Book dear = bookService.createBook(new Book("Dear", "stats author", "stats-2", new BigDecimal("40.00"), 2));
+        bookService.createBook(new Book("Middle", "Stats Author", "stats-3", new BigDecimal("12.50"), 1));
+        assertSummary("Stats Author", 3, 6, "5.00", "40.00");
+
+        Book patch = new Book();
+        patch.setPrice(new BigDecimal("50.00"));
+        bookService.patchBook(dear.getId(), patch);
+        assertSummary("STATS AUTHOR", 3, 6, "5.00", "50.00");
+
+        // The cheapest book leaves, so the lower bound is recomputed from the remaining books
+        bookService.deleteBook(cheap.getId());
+        assertSummary("stats author", 2, 3, "12.50", "50.00");
+
+        Book moved = new Book();
+        moved.setAuthor("Other Stats Author");
+        bookService.updateBook(dear.getId(), moved);
+        assertSummary("stats author", 1, 1, "12.50", "12.50");
+        assertSummary("other stats author", 1, 2, "50.00", "50.00");
+    }
+
+    @Test
+    void shouldTrackStockChangesAndDropAuthorsWithoutBooks() {
+        Book book = bookService.createBook(new Book("Stocked", "Stock Author", "stats-4", new BigDecimal("9.99"), 10));
+        bookService.decrementStock(book.getId(), 4);
+        // Writes that bypass BookService, like bulk imports, are captured by the triggers
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update("INSERT INTO books (title, author, isbn, price, quantity, created_at, updated_at) " +
+            "VALUES ('Unpriced', 'Stock Author', 'stats-5', NULL, 5, ?, ?)", now, now);
+        assertSummary("Stock Author", 2, 11, "9.99", "9.99");
+
+        bookService.deleteBook(book.getId());
+        assertThat(bookService.getAuthor("Stock Author")).get()
+            .satisfies(summary -> assertThat(summary.getMinPrice()).isNull());
+        jdbcTemplate.update("DELETE FROM books WHERE isbn = 'stats-5'");
+
+        assertThat(bookService.getAuthor("Stock Author")).isEmpty();
+        assertThat(bookService.getAuthors()).extracting(AuthorSummary::getAuthor).doesNotContain("Stock Author");
+    }
+
+    @Test
+    void shouldListAuthorsInNameOrderMatchingAGroupByOverBooks() {
+        bookService.createBook(new Book("One", "Zed Listing", "stats-6", new BigDecimal("1.00"), 1));
+        bookService.createBook(new Book("Two", "Abe Listing", "stats-7", new BigDecimal("2.00"), 2));
+
+        List<AuthorSummary> authors = bookService.getAuthors();
+
+        assertThat(authors).extracting(AuthorSummary::getAuthor).isSortedAccordingTo(String.CASE_INSENSITIVE_ORDER);
+        List<Long> counts = jdbcTemplate.queryForList(
+            "SELECT COUNT(*) FROM books GROUP BY author COLLATE NOCASE ORDER BY author COLLATE NOCASE", Long.class);
+        assertThat(authors).extracting(AuthorSummary::getBookCount).containsExactlyElementsOf(counts);
+    }
+
+    private void assertSummary(String author, long books, long quantity, String minPrice, String maxPrice) {
+        AuthorSummary summary = bookService.getAuthor(author).orElseThrow();
+        assertThat(summary.getBookCount()).isEqualTo(books);
+        assertThat(summary.getTotalQuantity()).isEqualTo(quantity);
+        assertThat(summary.getMinPrice()).isEqualByComparingTo(minPrice);
+        assertThat(summary.getMaxPrice()).isEqualByComparingTo(maxPrice);
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.bookstore.service;
+
+import com.example.bookstore.model.Book;
+import com.example.bookstore.model.BookChange;
+import com.example.bookstore.model.BookChangePage;
+import com.example.bookstore.model.BookVersion;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Runs against a file database so the schema.sql and migration triggers that feed book_changes are in place
+@SpringBootTest
+class BookChangeFeedTest {
+
+    @TempDir
+    static Path databaseDir;
+
+    @DynamicPropertySource
+    static void databaseUrl(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> "jdbc:sqlite:" + databaseDir.resolve("bookstore.db"));
+    }
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldReturnEachChangedBookOnceWithTombstonesForDeletes() {
+        String start = bookService.getChanges(null, 1000).getNextCursor();
+        Book kept = bookService.createBook(new Book("Kept", "author", "feed-1", new BigDecimal("10.00"), 1));
+        Book updated = bookService.createBook(new Book("Updated", "author", "feed-2", new BigDecimal("10.00"), 1));
+        Book deleted = bookService.createBook(new Book("Deleted", "author", "feed-3", new BigDecimal("10.00"), 1));
+        Book patch = new Book();
+        patch.setPrice(new BigDecimal("12.00"));
+        bookService.patchBook(updated.getId(), patch);
+        bookService.deleteBook(deleted.getId());
+
+        BookChangePage page = bookService.getChanges(start, 10);
+
+        assertThat(page.getChanges()).extracting(BookChange::getBookId)
+            .containsExactly(kept.getId(), updated.getId(), deleted.getId());
+        assertThat(page.getChanges().get(1).getBook().getPrice()).isEqualByComparingTo("12.00");
+        assertThat(page.getChanges().get(2).isDeleted()).isTrue();
+        assertThat(page.getChanges().get(2).getBook()).isNull();
+        assertThat(page.isHasMore()).isFalse();
+    }
+
+    @Test
+    void shouldPageThroughChangesAndPickUpLaterWrites() {
+        String start = bookService.getChanges(null, 1000).getNextCursor();
+        Book first = bookService.createBook(new Book("First", "author", "feed-4", new BigDecimal("10.00"), 1));
+        // Writes that bypass BookService, like bulk imports and stock updates, are captured by the triggers
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update("INSERT INTO books (title, author, isbn, created_at, updated_at) VALUES ('Second', 'author', 'feed-5', ?, ?)",
+            now, now);
+
+        BookChangePage firstPage = bookService.getChanges(start, 1);
+        BookChangePage secondPage = bookService.getChanges(firstPage.getNextCursor(), 1);
+        bookService.decrementStock(first.getId(), 1);
+        BookChangePage thirdPage = bookService.getChanges(secondPage.getNextCursor(), 1);
+
+        assertThat(firstPage.getChanges()).extracting(BookChange::getBookId).containsExactly(first.getId());
+        assertThat(firstPage.isHasMore()).isTrue();
+        assertThat(secondPage.getChanges()).extracting(change -> change.getBook().getIsbn()).containsExactly("feed-5");
+        assertThat(thirdPage.getChanges()).extracting(change -> change.getBook().getQuantity()).containsExactly(0);
+        assertThat(bookService.getChanges(thirdPage.getNextCursor(), 1).getChanges()).isEmpty();
+    }
+
+    @Test
+    void shouldMoveBookAndCatalogVersionsOnEveryWrite() {
+        Book book = bookService.createBook(new Book("Versioned", "author", "feed-6", new BigDecimal("10.00"), 1));
+        BookVersion created = bookService.getBookVersion(book.getId()).orElseThrow();
+        bookService.decrementStock(book.getId(), 1);
+        BookVersion updated = bookService.getBookVersion(book.getId()).orElseThrow();
+
+        assertThat(updated.seq()).isGreaterThan(created.seq());
+        assertThat(updated.changedAt()).isNotNull();
+        assertThat(bookService.getBookVersionByIsbn("feed-6")).contains(updated);
+        assertThat(bookService.getCatalogVersion()).isEqualTo(updated);
+
+        bookService.deleteBook(book.getId());
+
+        assertThat(bookService.getBookVersion(book.getId())).isEmpty();
+        assertThat(bookService.getCatalogVersion().seq()).isGreaterThan(updated.seq());
+    }
+
+    @Test
+    void shouldRejectPageCursorAsChangeCursor() {
+        assertThatThrownBy(() -> bookService.getChanges(BookCursor.encode(5), 10))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.bookstore.service;
+
+import com.example.bookstore.model.BulkImportResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:sqlite::memory:",
+    "spring.datasource.driver-class-name=org.sqlite.JDBC",
+    "spring.sql.init.mode=never",
+    "bookstore.import.chunk-size=2",
+    // Every connection to :memory: is a separate database, so writes must stay on the test's connection
+    "bookstore.write-queue.enabled=false"
+})
+class BookImportServiceTest {
+
+    @Autowired
+    private BookImportService bookImportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("""
+            CREATE TABLE IF NOT EXISTS books (
+                id INTEGER PRIMARY KEY AUTOINCREMENT,
+                title TEXT NOT NULL,
+                author TEXT NOT NULL,
+                isbn TEXT UNIQUE,
+                price DECIMAL(10, 2),
+                quantity INTEGER DEFAULT 0,
+                created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+            )
+        """);
+    }
+
+    @Test
+    void shouldImportJsonArrayAndReportBadRows() {
+        BulkImportResult result = bookImportService.importJson(stream("""
+            [
+              {"title": "book title 1", "author": "author 1", "isbn": "111", "price": 10.50, "quantity": 3},
+              {"title": "book title 2", "author": "author 2", "isbn": "222", "price": "not a number"},
+              {"title": "book title 3", "isbn": "333"},
+              {"title": "book title 4", "author": "author 4", "isbn": "444"}
+            ]
+            """));
+
+        assertThat(result.getReceived()).isEqualTo(4);
+        assertThat(result.getInserted()).isEqualTo(2);
+        assertThat(result.getFailed()).isEqualTo(2);
+        assertThat(result.getErrors()).extracting(BulkImportResult.RowError::getRow).containsExactly(2L, 3L);
+        assertThat(countBooks()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldRejectDuplicateIsbnsWithinAndAcrossChunks() throws Exception {
+        jdbcTemplate.update("INSERT INTO books (title, author, isbn) VALUES ('existing', 'author', '999')");
+
+        BulkImportResult result = bookImportService.importNdjson(stream("""
+            {"title": "book title 1", "author": "author 1", "isbn": "111"}
+            {"title": "book title 2", "author": "author 2", "isbn": "111"}
+            {"title": "book title 3", "author": "author 3", "isbn": "999"}
+            {"title": "book title 4", "author": "author 4", "isbn": "111"}
+            {"title": "book title 5", "author": "author 5", "isbn": "555"}
+            """));
+
+        assertThat(result.getInserted()).isEqualTo(2);
+        assertThat(result.getErrors()).extracting(BulkImportResult.RowError::getRow).containsExactly(2L, 3L, 4L);
+        assertThat(countBooks()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldImportCsvWithQuotedFields() throws Exception {
+        BulkImportResult result = bookImportService.importCsv(stream("""
+            isbn,title,author,price,quantity
+            111,"Eats, Shoots & Leaves",Lynne Truss,12.99,4
+            222,"The ""Quoted"" Title",author 2,abc,1
+            """));
+
+        assertThat(result.getInserted()).isEqualTo(1);
+        assertThat(result.getFailed()).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT title FROM books WHERE isbn = '111'", String.class))
+            .isEqualTo("Eats, Shoots & Leaves");
+        assertThat(BookImportService.parseCsvLine("222,\"The \"\"Quoted\"\" Title\",x"))
+            .containsExactly("222", "The \"Quoted\" Title", "x");
+    }
+
+    // The second record spans three lines; the last opens a quote it never closes and is rejected on its own
+    @Test
+    void shouldImportCsvFieldsSpanningLinesAndRejectAnUnterminatedQuote() throws Exception {
+        BulkImportResult result = bookImportService.importCsv(stream("""
+            isbn,title,author,price,quantity
+            333,Plain,author 3,1.00,1
+            444,"Line one
+            line ""two""
+            line three",author 4,2.00,2
+            555,"Never closed,author 5,3.00,3
+            666,Swallowed,author 6,4.00,4
+            """));
+
+        assertThat(result.getInserted()).isEqualTo(2);
+        assertThat(result.getFailed()).isEqualTo(1);
+        assertThat(result.getErrors()).singleElement().satisfies(error -> {
+            assertThat(error.getRow()).isEqualTo(3);
+            assertThat(error.getMessage()).isEqualTo("Unterminated quoted field");
+        });
+        assertThat(jdbcTemplate.queryForObject("SELECT title FROM books WHERE isbn = '444'", String.class))
+            .isEqualTo("Line one\nline \"two\"\nline three");
+        assertThat(jdbcTemplate.queryForObject("SELECT author FROM books WHERE isbn = '444'", String.class))
+            .isEqualTo("author 4");
+    }
+
+    private Integer countBooks() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM books", Integer.class);
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.bookstore.service;
+
+import com.example.bookstore.model.Book;
+import com.example.bookstore.model.BookVersion;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookLookupServiceTest {
+
+    @Mock
+    private CatalogSnapshot catalogSnapshot;
+
+    @Mock
+    private BookService bookService;
+
+    @InjectMocks
+    private BookLookupService bookLookupService;
+
+    @Test
+    void shouldServeSnapshotHitsWithoutBookService() {
+        Book book = new Book();
+        book.setId(1L);
+        BookVersion version = new BookVersion(42, Instant.parse("2026-01-02T03:04:05Z"));
+        when(catalogSnapshot.isReady()).thenReturn(true);
+        when(catalogSnapshot.getById(1L)).thenReturn(book);
+        when(catalogSnapshot.getByIsbn("123456")).thenReturn(book);
+        when(catalogSnapshot.getVersion(1L)).thenReturn(version);
+        when(catalogSnapshot.getVersionByIsbn("123456")).thenReturn(version);
+
+        assertThat(bookLookupService.getBookById(1L)).containsSame(book);
+        assertThat(bookLookupService.getBookByIsbn("123456")).containsSame(book);
+        assertThat(bookLookupService.getBookVersion(1L)).contains(version);
+        assertThat(bookLookupService.getBookVersionByIsbn("123456")).contains(version);
+        verifyNoInteractions(bookService);
+    }
+
+    @Test
+    void shouldFallBackToBookServiceOnMissesAndBeforeTheSnapshotLoads() {
+        Book book = new Book();
+        book.setId(1L);
+        when(catalogSnapshot.isReady()).thenReturn(true, false);
+        when(bookService.getBookById(1L)).thenReturn(Optional.of(book));
+
+        assertThat(bookLookupService.getBookById(1L)).containsSame(book);
+        assertThat(bookLookupService.getBookById(1L)).containsSame(book);
+
+        verify(catalogSnapshot).getById(1L);
+        verify(bookService, times(2)).getBookById(1L);
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.bookstore.service;
+
+import com.example.bookstore.model.Book;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.transaction.event.TransactionalEventListenerFactory;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BookReadCoalescerTest {
+
+    private static final int CALLERS = 8;
+
+    private final BookReadCoalescer coalescer = new BookReadCoalescer(true);
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldRunIdenticalConcurrentReadsOnce() throws Exception {
+        List<Future<String>> calls = startCalls("isbn-1", CALLERS, () -> "result");
+        awaitCoalesced(CALLERS - 1);
+        release.countDown();
+
+        for (Future<String> call : calls) {
+            assertThat(call.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+        }
+        assertThat(executions).hasValue(1);
+        assertThat(coalescer.stats())
+            .containsEntry("executed", 1L)
+            .containsEntry("coalesced", (long) CALLERS - 1)
+            .containsEntry("inFlight", 0)
+            .containsEntry("operations", Map.of("lookup", Map.of("executed", 1L, "coalesced", (long) CALLERS - 1)));
+    }
+
+    @Test
+    void shouldRunEachKeyAndEachLaterCallSeparately() throws Exception {
+        release.countDown();
+        for (String key : List.of("isbn-1", "isbn-2", "isbn-1")) {
+            assertThat(coalescer.execute("lookup", key, this::query)).isEqualTo("result");
+        }
+
+        assertThat(executions).hasValue(3);
+        assertThat(coalescer.stats()).containsEntry("coalesced", 0L);
+    }
+
+    @Test
+    void shouldRethrowTheSharedQuerysExceptionToEveryCaller() throws Exception {
+        List<Future<String>> calls = startCalls("isbn-1", CALLERS, () -> {
+            throw new IllegalArgumentException("Book not found");
+        });
+        awaitCoalesced(CALLERS - 1);
+        release.countDown();
+
+        for (Future<String> call : calls) {
+            assertThatThrownBy(() -> call.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(IllegalArgumentException.class)
+                .hasRootCauseMessage("Book not found");
+        }
+        assertThat(executions).hasValue(1);
+    }
+
+    // A caller arriving after a write must not receive a result read before it
+    @Test
+    void shouldStartNewFlightsAfterABookChanges() throws Exception {
+        List<Future<String>> before = startCalls("isbn-1", 1, () -> "before");
+        awaitExecutions(1);
+
+        coalescer.onBookChanged(BookChangedEvent.created(new Book()));
+        List<Future<String>> after = startCalls("isbn-1", 1, () -> "after");
+        awaitExecutions(2);
+        release.countDown();
+
+        assertThat(before.get(0).get(5, TimeUnit.SECONDS)).isEqualTo("before");
+        assertThat(after.get(0).get(5, TimeUnit.SECONDS)).isEqualTo("after");
+    }
+
+    // Both listeners run on the writer's thread after the commit. Were BookCache's generation bump to come first, a
+    // reader arriving in between would miss the cache, join the flight that read before the write, and cache its
+    // result under the new generation. The hook puts exactly that reader right after the cache's invalidation.
+    @Test
+    void shouldClearFlightsBeforeTheCacheAcceptsNewEntries() throws Exception {
+        AtomicReference<Book> stored = new AtomicReference<>(book("Before"));
+        Function<Long, Optional<Book>> loader = id -> coalescer.execute("bookById", id, () -> {
+            Book book = stored.get();
+            if (executions.incrementAndGet() == 1) {
+                awaitRelease();
+            }
+            return Optional.of(book);
+        });
+        BookCache cache = new BookCache(100, Duration.ofMinutes(10)) {
+            @Override
+            public void onBookChanged(BookChangedEvent event) {
+                super.onBookChanged(event);
+                Future<Optional<Book>> reader = executor.submit(() -> getById(1L, loader));
+                release.countDown();
+                try {
+                    reader.get(5, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            context.registerBean(TransactionalEventListenerFactory.class);
+            // Registered ahead of the coalescer, so only the listeners' @Order can run the coalescer's first
+            context.registerBean(BookCache.class, () -> cache);
+            context.registerBean(BookReadCoalescer.class, () -> coalescer);
+            context.refresh();
+
+            Future<Optional<Book>> beforeWrite = executor.submit(() -> cache.getById(1L, loader));
+            awaitExecutions(1);
+            Book after = book("After");
+            stored.set(after);
+            context.publishEvent(BookChangedEvent.updated(book("Before"), after));
+
+            assertThat(beforeWrite.get(5, TimeUnit.SECONDS)).map(Book::getTitle).hasValue("Before");
+            assertThat(cache.getById(1L, id -> Optional.empty())).map(Book::getTitle).hasValue("After");
+        }
+    }
+
+    // Reads in read-only transactions share flights; a read-write transaction runs its own query
+    @Test
+    void shouldCoalesceInsideReadOnlyTransactionsOnly() throws Exception {
+        List<Future<String>> calls = new ArrayList<>(CALLERS);
+        for (int i = 0; i < CALLERS; i++) {
+            calls.add(executor.submit(() -> inTransaction(true, () -> coalescer.execute("lookup", "isbn-1", this::query))));
+        }
+        awaitCoalesced(CALLERS - 1);
+        release.countDown();
+        for (Future<String> call : calls) {
+            assertThat(call.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+        }
+
+        inTransaction(false, () -> coalescer.execute("lookup", "isbn-1", this::query));
+
+        assertThat(executions).hasValue(2);
+        assertThat(coalescer.stats()).containsEntry("executed", 1L);
+    }
+
+    @Test
+    void shouldRunEveryCallWhenDisabled() {
+        BookReadCoalescer disabled = new BookReadCoalescer(false);
+        release.countDown();
+
+        disabled.execute("lookup", "isbn-1", this::query);
+        disabled.execute("lookup", "isbn-1", this::query);
+
+        assertThat(executions).hasValue(2);
+        assertThat(disabled.stats()).containsEntry("executed", 0L);
+    }
+
+    // Each call blocks in its query until release, so all of them overlap
+    private List<Future<String>> startCalls(String key, int count, Supplier<String> result) {
+        List<Future<String>> calls = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            calls.add(executor.submit(() -> coalescer.execute("lookup", key, () -> {
+                query();
+                return result.get();
+            })));
+        }
+        return calls;
+    }
+
+    private String query() {
+        executions.incrementAndGet();
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "result";
+    }
+
+    private static <T> T inTransaction(boolean readOnly, Supplier<T> call) {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+        try {
+            return call.get();
+        } finally {
+            TransactionSynchronizationManager.clear();
+        }
+    }
+
+    private static Book book(String title) {
+        Book book = new Book(title, "Author", "isbn-1", new BigDecimal("10.00"), 1);
+        book.setId(1L);
+        return book;
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void awaitCoalesced(long count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while ((long) coalescer.stats().get("coalesced") < count && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(coalescer.stats()).containsEntry("coalesced", count);
+    }
+
+    private void awaitExecutions(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (executions.get() < count && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(executions).hasValue(count);
+    }
+}
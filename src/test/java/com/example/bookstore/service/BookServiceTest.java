@@ -1,6 +1,14 @@
 package com.example.bookstore.service;
 
+import com.example.bookstore.model.BatchGetRequest;
+import com.example.bookstore.model.BatchGetResult;
 import com.example.bookstore.model.Book;
+import com.example.bookstore.model.BookPage;
+import com.example.bookstore.model.StockAdjustment;
+import com.example.bookstore.repository.BookProjection;
+import com.example.bookstore.repository.BookProjectionRepository;
+import com.example.bookstore.repository.BookQuery;
+import com.example.bookstore.repository.BookQueryRepository;
 import com.example.bookstore.repository.BookRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -8,19 +16,29 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -29,9 +47,27 @@ class BookServiceTest {
     @Mock
     private BookRepository bookRepository;
 
+    @Mock
+    private BookProjectionRepository projectionRepository;
+
+    @Mock
+    private BookQueryRepository queryRepository;
+
     @Mock
     private NamedParameterJdbcTemplate jdbcTemplate;
 
+    @Mock
+    private BookWriteQueue writeQueue;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private BookCache bookCache = new BookCache(100, Duration.ofMinutes(1));
+
+    @Spy
+    private BookReadCoalescer readCoalescer = new BookReadCoalescer(true);
+
     @InjectMocks
     private BookService bookService;
 
@@ -40,6 +76,11 @@ class BookServiceTest {
 
     @BeforeEach
     void setUp() {
+        // Run queued writes inline on the calling thread
+        lenient().when(writeQueue.execute(any())).thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(0)).get());
+        lenient().when(bookRepository.adjustStockAtomically(anyList(), any()))
+            .thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(1)).get());
+
         testBook = new Book();
         testBook.setId(1L);
         testBook.setTitle("book title 1");
@@ -70,6 +111,77 @@ class BookServiceTest {
         verify(bookRepository).findAll();
     }
 
+    @Test
+    void shouldReturnPageWithCursorWhenMoreBooksExist() {
+        when(bookRepository.findPageAfter(0L, 2)).thenReturn(Arrays.asList(testBook, testBook2));
+
+        BookPage<Book> page = bookService.getBooksPage(null, 1);
+
+        assertThat(page.getItems()).containsExactly(testBook);
+        assertThat(BookCursor.decode(page.getNextCursor())).isEqualTo(1L);
+    }
+
+    @Test
+    void shouldReturnLastPageWithoutCursor() {
+        when(bookRepository.findPageAfter(1L, 3)).thenReturn(Arrays.asList(testBook2));
+
+        BookPage<Book> page = bookService.getBooksPage(BookCursor.encode(1L), 2);
+
+        assertThat(page.getItems()).containsExactly(testBook2);
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void shouldPageProjectedRowsByTheirId() {
+        BookProjection projection = BookProjection.parse("title");
+        when(projectionRepository.findPageAfter(projection, 0L, 2)).thenReturn(List.of(
+            Map.of("id", 1L, "title", "book title 1"), Map.of("id", 2L, "title", "book title 2")));
+
+        BookPage<Map<String, Object>> page = bookService.getBooksPage(null, 1, projection);
+
+        assertThat(page.getItems()).containsExactly(Map.of("id", 1L, "title", "book title 1"));
+        assertThat(BookCursor.decode(page.getNextCursor())).isEqualTo(1L);
+        verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    void shouldResumeFilteredPageFromSortKeyAndId() {
+        BookQuery query = new BookQuery(null, new BigDecimal("30"), null, null, null, BookQuery.Sort.PRICE, false);
+        when(queryRepository.find(query, null, null, 2)).thenReturn(Arrays.asList(testBook, testBook2));
+        when(queryRepository.find(query, new BigDecimal("25.50"), 1L, 2)).thenReturn(List.of(testBook2));
+
+        BookPage<Book> first = bookService.queryBooks(query, null, 1);
+        BookPage<Book> second = bookService.queryBooks(query, first.getNextCursor(), 1);
+
+        assertThat(first.getItems()).containsExactly(testBook);
+        assertThat(second.getItems()).containsExactly(testBook2);
+        assertThat(second.getNextCursor()).isNull();
+    }
+
+    @Test
+    void shouldRejectCursorFromAnotherSortOrder() {
+        BookQuery byPrice = new BookQuery(null, null, null, null, null, BookQuery.Sort.PRICE, false);
+        BookQuery byQuantity = new BookQuery(null, null, null, null, null, BookQuery.Sort.QUANTITY, false);
+        when(queryRepository.find(byPrice, null, null, 2)).thenReturn(Arrays.asList(testBook, testBook2));
+        String cursor = bookService.queryBooks(byPrice, null, 1).getNextCursor();
+
+        assertThatThrownBy(() -> bookService.queryBooks(byQuantity, cursor, 1))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Invalid cursor");
+        assertThatThrownBy(() -> bookService.queryBooks(byPrice, BookCursor.encodeKey("price-asc", "cheap", 1L), 1))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Invalid cursor");
+    }
+
+    @Test
+    void shouldRejectPageSizeOutOfRange() {
+        assertThatThrownBy(() -> bookService.getBooksPage(null, BookService.MAX_PAGE_SIZE + 1))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> bookService.getBooksPage("not-a-cursor", 10))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Invalid cursor");
+    }
+
     @Test
     void shouldReturnBookWhenIdExists() {
         when(bookRepository.findById(1L)).thenReturn(Optional.of(testBook));
@@ -80,6 +192,147 @@ class BookServiceTest {
         assertThat(result.get().getTitle()).isEqualTo("book title 1");
     }
 
+    @Test
+    void shouldServeRepeatedIdLookupsFromCache() {
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(testBook));
+
+        bookService.getBookById(1L);
+        Optional<Book> result = bookService.getBookById(1L);
+
+        assertThat(result).contains(testBook);
+        verify(bookRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void shouldResolveIsbnThroughCachedIdAfterFirstLookup() {
+        when(bookRepository.findByIsbn("123456")).thenReturn(Optional.of(testBook));
+
+        bookService.getBookByIsbn("123456");
+        Optional<Book> byIsbn = bookService.getBookByIsbn("123456");
+        Optional<Book> byId = bookService.getBookById(1L);
+
+        assertThat(byIsbn).contains(testBook);
+        assertThat(byId).contains(testBook);
+        verify(bookRepository, times(1)).findByIsbn("123456");
+        verify(bookRepository, never()).findById(1L);
+    }
+
+    @Test
+    void shouldReloadAfterChangeEventInvalidatesCache() {
+        Book renamed = new Book(testBook);
+        renamed.setIsbn("999999");
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(testBook), Optional.of(renamed));
+        when(bookRepository.findByIsbn("123456")).thenReturn(Optional.empty());
+
+        bookService.getBookById(1L);
+        bookCache.onBookChanged(BookChangedEvent.updated(testBook, renamed));
+
+        assertThat(bookService.getBookById(1L)).contains(renamed);
+        assertThat(bookService.getBookByIsbn("123456")).isEmpty();
+    }
+
+    @Test
+    void shouldDecrementStockWithConditionalUpdate() {
+        Book reserved = new Book(testBook);
+        reserved.setQuantity(48);
+        when(bookRepository.decrementStock(eq(1L), eq(2), any(LocalDateTime.class))).thenReturn(Optional.of(reserved));
+
+        Book result = bookService.decrementStock(1L, 2);
+
+        assertThat(result.getQuantity()).isEqualTo(48);
+        verify(bookRepository, never()).findById(anyLong());
+        verify(bookRepository, never()).save(any(Book.class));
+        verify(eventPublisher).publishEvent(any(BookChangedEvent.class));
+    }
+
+    @Test
+    void shouldRejectOversellWithoutChangingStock() {
+        when(bookRepository.decrementStock(eq(1L), eq(60), any(LocalDateTime.class))).thenReturn(Optional.empty());
+        when(bookRepository.existsById(1L)).thenReturn(true);
+
+        assertThatThrownBy(() -> bookService.decrementStock(1L, 60))
+            .isInstanceOf(InsufficientStockException.class)
+            .hasMessageContaining("book 1");
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void shouldReportUnknownBookOnDecrement() {
+        when(bookRepository.decrementStock(eq(99L), eq(1), any(LocalDateTime.class))).thenReturn(Optional.empty());
+        when(bookRepository.existsById(99L)).thenReturn(false);
+
+        assertThatThrownBy(() -> bookService.decrementStock(99L, 1))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Book not found with id: 99");
+    }
+
+    @Test
+    void shouldRejectNonPositiveStockQuantity() {
+        assertThatThrownBy(() -> bookService.incrementStock(1L, 0))
+            .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(writeQueue);
+    }
+
+    @Test
+    void shouldApplyCartInOneQueuedOperationAndStopAtFirstShortfall() {
+        when(bookRepository.decrementStock(eq(1L), eq(1), any(LocalDateTime.class))).thenReturn(Optional.of(testBook));
+        when(bookRepository.decrementStock(eq(2L), eq(40), any(LocalDateTime.class))).thenReturn(Optional.empty());
+        when(bookRepository.existsById(2L)).thenReturn(true);
+        List<StockAdjustment> cart = List.of(new StockAdjustment(1L, 1), new StockAdjustment(2L, 40), new StockAdjustment(3L, 1));
+
+        assertThatThrownBy(() -> bookService.decrementStock(cart))
+            .isInstanceOf(InsufficientStockException.class);
+        verify(writeQueue, times(1)).execute(any());
+        verify(bookRepository, never()).decrementStock(eq(3L), anyInt(), any(LocalDateTime.class));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void shouldBatchGetInRequestOrderAndFlagMisses() {
+        when(bookRepository.findAllById(List.of(2L, 99L, 1L))).thenReturn(List.of(testBook, testBook2));
+        // 789012 is already cached by the id lookup, so only the unknown ISBN reaches the database
+        when(bookRepository.findByIsbnIn(List.of("000000"))).thenReturn(List.of());
+
+        BatchGetResult result = bookService.getBooks(new BatchGetRequest(List.of(2L, 99L, 1L, 2L), List.of("789012", "000000")));
+
+        assertThat(result.getIds()).extracting(BatchGetResult.Lookup::getKey).containsExactly(2L, 99L, 1L, 2L);
+        assertThat(result.getIds()).extracting(BatchGetResult.Lookup::isFound).containsExactly(true, false, true, true);
+        assertThat(result.getIds().get(0).getBook()).isSameAs(testBook2);
+        assertThat(result.getIsbns()).extracting(BatchGetResult.Lookup::isFound).containsExactly(true, false);
+    }
+
+    @Test
+    void shouldLoadOnlyCacheMissesInBatchGet() {
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(testBook));
+        when(bookRepository.findAllById(List.of(2L))).thenReturn(List.of(testBook2));
+        bookService.getBookById(1L);
+
+        BatchGetResult result = bookService.getBooks(new BatchGetRequest(List.of(1L, 2L), null));
+
+        assertThat(result.getIds()).allMatch(BatchGetResult.Lookup::isFound);
+        verify(bookRepository).findAllById(List.of(2L));
+    }
+
+    @Test
+    void shouldChunkBatchGetQueries() {
+        List<Long> ids = LongStream.rangeClosed(1, BookService.MAX_BATCH_GET_SIZE).boxed().toList();
+        when(bookRepository.findAllById(anyList())).thenReturn(List.of());
+
+        bookService.getBooks(new BatchGetRequest(ids, null));
+
+        verify(bookRepository, times((BookService.MAX_BATCH_GET_SIZE + BookService.IN_CLAUSE_CHUNK_SIZE - 1)
+            / BookService.IN_CLAUSE_CHUNK_SIZE)).findAllById(anyList());
+    }
+
+    @Test
+    void shouldRejectOversizedBatchGet() {
+        List<Long> ids = LongStream.rangeClosed(1, BookService.MAX_BATCH_GET_SIZE + 1).boxed().toList();
+
+        assertThatThrownBy(() -> bookService.getBooks(new BatchGetRequest(ids, null)))
+            .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(bookRepository);
+    }
+
     @Test
     void shouldReturnBookWhenIsbnExists() {
         when(bookRepository.findByIsbn("123456")).thenReturn(Optional.of(testBook));
@@ -103,13 +356,61 @@ class BookServiceTest {
     @Test
     void shouldReturnBooksByTitleSearch() {
         List<Book> expectedBooks = Arrays.asList(testBook);
-        when(bookRepository.findByTitleContaining("title")).thenReturn(expectedBooks);
+        when(bookRepository.searchFullText("title : \"title\"", -1, 0)).thenReturn(expectedBooks);
 
         List<Book> result = bookService.searchBooksByTitle("title");
 
         assertThat(result).hasSize(1);
     }
 
+    @Test
+    void shouldFallBackToLikeSearchForShortTitles() {
+        when(bookRepository.findByTitleContaining("ti")).thenReturn(Arrays.asList(testBook));
+
+        List<Book> result = bookService.searchBooksByTitle("ti");
+
+        assertThat(result).hasSize(1);
+        verify(bookRepository, never()).searchFullText(anyString(), anyInt(), anyInt());
+    }
+
+    @Test
+    void shouldSearchByIsbnPrefixWhenQueryLooksLikeIsbn() {
+        when(bookRepository.findByIsbnRange("1234", "1235", 20, 20)).thenReturn(Arrays.asList(testBook));
+
+        List<Book> result = bookService.searchBooks("1234", 1, 20);
+
+        assertThat(result).containsExactly(testBook);
+    }
+
+    @Test
+    void shouldFallThroughToFullTextForProjectedNumericTitles() {
+        BookProjection projection = BookProjection.parse("title");
+        when(projectionRepository.findByIsbnRange(projection, "1984", "1985", 20, 0)).thenReturn(List.of());
+        when(projectionRepository.searchFullText(projection, "\"1984\"", 20, 0))
+            .thenReturn(List.of(Map.of("id", 3L, "title", "1984")));
+
+        List<Map<String, Object>> result = bookService.searchBooks("1984", 0, 20, projection);
+
+        assertThat(result).containsExactly(Map.of("id", 3L, "title", "1984"));
+        verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    void shouldSearchFullTextDroppingShortTerms() {
+        when(bookRepository.searchFullText("\"book\" \"title\"", 10, 0)).thenReturn(Arrays.asList(testBook, testBook2));
+
+        List<Book> result = bookService.searchBooks("book of title", 0, 10);
+
+        assertThat(result).hasSize(2);
+    }
+
+    @Test
+    void shouldRejectSearchWithoutUsableTerms() {
+        assertThatThrownBy(() -> bookService.searchBooks("a b", 0, 10))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("at least 3 characters");
+    }
+
     @Test
     void shouldCreateBookWhenIsbnDoesNotExist() {
         Book newBook = new Book();
@@ -120,9 +421,7 @@ class BookServiceTest {
         newBook.setQuantity(25);
 
         when(bookRepository.findByIsbn(anyString())).thenReturn(Optional.empty());
-        when(jdbcTemplate.getJdbcOperations()).thenReturn(mock(org.springframework.jdbc.core.JdbcTemplate.class));
-        when(jdbcTemplate.getJdbcOperations().queryForObject(anyString(), eq(Long.class))).thenReturn(1L);
-        when(jdbcTemplate.update(anyString(), any(org.springframework.jdbc.core.namedparam.SqlParameterSource.class))).thenReturn(1);
+        when(bookRepository.insert(newBook)).thenReturn(1L);
 
         Book result = bookService.createBook(newBook);
 
@@ -156,6 +455,7 @@ class BookServiceTest {
 
         assertThat(result.getTitle()).isEqualTo("book title 1 updated");
         verify(bookRepository).save(any(Book.class));
+        verify(eventPublisher).publishEvent(any(BookChangedEvent.class));
     }
 
 
@@ -175,12 +475,13 @@ class BookServiceTest {
 
     @Test
     void shouldDeleteBookWhenIdExists() {
-        when(bookRepository.existsById(1L)).thenReturn(true);
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(testBook));
         doNothing().when(bookRepository).deleteById(1L);
 
         bookService.deleteBook(1L);
 
         verify(bookRepository).deleteById(1L);
+        verify(eventPublisher).publishEvent(BookChangedEvent.deleted(testBook));
     }
 }
 
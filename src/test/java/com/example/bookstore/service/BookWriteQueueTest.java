@@ -0,0 +1,113 @@
+package com.example.bookstore.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BookWriteQueueTest {
+
+    @TempDir
+    Path databaseDir;
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private BookWriteQueue writeQueue;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new SingleConnectionDataSource("jdbc:sqlite:" + databaseDir.resolve("queue.db"), true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE items (name TEXT NOT NULL UNIQUE)");
+        writeQueue = new BookWriteQueue(new DataSourceTransactionManager(dataSource), true, 64, Duration.ofMillis(50), 100);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        writeQueue.destroy();
+        dataSource.destroy();
+    }
+
+    @Test
+    @DisplayName("Should return the operation result once its batch has committed")
+    void testExecuteReturnsResult() {
+        Integer updated = writeQueue.execute(() -> jdbcTemplate.update("INSERT INTO items (name) VALUES ('a')"));
+
+        assertThat(updated).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM items", Integer.class)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should fail only the failing operation and keep the rest of its batch")
+    void testFailureIsIsolatedWithinBatch() {
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (String name : List.of("a", "b", "a", "c")) {
+            futures.add(writeQueue.submit(() -> jdbcTemplate.update("INSERT INTO items (name) VALUES (?)", name)));
+        }
+
+        assertThat(futures.get(3).join()).isEqualTo(1);
+        assertThat(futures.get(0)).isCompletedWithValue(1);
+        assertThat(futures.get(1)).isCompletedWithValue(1);
+        assertThat(futures.get(2)).isCompletedExceptionally();
+        assertThat(jdbcTemplate.queryForList("SELECT name FROM items ORDER BY name", String.class))
+            .containsExactly("a", "b", "c");
+    }
+
+    @Test
+    @DisplayName("Should group concurrently submitted operations into one commit")
+    void testGroupsSubmissionsIntoBatches() {
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            String name = "item-" + i;
+            futures.add(writeQueue.submit(() -> jdbcTemplate.update("INSERT INTO items (name) VALUES (?)", name)));
+        }
+        futures.forEach(CompletableFuture::join);
+
+        assertThat(writeQueue.stats().get("operations")).isEqualTo(20L);
+        assertThat((Long) writeQueue.stats().get("batches")).isLessThan(20L);
+    }
+
+    @Test
+    @DisplayName("Should rethrow the operation's exception to the caller")
+    void testExecuteRethrowsException() {
+        assertThatThrownBy(() -> writeQueue.execute(() -> {
+            throw new IllegalArgumentException("Book not found with id: 1");
+        }))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Book not found with id: 1");
+    }
+
+    @Test
+    @DisplayName("Should fail an operation that throws an Error and keep the writer running")
+    void testErrorDoesNotStopWriter() {
+        CompletableFuture<Integer> before =
+            writeQueue.submit(() -> jdbcTemplate.update("INSERT INTO items (name) VALUES ('a')"));
+        CompletableFuture<Integer> failing = writeQueue.submit(() -> {
+            jdbcTemplate.update("INSERT INTO items (name) VALUES ('b')");
+            throw new StackOverflowError("operation blew up");
+        });
+
+        assertThat(before.join()).isEqualTo(1);
+        assertThatThrownBy(failing::join).hasCauseInstanceOf(StackOverflowError.class);
+        assertThatThrownBy(() -> writeQueue.execute(() -> {
+            throw new AssertionError("operation blew up");
+        }))
+            .isInstanceOf(AssertionError.class);
+        assertThat(writeQueue.execute(() -> jdbcTemplate.update("INSERT INTO items (name) VALUES ('c')"))).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForList("SELECT name FROM items ORDER BY name", String.class))
+            .containsExactly("a", "c");
+    }
+}
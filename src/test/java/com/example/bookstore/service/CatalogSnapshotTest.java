@@ -0,0 +1,181 @@
+package com.example.bookstore.service;
+
+import com.example.bookstore.model.Book;
+import com.example.bookstore.model.BookVersion;
+import com.example.bookstore.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Writes through BookService must be visible in the snapshot as soon as they return; other writes after a catch-up
+@SpringBootTest(properties = {
+    "bookstore.catalog-snapshot.enabled=true",
+    "bookstore.catalog-snapshot.refresh-interval=1h",
+    "bookstore.write-queue.max-batch-delay=20ms"
+})
+class CatalogSnapshotTest {
+
+    @TempDir
+    static Path databaseDir;
+
+    @DynamicPropertySource
+    static void databaseUrl(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> "jdbc:sqlite:" + databaseDir.resolve("bookstore.db"));
+    }
+
+    @Autowired
+    private CatalogSnapshot catalogSnapshot;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookWriteQueue writeQueue;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void load() {
+        catalogSnapshot.rebuild();
+    }
+
+    @Test
+    void shouldReflectWritesThroughBookServiceImmediately() {
+        Book created = bookService.createBook(new Book("Snapshot", "Author", "snap-1", new BigDecimal("19.99"), 3));
+        assertThat(catalogSnapshot.getById(created.getId())).isNotNull()
+            .extracting(Book::getTitle).isEqualTo("Snapshot");
+
+        Book patch = new Book();
+        patch.setIsbn("snap-2");
+        patch.setPrice(new BigDecimal("24.50"));
+        bookService.patchBook(created.getId(), patch);
+
+        assertThat(catalogSnapshot.getByIsbn("snap-1")).isNull();
+        Book patched = catalogSnapshot.getByIsbn("snap-2");
+        assertThat(patched.getId()).isEqualTo(created.getId());
+        assertThat(patched.getPrice()).isEqualByComparingTo("24.50");
+
+        bookService.deleteBook(created.getId());
+
+        assertThat(catalogSnapshot.getById(created.getId())).isNull();
+        assertThat(catalogSnapshot.getByIsbn("snap-2")).isNull();
+    }
+
+    @Test
+    void shouldServeBooksAndVersionsEqualToTheDatabase() {
+        Book created = bookService.createBook(new Book("Equal", "Author", "snap-3", new BigDecimal("7.5"), null));
+        Book stored = bookRepository.findById(created.getId()).orElseThrow();
+
+        Book served = catalogSnapshot.getById(created.getId());
+
+        assertThat(served).usingRecursiveComparison().isEqualTo(stored);
+        assertThat(served.getQuantity()).isNull();
+        assertThat(catalogSnapshot.getVersion(created.getId()))
+            .isEqualTo(storedVersion(created.getId()))
+            .isEqualTo(catalogSnapshot.getVersionByIsbn("snap-3"));
+    }
+
+    @Test
+    void shouldPickUpWritesMadeOutsideBookServiceOnCatchUp() {
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update("INSERT INTO books (title, author, isbn, price, quantity, created_at, updated_at) " +
+            "VALUES ('Direct', 'Author', 'snap-4', 5.25, 2, ?, ?)", now, now);
+        assertThat(catalogSnapshot.getByIsbn("snap-4")).isNull();
+
+        catalogSnapshot.catchUp();
+
+        assertThat(catalogSnapshot.getByIsbn("snap-4")).extracting(Book::getTitle).isEqualTo("Direct");
+        jdbcTemplate.update("DELETE FROM books WHERE isbn = 'snap-4'");
+        catalogSnapshot.catchUp();
+        assertThat(catalogSnapshot.getByIsbn("snap-4")).isNull();
+    }
+
+    @Test
+    void shouldKeepIsbnLookupsRightWhenIsbnsMoveBetweenBooksInOneCatchUp() {
+        Book first = bookService.createBook(new Book("First", "Author", "snap-5", new BigDecimal("1.00"), 1));
+        Book second = bookService.createBook(new Book("Second", "Author", "snap-6", new BigDecimal("1.00"), 1));
+        // The second book takes the first one's ISBN, then the first book changes again, so its change comes last
+        jdbcTemplate.update("UPDATE books SET isbn = 'snap-7' WHERE id = ?", first.getId());
+        jdbcTemplate.update("UPDATE books SET isbn = 'snap-5' WHERE id = ?", second.getId());
+        jdbcTemplate.update("UPDATE books SET title = 'First again' WHERE id = ?", first.getId());
+
+        catalogSnapshot.catchUp();
+
+        assertThat(catalogSnapshot.getByIsbn("snap-5").getId()).isEqualTo(second.getId());
+        assertThat(catalogSnapshot.getByIsbn("snap-7").getId()).isEqualTo(first.getId());
+        assertThat(catalogSnapshot.getByIsbn("snap-6")).isNull();
+    }
+
+    // Each commit's writer waits for one refresher pass, however many books the commit changed
+    @Test
+    void shouldCatchUpOncePerGroupCommit() throws Exception {
+        long catchUpsBefore = stat(catalogSnapshot.stats().get("catchUps"));
+        long batchesBefore = stat(writeQueue.stats().get("batches"));
+        List<CompletableFuture<Book>> writes = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            Book book = new Book("Grouped " + i, "Author", "snap-group-" + i, new BigDecimal("3.00"), 1);
+            writes.add(writeQueue.submit(() -> bookService.createBook(book)));
+        }
+
+        for (CompletableFuture<Book> write : writes) {
+            Book created = write.get(5, TimeUnit.SECONDS);
+            assertThat(catalogSnapshot.getById(created.getId())).extracting(Book::getTitle).isEqualTo(created.getTitle());
+        }
+        long batches = stat(writeQueue.stats().get("batches")) - batchesBefore;
+        assertThat(batches).isLessThan(writes.size());
+        assertThat(stat(catalogSnapshot.stats().get("catchUps")) - catchUpsBefore).isEqualTo(batches);
+    }
+
+    @Test
+    void shouldCompactOnceDeletedRowsOutnumberLiveOnes() {
+        Book kept = bookService.createBook(new Book("Kept", "Author", "snap-kept", new BigDecimal("2.00"), 1));
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            rows.add(new Object[] {"Short-lived " + i, "Author", "snap-dead-" + i, now, now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO books (title, author, isbn, price, quantity, created_at, updated_at) " +
+            "VALUES (?, ?, ?, 1.00, 1, ?, ?)", rows);
+        catalogSnapshot.catchUp();
+        assertThat(catalogSnapshot.getByIsbn("snap-dead-0")).isNotNull();
+
+        jdbcTemplate.update("DELETE FROM books WHERE isbn LIKE 'snap-dead-%'");
+        catalogSnapshot.catchUp();
+
+        assertThat(catalogSnapshot.stats()).containsEntry("deadRows", 0)
+            .containsEntry("books", (int) bookRepository.count());
+        assertThat(catalogSnapshot.getByIsbn("snap-dead-0")).isNull();
+        assertThat(catalogSnapshot.getByIsbn("snap-kept")).usingRecursiveComparison()
+            .isEqualTo(bookRepository.findById(kept.getId()).orElseThrow());
+        assertThat(catalogSnapshot.getVersion(kept.getId())).isEqualTo(storedVersion(kept.getId()));
+    }
+
+    private static long stat(Object value) {
+        return ((Number) value).longValue();
+    }
+
+    private BookVersion storedVersion(long id) {
+        return jdbcTemplate.queryForObject("SELECT seq, changed_at FROM book_changes WHERE book_id = ?",
+            (rs, rowNum) -> new BookVersion(rs.getLong("seq"), Instant.parse(rs.getString("changed_at"))), id);
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.bookstore.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JdbcExecutorTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final JdbcExecutor executor = new JdbcExecutor(1, 1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        executor.destroy();
+    }
+
+    @Test
+    void shouldCompleteWithTheOperationsResult() throws Exception {
+        assertThat(executor.submit(() -> "result", TIMEOUT).get(5, TimeUnit.SECONDS)).isEqualTo("result");
+        assertThat(executor.getThreads()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRejectWhenEveryThreadIsBusyAndTheQueueIsFull() {
+        executor.submit(this::block, TIMEOUT);
+        executor.submit(this::block, TIMEOUT);
+
+        CompletableFuture<String> rejected = executor.submit(() -> "result", TIMEOUT);
+
+        assertThat(rejected).failsWithin(Duration.ZERO).withThrowableThat()
+            .withCauseInstanceOf(RejectedExecutionException.class);
+        assertThat(executor.stats()).containsEntry("rejected", 1L).containsEntry("queued", 1);
+    }
+
+    // The queued call times out before the thread frees up and must not run afterwards
+    @Test
+    void shouldTimeOutAndDropACallStillQueued() throws Exception {
+        CompletableFuture<String> running = executor.submit(this::block, TIMEOUT);
+        AtomicBoolean ran = new AtomicBoolean();
+        CompletableFuture<String> queued = executor.submit(() -> {
+            ran.set(true);
+            return "result";
+        }, Duration.ofMillis(20));
+
+        assertThat(queued).failsWithin(Duration.ofSeconds(5)).withThrowableThat()
+            .withCauseInstanceOf(TimeoutException.class)
+            .withCauseExactlyInstanceOf(TimeoutException.class);
+        release.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        executor.submit(() -> "drained", TIMEOUT).get(5, TimeUnit.SECONDS);
+
+        assertThat(ran).isFalse();
+        assertThat(executor.stats()).containsEntry("timedOut", 1L);
+    }
+
+    // A running call cannot be stopped, so the caller learns it timed out but the call still finishes
+    @Test
+    void shouldReportACallThatTimesOutWhileRunningAndLetItFinish() throws Exception {
+        AtomicBoolean finished = new AtomicBoolean();
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<String> running = executor.submit(() -> {
+            started.countDown();
+            block();
+            finished.set(true);
+            return "result";
+        }, Duration.ofMillis(20));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(running).failsWithin(Duration.ofSeconds(5)).withThrowableThat()
+            .withCauseInstanceOf(StillRunningException.class);
+        release.countDown();
+        executor.submit(() -> "drained", TIMEOUT).get(5, TimeUnit.SECONDS);
+
+        assertThat(finished).isTrue();
+        assertThat(executor.stats()).containsEntry("timedOut", 1L);
+    }
+
+    @Test
+    void shouldCompleteExceptionallyWhenTheOperationThrows() {
+        CompletableFuture<String> failed = executor.submit(() -> {
+            throw new IllegalArgumentException("Book not found");
+        }, TIMEOUT);
+
+        assertThat(failed).failsWithin(Duration.ofSeconds(5)).withThrowableThat()
+            .withCauseInstanceOf(IllegalArgumentException.class);
+    }
+
+    private String block() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "blocked";
+    }
+}
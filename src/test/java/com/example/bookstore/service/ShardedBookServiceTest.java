@@ -0,0 +1,127 @@
+package com.example.bookstore.service;
+
+import com.example.bookstore.model.Book;
+import com.example.bookstore.model.BookVersion;
+import com.example.bookstore.model.StockAdjustment;
+import com.example.bookstore.repository.BookRepository;
+import com.example.bookstore.repository.ShardMap;
+import com.example.bookstore.repository.ShardedBookRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// BookService on the sharded profile: the sharded repository replaces the Spring Data one
+@SpringBootTest
+@ActiveProfiles("sharded")
+class ShardedBookServiceTest {
+
+    @TempDir
+    static Path databaseDir;
+
+    @DynamicPropertySource
+    static void databaseUrl(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> "jdbc:sqlite:" + databaseDir.resolve("bookstore.db"));
+        registry.add("bookstore.sharding.directory", () -> databaseDir.resolve("shards").toString());
+    }
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Test
+    void shouldCreateUpdateAndDeleteBooksOnTheShards() {
+        assertThat(bookRepository).isInstanceOf(ShardedBookRepository.class);
+        BookVersion initial = bookService.getCatalogVersion();
+
+        Book created = bookService.createBook(new Book("Sharded", "Author", "sharded-1", new BigDecimal("9.99"), 2));
+        Book patch = new Book();
+        patch.setIsbn("sharded-2");
+        bookService.patchBook(created.getId(), patch);
+
+        assertThat(bookService.getBookByIsbn("sharded-1")).isEmpty();
+        assertThat(bookService.getBookByIsbn("sharded-2")).get().extracting(Book::getId).isEqualTo(created.getId());
+        assertThatThrownBy(() -> bookService.createBook(new Book("Copy", "Author", "sharded-2", BigDecimal.ONE, 1)))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThat(bookService.getCatalogVersion().seq()).isGreaterThan(initial.seq());
+
+        bookService.deleteBook(created.getId());
+        assertThat(bookService.getBookById(created.getId())).isEmpty();
+    }
+
+    // ETags for single books must come from the shard's change log, or a write would still answer 304
+    @Test
+    void shouldMoveTheBookVersionOnEveryShardedWrite() {
+        Book created = bookService.createBook(new Book("Versioned", "Author", "sharded-v", new BigDecimal("9.99"), 2));
+        BookVersion before = bookService.getBookVersion(created.getId()).orElseThrow();
+
+        bookService.decrementStock(created.getId(), 1);
+
+        BookVersion after = bookService.getBookVersion(created.getId()).orElseThrow();
+        assertThat(after.seq()).isGreaterThan(before.seq());
+        assertThat(bookService.getBookVersionByIsbn("sharded-v")).contains(after);
+    }
+
+    @Test
+    void shouldRejectACartSpanningShardsWithoutApplyingAnyLine() {
+        List<Book> books = IntStream.range(0, 12)
+            .mapToObj(i -> bookService.createBook(new Book("Cart " + i, "Author", "sharded-cart-" + i, BigDecimal.ONE, 5)))
+            .toList();
+        Book first = books.get(0);
+        Book otherShard = books.stream().filter(book -> shardOf(book) != shardOf(first)).findFirst().orElseThrow();
+
+        assertThatThrownBy(() -> bookService.decrementStock(List.of(
+                new StockAdjustment(first.getId(), 1), new StockAdjustment(otherShard.getId(), 1))))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(bookRepository.findById(first.getId())).get().extracting(Book::getQuantity).isEqualTo(5);
+        assertThat(bookRepository.findById(otherShard.getId())).get().extracting(Book::getQuantity).isEqualTo(5);
+    }
+
+    // Features backed only by the primary database must not serve its stale tables
+    @Test
+    void shouldAnswerNotImplementedForFeaturesOnThePrimaryDatabase() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+
+        mockMvc.perform(get("/api/books/filter").param("maxPrice", "10")).andExpect(status().isNotImplemented());
+        mockMvc.perform(get("/api/books/changes")).andExpect(status().isNotImplemented());
+        mockMvc.perform(get("/api/books").param("fields", "title")).andExpect(status().isNotImplemented());
+        mockMvc.perform(get("/api/books/search").param("title", "Dune").param("fields", "title"))
+            .andExpect(status().isNotImplemented());
+        mockMvc.perform(get("/api/authors")).andExpect(status().isNotImplemented());
+        mockMvc.perform(get("/api/authors/Author")).andExpect(status().isNotImplemented());
+        mockMvc.perform(post("/api/books/bulk").contentType(MediaType.APPLICATION_NDJSON).content("{}"))
+            .andExpect(status().isNotImplemented())
+            .andExpect(jsonPath("$.error").value(containsString("sharded")));
+        mockMvc.perform(get("/api/books").param("limit", "1")).andExpect(status().isOk());
+    }
+
+    private int shardOf(Book book) {
+        return ((ShardedBookRepository) bookRepository).getShardMap().shardOf(ShardMap.bucketOfId(book.getId()));
+    }
+}